@@ -0,0 +1,279 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Reproducible corpus of generated games for the benchmarks. Games are cut from a few well
+ * known games, with random tags and lengths taken from a fixed seed. Variations replay the
+ * moves of the main line from the move they replace, so every generated game is legal.
+ */
+final class BenchmarkCorpus {
+
+  static final int GAMES = 1000;
+
+  static final int MOVES = 1000;
+
+  static final int POSITIONS = 1000;
+
+  private static final long SEED = 0x70676e7061727365L;
+
+  private static final int LINE_LENGTH = 79;
+
+  private static final String[][] LINES = {
+      ("e4 e5 Nf3 d6 d4 Bg4 dxe5 Bxf3 Qxf3 dxe5 Bc4 Nf6 Qb3 Qe7 Nc3 c6 Bg5 b5 Nxb5 cxb5 "
+          + "Bxb5+ Nbd7 O-O-O Rd8 Rxd7 Rxd7 Rd1 Qe6 Bxd7+ Nxd7 Qb8+ Nxb8 Rd8#").split(" "),
+      ("e4 e5 f4 exf4 Bc4 Qh4+ Kf1 b5 Bxb5 Nf6 Nf3 Qh6 d3 Nh5 Nh4 Qg5 Nf5 c6 g4 Nf6 Rg1 cxb5 "
+          + "h4 Qg6 h5 Qg5 Qf3 Ng8 Bxf4 Qf6 Nc3 Bc5 Nd5 Qxb2 Bd6 Bxg1 e5 Qxa1+ Ke2 Na6 "
+          + "Nxg7+ Kd8 Qf6+ Nxf6 Be7#").split(" "),
+      ("e4 e5 Nf3 Nc6 Bc4 Bc5 b4 Bxb4 c3 Ba5 d4 exd4 O-O d3 Qb3 Qf6 e5 Qg6 Re1 Nge7 Ba3 b5 "
+          + "Qxb5 Rb8 Qa4 Bb6 Nbd2 Bb7 Ne4 Qf5 Bxd3 Qh5 Nf6+ gxf6 exf6 Rg8 Rad1 Qxf3 Rxe7+ "
+          + "Nxe7 Qxd7+ Kxd7 Bf5+ Ke8 Bd7+ Kf8 Bxe7#").split(" "),
+      ("Nf3 Nf6 c4 g6 Nc3 Bg7 d4 O-O Bf4 d5 Qb3 dxc4 Qxc4 c6 e4 Nbd7 Rd1 Nb6 Qc5 Bg4 Bg5 "
+          + "Na4 Qa3 Nxc3 bxc3 Nxe4 Bxe7 Qb6 Bc4 Nxc3 Bc5 Rfe8+ Kf1 Be6 Bxb6 Bxc4+ Kg1 Ne2+ "
+          + "Kf1 Nxd4+ Kg1 Ne2+ Kf1 Nc3+ Kg1 axb6 Qb4 Ra4 Qxb6 Nxd1 h3 Rxa2 Kh2 Nxf2 Re1 "
+          + "Rxe1 Qd8+ Bf8 Nxe1 Bd5 Nf3 Ne4 Qb8 b5 h4 h5 Ne5 Kg7 Kg1 Bc5+ Kf1 Ng3+ Ke1 Bb4+ "
+          + "Kd1 Bb3+ Kc1 Ne2+ Kb1 Nc3+ Kc1 Rc2#").split(" ")
+  };
+
+  private static final String[] RESULTS = {"1-0", "1-0", "1-0", "0-1"};
+
+  /**
+   * Random legal walks from endgame positions, dominated by knight, king and rook moves.
+   */
+  private static final String[] ENDGAME_FENS = {
+      "8/5k2/3n4/8/2N5/4K3/5P2/8 w - - 0 1",
+      "8/8/2k5/3n4/8/2KN4/6P1/8 w - - 0 1",
+      "6k1/5p2/8/3N4/8/1n6/5PK1/8 w - - 0 1",
+      "8/4k3/8/2r5/8/4K3/1R6/8 w - - 0 1"
+  };
+
+  private static final String[][] ENDGAME_LINES = {
+      ("Kf3 Ke8 Nb2 Nb7 Kg3 Kd7 Kh3 Na5 Kh4 Kc8 Kg3 Kb7 Kh2 Nc6 Nc4 Nb4 Kh1 Nd3 f3 Nc1 "
+          + "Nb2 Nd3 Nd1 Kb6 Kg2 Kb5 Kf1 Kb4 Kg2 Nc1 Nb2 Nd3 Na4 Nc1 Nc3 Kb3 Kh2 Kc2 Kh1 Kb2 "
+          + "Ne2 Ka2 f4 Nd3 Ng3 Nc5 Nf5 Na6 Ne3 Ka1 Nf1 Kb1 Nh2 Ka2 Nf3 Kb1 Nh4 Nb8 Kh2 Nc6 "
+          + "Nf3 Ka2 Ne1 Ka3 Kh3 Kb2 Kg4 Ka3 Kg3 Ne5 Kf2 Kb3 Ke3 Kb2 Ke4 Nf7 Kf5 Kc1 Nd3+ Kd1 "
+          + "Nf2+ Ke2 Nh1 Ne5 Nf2 Nf3 Nd1 Ne5 Nc3+ Ke1").split(" "),
+      ("Kb2 Kd6 Ne5 Nf6 Kc1 Ke7 Kb1 Ng8 Nf7 Ke6 Nd8+ Kd6 Kc2 Kd7 Kc1 Ke8 Kc2 Nh6 Nb7 Kf7 "
+          + "Nd8+ Kf8 Ne6+ Kf7 Ng5+ Kf8 Nf3 Ke8 Nd2 Kd7 Ne4 Ke6 Kc3 Kd5 Kc2 Ng4 Kc3 Ne5 Nd2 "
+          + "Nc6 Kb2 Kd6 Ka2 Ne5 Ka1 Nd3 Nf1 Kd5 Kb1 Nc5 Ne3+ Ke4 Ka2 Na6 Kb2 Nc7 Nc2 Na6 Kc1 "
+          + "Nc7 Kd1 Ne8 Ne3 Kd3 Nc4 Nd6 Ne3 Nc8 Nc2 Na7 Na1 Ke3 Kc1 Kf4 Kc2 Nb5 Kb1 Nd4 Nb3 "
+          + "Kg5 Kc1 Nf5 Kd2 Nh4 Na1 Kg4 Nc2 Kg5 Nd4 Nf3+").split(" "),
+      ("Ne3 f6 Kf3 Kf7 Nc4 Kg8 Kg4 Nd2 Kh3 Nf3 Na3 Kg7 Nc2 Ne5 f3 Ng4 Kg2 Kf7 Nb4 Nf2 "
+          + "Na2 Kg8 Kg3 Nh1+ Kh2 Kh7 Nb4 Kh6 Kg2 Kh5 Nc6 Kh4 Ne7 Kh5 Nd5 Kh6 Kh3 Kg7 Nc3 Kf7 "
+          + "f4 Ke8 Ne2 Ng3 Nd4 Ne2 Kg2 Kd8 Nc6+ Kc7 Kh2 Nd4 Kg1 Kd6 Na7 Nc6 Kf2 Kc7 Kg2 Kd8 "
+          + "Kf2 Na5 Nb5 Kd7 Ke2 Nb7 Nc7 f5 Kf1 Ke7 Kg1 Nd6 Nd5+ Kf7 Kh2 Kf8 Nb4 Ke7 Na6 Ke8 "
+          + "Kh1 Kf8 Nc7 Kg8 Nb5 Kh8 Kh2 Nc8 Nd4 Nd6").split(" "),
+      ("Rg2 Rb5 Rd2 Rh5 Kf3 Rh2 Rd4 Rh7 Kf2 Rh8 Rd6 Rc8 Kg3 Rc3+ Kf2 Rc7 Rc6 Kd7 Rc4 Kd8 "
+          + "Rg4 Rd7 Rg2 Re7 Kf1 Re3 Rg3 Rc3 Kg2 Kd7 Kh3 Rf3 Kg4 Rb3 Rc3 Rb2 Rc8 Rb6 Rc7+ Kd8 "
+          + "Rb7 Re6 Rb6 Rf6 Kh4 Rd6 Kg5 Rd7 Kf4 Kc8 Ke3 Rg7 Ra6 Re7+ Re6 Rc7 Kd4 Kb7 Ke3 Ka8 "
+          + "Kd4 Rd7+ Rd6 Rb7 Rd5 Rh7 Kd3 Rh1 Re5 Rh5 Re3 Rh3 Kc2 Rf3 Kb3 Rg3 Kc4 Rg8 Ra3+ "
+          + "Kb7 Ra6 Rg1 Ra2 Rf1 Kd3 Ra1 Ra5 Rb1 Kc3 Rb6").split(" ")
+  };
+
+  private static final String[] ENDGAME_RESULTS = {"1/2-1/2", "1/2-1/2", "1/2-1/2", "1/2-1/2"};
+
+  private static final String[] NAMES = {"Anderssen", "Morphy", "Steinitz", "Lasker",
+      "Capablanca", "Alekhine", "Euwe", "Botvinnik", "Tal", "Petrosian", "Spassky", "Fischer"};
+
+  private static final String[] WORDS = {"the", "idea", "is", "to", "open", "the", "centre",
+      "with", "tempo", "while", "black", "white", "lags", "in", "development", "sharp",
+      "better", "was", "threatening", "mate", "on", "the", "next", "move"};
+
+  private BenchmarkCorpus() {
+
+  }
+
+  /**
+   * @return games with tags and bare movetext
+   */
+  static List<String> plainGames() {
+    return generate(1, LINES, null, RESULTS, 0, false);
+  }
+
+  /**
+   * @return games with several, partly nested, variations per game
+   */
+  static List<String> variationGames() {
+    return generate(2, LINES, null, RESULTS, 2, false);
+  }
+
+  /**
+   * @return games with a brace or line comment after most moves
+   */
+  static List<String> commentGames() {
+    return generate(3, LINES, null, RESULTS, 0, true);
+  }
+
+  /**
+   * @return games starting from endgame positions, with mostly knight and king moves
+   */
+  static List<String> endgameGames() {
+    return generate(4, ENDGAME_LINES, ENDGAME_FENS, ENDGAME_RESULTS, 0, false);
+  }
+
+  /**
+   * @return {@link #MOVES} moves in SAN, cycling through the moves of the source games
+   */
+  static List<String> moves() {
+    List<String> allMoves = new ArrayList<>();
+
+    for (String[] line : LINES) {
+      for (String move : line) {
+        allMoves.add(move);
+      }
+    }
+
+    return cycle(allMoves, MOVES);
+  }
+
+  /**
+   * @return {@link #POSITIONS} FEN strings, cycling through the positions of the source games
+   */
+  static List<String> fens() throws PGNParseException {
+    List<String> fens = new ArrayList<>();
+    PGNParseOptions options = new PGNParseOptions();
+    options.setPositionSnapshots(true);
+
+    for (String[] line : LINES) {
+      StringBuilder pgn = new StringBuilder();
+      appendMoves(pgn, line, 0, line.length, null, 0, false);
+      append(pgn, "*");
+      PGNGame game = PGNParser.parse(pgn.toString(), options);
+      fens.add(game.getFEN(null));
+
+      for (PGNMove move : game.getMoves()) {
+        fens.add(game.getFEN(move));
+      }
+    }
+
+    return cycle(fens, POSITIONS);
+  }
+
+  private static List<String> cycle(List<String> items, int count) {
+    List<String> cycled = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      cycled.add(items.get(i % items.size()));
+    }
+
+    return cycled;
+  }
+
+  static String join(List<String> games) {
+    StringBuilder text = new StringBuilder();
+
+    for (String game : games) {
+      text.append(game).append('\n');
+    }
+
+    return text.toString();
+  }
+
+  private static List<String> generate(int kind, String[][] lines, String[] fens,
+      String[] results, int variationDepth, boolean comments) {
+    Random random = new Random(SEED + kind);
+    List<String> games = new ArrayList<>(GAMES);
+
+    for (int i = 0; i < GAMES; i++) {
+      int source = random.nextInt(lines.length);
+      String[] line = lines[source];
+      int plies = line.length / 2 + random.nextInt(line.length / 2 + 1);
+      String result = plies == line.length ? results[source] : "*";
+      StringBuilder pgn = new StringBuilder(1024);
+      appendTag(pgn, "Event", "Benchmark " + i);
+      appendTag(pgn, "Site", "Generated");
+      appendTag(pgn, "Date", (1850 + random.nextInt(170)) + "."
+          + twoDigits(1 + random.nextInt(12)) + "." + twoDigits(1 + random.nextInt(28)));
+      appendTag(pgn, "Round", Integer.toString(1 + random.nextInt(13)));
+      appendTag(pgn, "White", NAMES[random.nextInt(NAMES.length)]);
+      appendTag(pgn, "Black", NAMES[random.nextInt(NAMES.length)]);
+      appendTag(pgn, "Result", result);
+
+      if (fens != null) {
+        appendTag(pgn, "SetUp", "1");
+        appendTag(pgn, "FEN", fens[source]);
+      }
+
+      pgn.append('\n');
+      appendMoves(pgn, line, 0, plies, random, variationDepth, comments);
+      append(pgn, result);
+      games.add(pgn.append('\n').toString());
+    }
+
+    return games;
+  }
+
+  private static void appendTag(StringBuilder pgn, String name, String value) {
+    pgn.append('[').append(name).append(" \"").append(value).append("\"]\n");
+  }
+
+  private static String twoDigits(int value) {
+    return value < 10 ? "0" + value : Integer.toString(value);
+  }
+
+  private static void appendMoves(StringBuilder pgn, String[] line, int from, int to,
+      Random random, int variationDepth, boolean comments) {
+    boolean numberNeeded = true;
+
+    for (int ply = from; ply < to; ply++) {
+      if (ply % 2 == 0) {
+        append(pgn, (ply / 2 + 1) + ".");
+      } else if (numberNeeded) {
+        append(pgn, (ply / 2 + 1) + "...");
+      }
+
+      append(pgn, line[ply]);
+      numberNeeded = false;
+
+      if (comments && random.nextInt(4) != 0) {
+        numberNeeded = true;
+
+        if (random.nextInt(5) == 0) {
+          pgn.append(" ; ").append(words(random)).append('\n');
+        } else {
+          append(pgn, "{" + words(random) + "}");
+        }
+      }
+
+      if (variationDepth > 0 && random.nextInt(3) == 0) {
+        numberNeeded = true;
+        append(pgn, "(");
+        appendMoves(pgn, line, ply, Math.min(to, ply + 1 + random.nextInt(8)), random,
+            variationDepth - 1, comments);
+        append(pgn, ")");
+      }
+    }
+  }
+
+  private static String words(Random random) {
+    StringBuilder words = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+
+    for (int i = random.nextInt(8); i > 0; i--) {
+      words.append(' ').append(WORDS[random.nextInt(WORDS.length)]);
+    }
+
+    return words.toString();
+  }
+
+  /**
+   * Append a token, breaking lines before they get longer than the usual PGN export width.
+   */
+  private static void append(StringBuilder pgn, String token) {
+    int lineStart = pgn.lastIndexOf("\n") + 1;
+
+    if (pgn.length() > lineStart) {
+      if (pgn.length() - lineStart + 1 + token.length() > LINE_LENGTH) {
+        pgn.append('\n');
+      } else {
+        pgn.append(' ');
+      }
+    }
+
+    pgn.append(token);
+  }
+
+}
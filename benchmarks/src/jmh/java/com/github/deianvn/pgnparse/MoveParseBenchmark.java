@@ -0,0 +1,51 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Benchmarks of the SAN lexer and the FEN parser, reported per move and per position.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MoveParseBenchmark {
+
+  private List<String> moves;
+
+  private List<String> fens;
+
+  @Setup
+  public void setup() throws PGNParseException {
+    moves = BenchmarkCorpus.moves();
+    fens = BenchmarkCorpus.fens();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.MOVES)
+  public void parseMove(Blackhole blackhole) throws PGNParseException {
+    for (String move : moves) {
+      blackhole.consume(PGNParser.parseMove(move));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.POSITIONS)
+  public void parseFEN(Blackhole blackhole) throws PGNParseException {
+    for (String fen : fens) {
+      blackhole.consume(FENParser.parse(fen));
+    }
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Benchmarks of {@link PGNParser}. Every invocation processes the whole generated corpus and
+ * is reported per game, so the GC profiler's {@code gc.alloc.rate.norm} is the number of bytes
+ * allocated per game.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PGNParserBenchmark {
+
+  private String text;
+
+  private List<String> plainGames;
+
+  private List<String> variationGames;
+
+  private List<String> commentGames;
+
+  private List<String> endgameGames;
+
+  @Setup
+  public void setup() {
+    plainGames = BenchmarkCorpus.plainGames();
+    variationGames = BenchmarkCorpus.variationGames();
+    commentGames = BenchmarkCorpus.commentGames();
+    endgameGames = BenchmarkCorpus.endgameGames();
+    text = BenchmarkCorpus.join(plainGames);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public List<String> split() {
+    return PGNParser.split(text);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void parse(Blackhole blackhole) throws PGNParseException {
+    parseAll(plainGames, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void parseVariations(Blackhole blackhole) throws PGNParseException {
+    parseAll(variationGames, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void parseComments(Blackhole blackhole) throws PGNParseException {
+    parseAll(commentGames, blackhole);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void parseEndgames(Blackhole blackhole) throws PGNParseException {
+    parseAll(endgameGames, blackhole);
+  }
+
+  /**
+   * Count the captures of the corpus with a {@link PGNVisitor}, which builds no moves.
+   */
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public long visit() throws PGNParseException {
+    CaptureCounter counter = new CaptureCounter();
+
+    for (String game : plainGames) {
+      PGNParser.visit(game, counter);
+    }
+
+    return counter.captures;
+  }
+
+  private static void parseAll(List<String> games, Blackhole blackhole)
+      throws PGNParseException {
+    for (String game : games) {
+      blackhole.consume(PGNParser.parse(game));
+    }
+  }
+
+  private static final class CaptureCounter implements PGNVisitor {
+
+    private long captures;
+
+    @Override
+    public void onMove(int from, int to, int piece, int flags) {
+      if (PGNVisitor.getCapturedPiece(flags) != 0) {
+        captures++;
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,80 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Benchmarks of {@link PGNWriter} on the corpora of {@link PGNParserBenchmark}, reported per
+ * game, so that export and parse throughput can be compared.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PGNWriterBenchmark {
+
+  private List<PGNGame> plainGames;
+
+  private List<PGNGame> variationGames;
+
+  private List<PGNGame> commentGames;
+
+  private PGNWriter writer;
+
+  @Setup
+  public void setup() throws PGNParseException {
+    plainGames = parseAll(BenchmarkCorpus.plainGames());
+    variationGames = parseAll(BenchmarkCorpus.variationGames());
+    commentGames = parseAll(BenchmarkCorpus.commentGames());
+    writer = new PGNWriter(Writer.nullWriter());
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void write() throws IOException {
+    writeAll(plainGames);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void writeVariations() throws IOException {
+    writeAll(variationGames);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BenchmarkCorpus.GAMES)
+  public void writeComments() throws IOException {
+    writeAll(commentGames);
+  }
+
+  private void writeAll(List<PGNGame> games) throws IOException {
+    for (PGNGame game : games) {
+      writer.write(game);
+    }
+
+    writer.flush();
+  }
+
+  private static List<PGNGame> parseAll(List<String> pgns) throws PGNParseException {
+    List<PGNGame> games = new ArrayList<>(pgns.size());
+
+    for (String pgn : pgns) {
+      games.add(PGNParser.parse(pgn));
+    }
+
+    return games;
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Perft of {@link PGNMoveGenerator} on the standard test positions. The node counts of every
+ * depth are checked against the published values before measuring, and the {@code nodes}
+ * counter reports the nodes per second.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PerftBenchmark {
+
+  private static final String[] FENS = {
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+      "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+      "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+      "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8"
+  };
+
+  /**
+   * The node counts of the positions of {@link #FENS} from depth 1.
+   */
+  private static final long[][] NODES = {
+      {20, 400, 8902, 197281, 4865609},
+      {48, 2039, 97862, 4085603},
+      {14, 191, 2812, 43238, 674624},
+      {6, 264, 9467, 422333},
+      {44, 1486, 62379, 2103487}
+  };
+
+  @Param({"0", "1", "2", "3", "4"})
+  private int position;
+
+  @Setup
+  public void setup() throws PGNParseException {
+    for (int depth = 1; depth <= NODES[position].length; depth++) {
+      long nodes = PGNMoveGenerator.perft(FENS[position], depth);
+
+      if (nodes != NODES[position][depth - 1]) {
+        throw new IllegalStateException("Perft " + depth + " of " + FENS[position] + ": "
+            + nodes + " instead of " + NODES[position][depth - 1]);
+      }
+    }
+  }
+
+  @Benchmark
+  public long perft(Nodes nodes) throws PGNParseException {
+    long count = PGNMoveGenerator.perft(FENS[position], NODES[position].length);
+    nodes.nodes += count;
+    return count;
+  }
+
+  /**
+   * Counter of the nodes visited, reported by JMH as a rate.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class Nodes {
+
+    public long nodes;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      nodes = 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,47 @@
+package com.github.deianvn.pgnparse.examples;
+
+import com.github.deianvn.pgnparse.PGNGame;
+import com.github.deianvn.pgnparse.PGNParseException;
+import com.github.deianvn.pgnparse.PGNParser;
+
+/**
+ * Measures the throughput of {@link PGNParser#parse(String)} on in-memory games, where the
+ * time is dominated by tokenizing and resolving the moves rather than by I/O.
+ */
+public class PGNMoveParseBenchmark {
+
+  private static final int WARMUP_ROUNDS = 20_000;
+
+  private static final int ROUNDS = 100_000;
+
+  public static void main(String[] args) throws PGNParseException {
+    int rounds = args.length > 0 ? Integer.parseInt(args[0]) : ROUNDS;
+
+    run(WARMUP_ROUNDS);
+
+    long startTime = System.nanoTime();
+    long moves = run(rounds);
+    long duration = System.nanoTime() - startTime;
+    int games = rounds * SampleGames.GAMES.length;
+
+    System.out.println("Games parsed: " + games);
+    System.out.println("Moves parsed: " + moves);
+    System.out.println("Duration: " + duration / 1_000_000 + " ms");
+    System.out.println("Games/s: " + (long) (games / (duration / 1e9)));
+    System.out.println("Moves/s: " + (long) (moves / (duration / 1e9)));
+  }
+
+  private static long run(int rounds) throws PGNParseException {
+    long moves = 0;
+
+    for (int i = 0; i < rounds; i++) {
+      for (String pgn : SampleGames.GAMES) {
+        PGNGame game = PGNParser.parse(pgn);
+        moves += game.getMovesCount();
+      }
+    }
+
+    return moves;
+  }
+
+}
@@ -2,13 +2,14 @@ package com.github.deianvn.pgnparse.examples;
 
 import java.io.File;
 import java.io.IOException;
-import com.github.deianvn.pgnparse.PGNParseException;
-import com.github.deianvn.pgnparse.PGNSource;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import com.github.deianvn.pgnparse.PGNBatchIngester;
+import com.github.deianvn.pgnparse.PGNIngestSummary;
 
 public class PGNParseBenchmark {
 
-  public static void main(String[] args)
-      throws IOException, PGNParseException {
+  public static void main(String[] args) throws IOException {
     if (args.length == 0) {
       System.out.println("Usage:");
       System.out.println("\tpgn_directory_path");
@@ -22,26 +23,22 @@ public class PGNParseBenchmark {
       return;
     }
 
-    String[] pgnFileNames = file.list((dir, name) -> name.endsWith(".pgn"));
-
-    if (pgnFileNames == null) {
-      System.out.println("Error reading files");
-    }
-
     long startTime = System.currentTimeMillis();
-    int filesParsed = 0;
-    int gamesParsed = 0;
-
-    for (String pgnFileName : pgnFileNames) {
-      File pgnFile = new File(file.getAbsolutePath() + File.separator + pgnFileName);
-      PGNSource source = new PGNSource(pgnFile);
-      gamesParsed += source.listGames().size();
-      filesParsed++;
+    ExecutorService executor = Executors.newFixedThreadPool(
+        Runtime.getRuntime().availableProcessors() * 2);
+    PGNIngestSummary summary;
+
+    try {
+      summary = new PGNBatchIngester(executor).ingest(file.toPath(), "*.pgn", (path, game) -> {
+      });
+    } finally {
+      executor.shutdown();
     }
 
     long duration = System.currentTimeMillis() - startTime;
-    System.out.println("Files parsed: " + filesParsed);
-    System.out.println("Games parsed: " + gamesParsed);
+    System.out.println("Files parsed: " + summary.getFilesCount());
+    System.out.println("Games parsed: " + summary.getGamesCount());
+    System.out.println("Errors: " + summary.getErrorsCount());
     System.out.println("Duration: " + duration);
 
   }
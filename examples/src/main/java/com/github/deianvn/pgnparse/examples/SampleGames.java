@@ -0,0 +1,57 @@
+package com.github.deianvn.pgnparse.examples;
+
+/**
+ * Well known games used as input for the benchmarks.
+ */
+final class SampleGames {
+
+  static final String OPERA_GAME = ""
+      + "[Event \"Paris\"]\n"
+      + "[Site \"Paris FRA\"]\n"
+      + "[Date \"1858.??.??\"]\n"
+      + "[White \"Paul Morphy\"]\n"
+      + "[Black \"Duke Karl / Count Isouard\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1. e4 e5 2. Nf3 d6 3. d4 Bg4 4. dxe5 Bxf3 5. Qxf3 dxe5 6. Bc4 Nf6 7. Qb3 Qe7\n"
+      + "8. Nc3 c6 9. Bg5 b5 10. Nxb5 cxb5 11. Bxb5+ Nbd7 12. O-O-O Rd8 13. Rxd7 Rxd7\n"
+      + "14. Rd1 Qe6 15. Bxd7+ Nxd7 16. Qb8+ Nxb8 17. Rd8# 1-0\n";
+
+  static final String IMMORTAL_GAME = ""
+      + "[Event \"London\"]\n"
+      + "[Date \"1851.06.21\"]\n"
+      + "[White \"Adolf Anderssen\"]\n"
+      + "[Black \"Lionel Kieseritzky\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1.e4 e5 2.f4 exf4 3.Bc4 Qh4+ 4.Kf1 b5 5.Bxb5 Nf6 6.Nf3 Qh6 7.d3 Nh5 8.Nh4 Qg5\n"
+      + "9.Nf5 c6 10.g4 Nf6 11.Rg1 cxb5 12.h4 Qg6 13.h5 Qg5 14.Qf3 Ng8 15.Bxf4 Qf6\n"
+      + "16.Nc3 Bc5 17.Nd5 Qxb2 18.Bd6 Bxg1 19.e5 Qxa1+ 20.Ke2 Na6 21.Nxg7+ Kd8\n"
+      + "22.Qf6+ Nxf6 23.Be7# 1-0\n";
+
+  static final String EVERGREEN_GAME = ""
+      + "[Event \"Berlin\"]\n"
+      + "[Date \"1852.??.??\"]\n"
+      + "[White \"Adolf Anderssen\"]\n"
+      + "[Black \"Jean Dufresne\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5 4.b4 Bxb4 5.c3 Ba5 6.d4 exd4 7.O-O d3 8.Qb3 Qf6\n"
+      + "9.e5 Qg6 10.Re1 Nge7 11.Ba3 b5 12.Qxb5 Rb8 13.Qa4 Bb6 14.Nbd2 Bb7 15.Ne4 Qf5\n"
+      + "16.Bxd3 Qh5 17.Nf6+ gxf6 18.exf6 Rg8 19.Rad1 Qxf3 20.Rxe7+ Nxe7 21.Qxd7+ Kxd7\n"
+      + "22.Bf5+ Ke8 23.Bd7+ Kf8 24.Bxe7# 1-0\n";
+
+  static final String ANNOTATED_GAME = ""
+      + "[Event \"Annotated\"]\n"
+      + "[Result \"*\"]\n"
+      + "\n"
+      + "1. e4 {King pawn} d5 (1... e5 2. Nf3 (2. f4 exf4) Nc6) 2. e5 f5 3. exf6 Nxf6\n"
+      + "4. d4 ; line comment\n"
+      + "Nc6 5. Nf3 Bg4 (5... e6 6. Bd3 (6. Be2) Be7) 6. Be2 e6 *\n";
+
+  static final String[] GAMES = {OPERA_GAME, IMMORTAL_GAME, EVERGREEN_GAME, ANNOTATED_GAME};
+
+  private SampleGames() {
+  }
+
+}
@@ -0,0 +1,366 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Compact board representation used by the parser. The board is held in eight bitboards, two
+ * for the colors and six for the piece types, with square {@code a1 = 0} through
+ * {@code h8 = 63}. Pieces are reported with the same signed codes as the parser uses, negative
+ * for white and positive for black, so that copying a position costs a few longs.
+ */
+final class BitboardPosition {
+
+  static final int PAWN = 1;
+
+  static final int KNIGHT = 2;
+
+  static final int BISHOP = 3;
+
+  static final int ROOK = 4;
+
+  static final int QUEEN = 5;
+
+  static final int KING = 6;
+
+  static final int WHITE = -1;
+
+  static final int BLACK = 1;
+
+  static final int NO_SQUARE = 64;
+
+  static final long[] KNIGHT_ATTACKS = new long[64];
+
+  static final long[] KING_ATTACKS = new long[64];
+
+  /**
+   * Squares attacked by a white pawn ({@code [0]}) and a black pawn ({@code [1]}).
+   */
+  static final long[][] PAWN_ATTACKS = new long[2][64];
+
+  private static final int[][] DIRECTIONS = {{0, 1}, {1, 1}, {1, 0}, {1, -1}, {0, -1},
+      {-1, -1}, {-1, 0}, {-1, 1}};
+
+  /**
+   * Rays from every square in the eight directions of {@link #DIRECTIONS}. The first three
+   * directions and the last one increase the square index.
+   */
+  private static final long[][] RAYS = new long[8][64];
+
+  /**
+   * Canonical square names, so that moves and positions share 64 strings instead of each
+   * holding its own copies.
+   */
+  private static final String[] SQUARE_NAMES = new String[64];
+
+  static {
+    int[][] knightMoves = {{-1, 2}, {1, 2}, {-1, -2}, {1, -2}, {-2, 1}, {-2, -1}, {2, -1},
+        {2, 1}};
+
+    for (int square = 0; square < 64; square++) {
+      int file = square & 7;
+      int rank = square >>> 3;
+      SQUARE_NAMES[square] = new String(new char[] {(char) ('a' + file), (char) ('1' + rank)});
+
+      for (int[] move : knightMoves) {
+        KNIGHT_ATTACKS[square] |= bit(file + move[0], rank + move[1]);
+      }
+
+      for (int d = 0; d < DIRECTIONS.length; d++) {
+        KING_ATTACKS[square] |= bit(file + DIRECTIONS[d][0], rank + DIRECTIONS[d][1]);
+
+        for (int f = file + DIRECTIONS[d][0], r = rank + DIRECTIONS[d][1];
+            f >= 0 && f < 8 && r >= 0 && r < 8; f += DIRECTIONS[d][0], r += DIRECTIONS[d][1]) {
+          RAYS[d][square] |= 1L << (r * 8 + f);
+        }
+      }
+
+      PAWN_ATTACKS[0][square] = bit(file - 1, rank + 1) | bit(file + 1, rank + 1);
+      PAWN_ATTACKS[1][square] = bit(file - 1, rank - 1) | bit(file + 1, rank - 1);
+    }
+  }
+
+  long white;
+
+  long black;
+
+  long pawns;
+
+  long knights;
+
+  long bishops;
+
+  long rooks;
+
+  long queens;
+
+  long kings;
+
+  private static long bit(int file, int rank) {
+    if (file < 0 || file > 7 || rank < 0 || rank > 7) {
+      return 0;
+    }
+
+    return 1L << (rank * 8 + file);
+  }
+
+  static int square(int file, int rank) {
+    return rank * 8 + file;
+  }
+
+  static int file(int square) {
+    return square & 7;
+  }
+
+  static int rank(int square) {
+    return square >>> 3;
+  }
+
+  /**
+   * @return the canonical name of a square, for example {@code "e4"}
+   */
+  static String name(int square) {
+    return SQUARE_NAMES[square];
+  }
+
+  /**
+   * @return the square of a name such as {@code "e4"}
+   */
+  static int square(String name) {
+    return square(name.charAt(0) - 'a', name.charAt(1) - '1');
+  }
+
+  static int colorIndex(int color) {
+    return color == WHITE ? 0 : 1;
+  }
+
+  BitboardPosition copy() {
+    BitboardPosition position = new BitboardPosition();
+    position.white = white;
+    position.black = black;
+    position.pawns = pawns;
+    position.knights = knights;
+    position.bishops = bishops;
+    position.rooks = rooks;
+    position.queens = queens;
+    position.kings = kings;
+
+    return position;
+  }
+
+  long occupied() {
+    return white | black;
+  }
+
+  long pieces(int color) {
+    return color == WHITE ? white : black;
+  }
+
+  long pieces(int type, int color) {
+    return piecesOfType(type) & pieces(color);
+  }
+
+  private long piecesOfType(int type) {
+    switch (type) {
+      case PAWN:
+        return pawns;
+      case KNIGHT:
+        return knights;
+      case BISHOP:
+        return bishops;
+      case ROOK:
+        return rooks;
+      case QUEEN:
+        return queens;
+      case KING:
+        return kings;
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * @return the signed piece code on the square, {@code 0} if the square is empty
+   */
+  int get(int square) {
+    long mask = 1L << square;
+
+    if (((white | black) & mask) == 0) {
+      return 0;
+    }
+
+    int type;
+
+    if ((pawns & mask) != 0) {
+      type = PAWN;
+    } else if ((knights & mask) != 0) {
+      type = KNIGHT;
+    } else if ((bishops & mask) != 0) {
+      type = BISHOP;
+    } else if ((rooks & mask) != 0) {
+      type = ROOK;
+    } else if ((queens & mask) != 0) {
+      type = QUEEN;
+    } else {
+      type = KING;
+    }
+
+    return (white & mask) != 0 ? type * WHITE : type * BLACK;
+  }
+
+  /**
+   * Put a piece on a square, replacing the piece that was there.
+   *
+   * @param square the square
+   * @param piece the signed piece code, {@code 0} to clear the square
+   */
+  void set(int square, int piece) {
+    long mask = 1L << square;
+    long clear = ~mask;
+    white &= clear;
+    black &= clear;
+    pawns &= clear;
+    knights &= clear;
+    bishops &= clear;
+    rooks &= clear;
+    queens &= clear;
+    kings &= clear;
+
+    if (piece == 0) {
+      return;
+    }
+
+    if (piece < 0) {
+      white |= mask;
+    } else {
+      black |= mask;
+    }
+
+    switch (Math.abs(piece)) {
+      case PAWN:
+        pawns |= mask;
+        break;
+      case KNIGHT:
+        knights |= mask;
+        break;
+      case BISHOP:
+        bishops |= mask;
+        break;
+      case ROOK:
+        rooks |= mask;
+        break;
+      case QUEEN:
+        queens |= mask;
+        break;
+      case KING:
+        kings |= mask;
+        break;
+    }
+  }
+
+  /**
+   * Find the king of a color. The king bitboard is maintained with every change of the board,
+   * so this is a single bit scan rather than a search of the board.
+   *
+   * @return the square of the king or {@link #NO_SQUARE} if there is no king
+   */
+  int getKingSquare(int color) {
+    return Long.numberOfTrailingZeros(kings & pieces(color));
+  }
+
+  static long rookAttacks(int square, long occupied) {
+    return rayAttacks(0, square, occupied) | rayAttacks(2, square, occupied)
+        | rayAttacks(4, square, occupied) | rayAttacks(6, square, occupied);
+  }
+
+  static long bishopAttacks(int square, long occupied) {
+    return rayAttacks(1, square, occupied) | rayAttacks(3, square, occupied)
+        | rayAttacks(5, square, occupied) | rayAttacks(7, square, occupied);
+  }
+
+  private static long rayAttacks(int direction, int square, long occupied) {
+    long ray = RAYS[direction][square];
+    long blockers = ray & occupied;
+
+    if (blockers == 0) {
+      return ray;
+    }
+
+    int blocker;
+
+    if (direction <= 2 || direction == 7) {
+      blocker = Long.numberOfTrailingZeros(blockers);
+    } else {
+      blocker = 63 - Long.numberOfLeadingZeros(blockers);
+    }
+
+    return ray ^ RAYS[direction][blocker];
+  }
+
+  /**
+   * Get the squares from which a piece of the given type and color could move to a square,
+   * ignoring whether the squares are occupied. Pawn pushes are not included.
+   */
+  long attacksTo(int type, int color, int square, long occupied) {
+    switch (type) {
+      case PAWN:
+        return PAWN_ATTACKS[colorIndex(-color)][square];
+      case KNIGHT:
+        return KNIGHT_ATTACKS[square];
+      case BISHOP:
+        return bishopAttacks(square, occupied);
+      case ROOK:
+        return rookAttacks(square, occupied);
+      case QUEEN:
+        return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+      case KING:
+        return KING_ATTACKS[square];
+      default:
+        return 0;
+    }
+  }
+
+  /**
+   * Get the pieces of a color attacking a square, with the given occupancy of the board.
+   */
+  long attackers(int square, int color, long occupied) {
+    return attackers(square, color, occupied, pieces(color) & occupied);
+  }
+
+  private long attackers(int square, int color, long occupied, long candidates) {
+    return ((PAWN_ATTACKS[colorIndex(-color)][square] & pawns)
+        | (KNIGHT_ATTACKS[square] & knights)
+        | (KING_ATTACKS[square] & kings)
+        | (bishopAttacks(square, occupied) & (bishops | queens))
+        | (rookAttacks(square, occupied) & (rooks | queens))) & candidates;
+  }
+
+  boolean isAttacked(int square, int color) {
+    return attackers(square, color, white | black) != 0;
+  }
+
+  /**
+   * Check whether moving a piece would leave the king of its color in check.
+   *
+   * @param from the square of the moving piece
+   * @param to the destination square
+   * @param captureSquare the square of the captured piece, differs from {@code to} for en
+   *     passant captures
+   * @param color the color of the moving piece
+   */
+  boolean isKingInCheckAfterMove(int from, int to, int captureSquare, int color) {
+    int king = getKingSquare(color);
+
+    if (king == NO_SQUARE) {
+      return false;
+    }
+
+    if (king == from) {
+      king = to;
+    }
+
+    long captured = 1L << captureSquare;
+    long occupied = ((white | black) & ~(1L << from) & ~captured) | (1L << to);
+    return attackers(king, -color, occupied, pieces(-color) & ~captured) != 0;
+  }
+
+}
@@ -0,0 +1,138 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Decompresses a stream on a background thread, so that decompression overlaps with the
+ * parsing of the text already read. The thread stays at most a few chunks ahead of the
+ * reader, which bounds the memory used whatever the size of the input.
+ */
+final class DecompressingInputStream extends InputStream {
+
+  private static final int CHUNK_SIZE = 1 << 16;
+
+  private static final int CHUNKS_AHEAD = 4;
+
+  private static final byte[] END = new byte[0];
+
+  private final InputStream compressed;
+
+  private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(CHUNKS_AHEAD);
+
+  private final Thread thread;
+
+  private volatile IOException error;
+
+  private volatile boolean closed;
+
+  private byte[] chunk;
+
+  private int position;
+
+  DecompressingInputStream(InputStream compressed, PGNDecompressor decompressor) {
+    this.compressed = compressed;
+    this.thread = new Thread(() -> decompress(decompressor), "pgn-decompress");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private void decompress(PGNDecompressor decompressor) {
+    try (InputStream in = decompressor.decompress(compressed)) {
+      int length;
+
+      do {
+        byte[] buffer = new byte[CHUNK_SIZE];
+        length = in.readNBytes(buffer, 0, CHUNK_SIZE);
+
+        if (length > 0) {
+          chunks.put(length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, length));
+        }
+      } while (length == CHUNK_SIZE && !closed);
+    } catch (IOException e) {
+      error = e;
+    } catch (InterruptedException e) {
+      error = new InterruptedIOException();
+    } catch (Throwable e) {
+      // Codecs may fail on corrupt input with unchecked exceptions, which must reach the
+      // reader like any other error rather than leave it waiting for the end of the stream
+      error = new IOException(e);
+    } finally {
+      if (!closed) {
+        try {
+          chunks.put(END);
+        } catch (InterruptedException e) {
+        }
+      }
+    }
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+
+    return chunk[position++] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    } else if (!fill()) {
+      return -1;
+    }
+
+    int length = Math.min(len, chunk.length - position);
+    System.arraycopy(chunk, position, b, off, length);
+    position += length;
+    return length;
+  }
+
+  /**
+   * @return {@code false} at the end of the decompressed stream
+   */
+  private boolean fill() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+
+    while (chunk == null || (chunk != END && position == chunk.length)) {
+      try {
+        chunk = chunks.take();
+        position = 0;
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+
+    if (chunk == END) {
+      if (error != null) {
+        throw error;
+      }
+
+      return false;
+    }
+
+    return true;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      thread.interrupt();
+      chunks.clear();
+      compressed.close();
+    }
+  }
+
+}
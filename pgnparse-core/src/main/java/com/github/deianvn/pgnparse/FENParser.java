@@ -7,6 +7,10 @@ package com.github.deianvn.pgnparse;
  */
 public class FENParser implements PGN {
 
+  private static final String PIECE_LETTERS = "PNBRQK";
+
+  private static final String[] PIECES = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+
   private FENParser() {
 
   }
@@ -51,6 +55,12 @@ public class FENParser implements PGN {
           continue;
         }
 
+        int type = PIECE_LETTERS.indexOf(Character.toUpperCase(ch));
+
+        if (type == -1 || pos > 7) {
+          throw new PGNParseException(fen);
+        }
+
         Piece piece = new Piece();
 
         if (ch >= 'a' && ch <= 'z') {
@@ -61,9 +71,8 @@ public class FENParser implements PGN {
           throw new PGNParseException(fen);
         }
 
-        piece.setType(String.valueOf(ch).toUpperCase());
-        String square = String.valueOf((char) ('a' + pos)) + String.valueOf(8 - i);
-        position.addPiece(square, piece);
+        piece.setType(PIECES[type]);
+        position.addPiece(BitboardPosition.name(BitboardPosition.square(pos, 7 - i)), piece);
       }
     }
 
@@ -105,7 +114,8 @@ public class FENParser implements PGN {
     if (enpassentToken.length() == 2) {
       if (enpassentToken.charAt(0) >= 'a' && enpassentToken.charAt(0) <= 'h' &&
           enpassentToken.charAt(1) >= '1' && enpassentToken.charAt(1) <= '8') {
-        position.setEnpassantSquare(enpassentToken);
+        position.setEnpassantSquare(
+            BitboardPosition.name(BitboardPosition.square(enpassentToken)));
       } else {
         throw new PGNParseException(fen);
       }
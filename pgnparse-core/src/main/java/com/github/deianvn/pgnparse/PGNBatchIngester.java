@@ -0,0 +1,180 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Reads and parses many PGN files at once. Every file is a task of the executor which streams
+ * its games from disk and parses them as they are read, so while some tasks wait for the disk
+ * others parse. An executor with more threads than processors, or a virtual thread per task
+ * executor where available, keeps the disk busy even when most files are waiting for I/O.
+ * Files ending with {@code .gz} are decompressed while they are read.
+ */
+public class PGNBatchIngester {
+
+  private final Executor executor;
+
+  private final PGNParseOptions options;
+
+  /**
+   * @param executor the {@link Executor} reading and parsing the files
+   */
+  public PGNBatchIngester(Executor executor) {
+    this(executor, null);
+  }
+
+  /**
+   * @param executor the {@link Executor} reading and parsing the files
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   */
+  public PGNBatchIngester(Executor executor, PGNParseOptions options) {
+    this.executor = executor;
+    this.options = options;
+  }
+
+  /**
+   * Find the files under a directory, including its subdirectories, which match a glob
+   * pattern. The pattern is matched against both the file name and the path relative to the
+   * directory, so {@code *.pgn} finds all PGN files and {@code 2020/*.pgn} only those of one
+   * subdirectory.
+   *
+   * @param directory the directory to search
+   * @param glob the glob pattern, see {@link java.nio.file.FileSystem#getPathMatcher(String)}
+   * @return the matching files in path order
+   * @throws IOException if the directory cannot be read
+   */
+  public static List<Path> findFiles(Path directory, String glob) throws IOException {
+    PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+
+    try (Stream<Path> paths = Files.walk(directory)) {
+      return paths
+          .filter(Files::isRegularFile)
+          .filter(path -> matcher.matches(path.getFileName())
+              || matcher.matches(directory.relativize(path)))
+          .sorted()
+          .collect(Collectors.toList());
+    }
+  }
+
+  /**
+   * Parse the files under a directory which match a glob pattern, see
+   * {@link #findFiles(Path, String)}, passing every game to a consumer.
+   *
+   * @param directory the directory to search
+   * @param glob the glob pattern
+   * @param consumer the consumer of the parse results
+   * @return the totals of the run
+   * @throws IOException if the directory cannot be read
+   */
+  public PGNIngestSummary ingest(Path directory, String glob,
+      BiConsumer<Path, PGNParseResult> consumer) throws IOException {
+    return ingest(findFiles(directory, glob), consumer);
+  }
+
+  /**
+   * Parse the given files, passing every game to a consumer. The consumer is called from the
+   * executor threads, concurrently for different files, so it must be thread-safe; the games
+   * of one file are passed in their file order. A game that cannot be parsed is passed as a
+   * failed result. A file that cannot be read is recorded in the summary, the games read from
+   * it before the error have already been passed.
+   *
+   * @param files the PGN files
+   * @param consumer the consumer of the parse results
+   * @return the totals of the run
+   */
+  public PGNIngestSummary ingest(List<Path> files, BiConsumer<Path, PGNParseResult> consumer) {
+    LongAdder gamesCount = new LongAdder();
+    LongAdder errorsCount = new LongAdder();
+    Map<Path, IOException> failedFiles = new ConcurrentHashMap<>();
+    List<CompletableFuture<Void>> tasks = new ArrayList<>(files.size());
+
+    for (Path file : files) {
+      tasks.add(CompletableFuture.runAsync(() -> {
+        try (Stream<String> pgns = PGNSource.open(file.toFile()).readGames()) {
+          Iterator<String> iterator = pgns.iterator();
+
+          for (int gameNumber = 0; iterator.hasNext(); gameNumber++) {
+            PGNParseResult result = PGNParser.parse(gameNumber, iterator.next(), options);
+
+            if (result == null) {
+              continue;
+            } else if (result.isSuccessful()) {
+              gamesCount.increment();
+            } else {
+              errorsCount.increment();
+            }
+
+            consumer.accept(file, result);
+          }
+        } catch (IOException e) {
+          failedFiles.put(file, e);
+        } catch (UncheckedIOException e) {
+          failedFiles.put(file, e.getCause());
+        }
+      }, executor));
+    }
+
+    try {
+      CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+
+    return new PGNIngestSummary(files.size(), gamesCount.sum(), errorsCount.sum(), failedFiles);
+  }
+
+  /**
+   * Parse the files under a directory which match a glob pattern and collect their games.
+   * Games that cannot be parsed are skipped, as {@link PGNSource#forceListGames()} does.
+   *
+   * @param directory the directory to search
+   * @param glob the glob pattern
+   * @return the games of every file, in file order
+   * @throws IOException if the directory or one of the files cannot be read
+   */
+  public Map<Path, List<PGNGame>> listGames(Path directory, String glob) throws IOException {
+    List<Path> files = findFiles(directory, glob);
+    Map<Path, List<PGNGame>> games = new ConcurrentHashMap<>();
+    PGNIngestSummary summary = ingest(files, (file, result) -> {
+      if (result.isSuccessful()) {
+        games.computeIfAbsent(file, key -> new ArrayList<>()).add(result.getGame());
+      }
+    });
+
+    if (!summary.getFailedFiles().isEmpty()) {
+      throw summary.getFailedFiles().values().iterator().next();
+    }
+
+    Map<Path, List<PGNGame>> orderedGames = new LinkedHashMap<>();
+
+    for (Path file : files) {
+      orderedGames.put(file, games.getOrDefault(file, new ArrayList<>()));
+    }
+
+    return orderedGames;
+  }
+
+}
@@ -0,0 +1,239 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Reads games written by {@link PGNBinaryWriter}. Moves are replayed from their squares, so
+ * no SAN is parsed; the SAN of each move is generated in its canonical form.
+ */
+public class PGNBinaryReader implements Closeable {
+
+  private final DataInputStream in;
+
+  private final PGNParseOptions options;
+
+  private final List<String> strings = new ArrayList<>();
+
+  /**
+   * Create a reader and read the stream header.
+   *
+   * @param inputStream the stream to read from
+   * @throws IOException if the stream does not start with a valid header
+   */
+  public PGNBinaryReader(InputStream inputStream) throws IOException {
+    this(inputStream, null);
+  }
+
+  /**
+   * Create a reader replaying the moves with the given options, for example with Zobrist
+   * hashing enabled. The tag filter and lazy movetext options are ignored.
+   *
+   * @param inputStream the stream to read from
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @throws IOException if the stream does not start with a valid header
+   */
+  public PGNBinaryReader(InputStream inputStream, PGNParseOptions options) throws IOException {
+    this.in = new DataInputStream(new BufferedInputStream(inputStream));
+    this.options = options;
+
+    if (in.readInt() != PGNBinaryWriter.MAGIC
+        || in.readUnsignedByte() != PGNBinaryWriter.VERSION) {
+      throw new IOException("Not a binary PGN stream");
+    }
+  }
+
+  /**
+   * Read the next game.
+   *
+   * @return the game or {@code null} at the end of the stream
+   * @throws IOException if the stream cannot be read or is corrupt
+   * @throws PGNParseException if a move of the game is not legal
+   */
+  public PGNGame read() throws IOException, PGNParseException {
+    int first = in.read();
+
+    if (first == -1) {
+      return null;
+    }
+
+    PGNGame game = new PGNGame();
+    int tagsCount = readVarint(first);
+
+    for (int i = 0; i < tagsCount; i++) {
+      game.addTag(readReference(), readReference());
+    }
+
+    readMoves(game, PGNParser.createGameState(game, options));
+    return game;
+  }
+
+  /**
+   * Read the moves of a game, replaying them on the state. The lines being read are kept on an
+   * explicit stack, so games with deeply nested variations are read without recursion.
+   */
+  private void readMoves(PGNGame game, PGNParserGameState state)
+      throws IOException, PGNParseException {
+    Deque<Line> parents = new ArrayDeque<>();
+    Line line = new Line(game, readVarint());
+
+    while (true) {
+      if (line.variation < line.variationsCount) {
+        PGNVariation variation = new PGNVariation();
+        line.move.addVariation(variation);
+        PGNParser.startVariation(state);
+        line.variation++;
+        parents.push(line);
+        line = new Line(variation, readVarint());
+        continue;
+      }
+
+      if (line.index == line.count) {
+        if (parents.isEmpty()) {
+          return;
+        }
+
+        PGNParser.endVariation(state);
+        line = parents.pop();
+        continue;
+      }
+
+      int run = readVarint();
+
+      if (run > line.count - line.index) {
+        throw new IOException("Corrupt binary PGN stream");
+      }
+
+      for (int i = 0; i < run; i++) {
+        readMove(line.container, state);
+      }
+
+      line.index += run;
+
+      if (line.index < line.count) {
+        PGNMove move = readMove(line.container, state);
+        int flags = in.readUnsignedByte();
+        line.index++;
+
+        if ((flags & PGNBinaryWriter.HAS_COMMENT) != 0) {
+          move.setComment(readString());
+        }
+
+        if ((flags & PGNBinaryWriter.HAS_END_GAME_MARK) != 0) {
+          move.setEndGameMarked(true);
+          move.setEndGameMark(readReference());
+        }
+
+        if ((flags & PGNBinaryWriter.HAS_VARIATIONS) != 0) {
+          line.move = move;
+          line.variationsCount = readVarint();
+          line.variation = 0;
+        }
+      }
+    }
+  }
+
+  private PGNMove readMove(PGNMoveContainer container, PGNParserGameState state)
+      throws IOException, PGNParseException {
+    int code = in.readUnsignedShort();
+    int from = code & 0x3F;
+    int to = code >>> 6 & 0x3F;
+    int promotion = 0;
+    int rank = BitboardPosition.rank(to);
+
+    if (Math.abs(state.board.get(from)) == BitboardPosition.PAWN && (rank == 0 || rank == 7)) {
+      promotion = BitboardPosition.KNIGHT + (code >>> 12 & 0x3);
+    }
+
+    return PGNParser.handleMove(from, to, promotion, (code & 1 << 14) != 0,
+        (code & 1 << 15) != 0, container, state);
+  }
+
+  private String readReference() throws IOException {
+    int id = readVarint();
+
+    if (id == 0) {
+      String value = readString();
+      strings.add(value);
+      return value;
+    }
+
+    if (id > strings.size()) {
+      throw new IOException("Corrupt binary PGN stream");
+    }
+
+    return strings.get(id - 1);
+  }
+
+  private String readString() throws IOException {
+    byte[] bytes = new byte[readVarint()];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int readVarint() throws IOException {
+    int first = in.read();
+
+    if (first == -1) {
+      throw new EOFException();
+    }
+
+    return readVarint(first);
+  }
+
+  private int readVarint(int first) throws IOException {
+    int value = first & 0x7F;
+
+    for (int shift = 7; (first & 0x80) != 0; shift += 7) {
+      if (shift > 28) {
+        throw new IOException("Corrupt binary PGN stream");
+      }
+
+      first = in.readUnsignedByte();
+      value |= (first & 0x7F) << shift;
+    }
+
+    return value;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * A line of moves being read, the main line or a variation.
+   */
+  private static final class Line {
+
+    private final PGNMoveContainer container;
+
+    private final int count;
+
+    private int index;
+
+    private PGNMove move;
+
+    private int variationsCount;
+
+    private int variation;
+
+    private Line(PGNMoveContainer container, int count) {
+      this.container = container;
+      this.count = count;
+    }
+
+  }
+
+}
@@ -0,0 +1,252 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Writes parsed games in a compact binary form which {@link PGNBinaryReader} loads without
+ * parsing SAN. A move takes two bytes: the origin and destination squares, the promotion
+ * piece and the check and checkmate marks. Castling is stored as the king move. Tag names
+ * and values are interned, so a repeated tag costs one or two bytes after its first use in
+ * the stream. Comments, results and variations are stored only for the moves that have
+ * them.
+ */
+public class PGNBinaryWriter implements Closeable, Flushable {
+
+  static final int MAGIC = 0x50474e42;
+
+  static final int VERSION = 1;
+
+  static final int HAS_COMMENT = 1;
+
+  static final int HAS_END_GAME_MARK = 2;
+
+  static final int HAS_VARIATIONS = 4;
+
+  static final String PROMOTIONS = "NBRQ";
+
+  private final DataOutputStream out;
+
+  private final Map<String, Integer> strings = new HashMap<>();
+
+  /**
+   * Create a writer and write the stream header.
+   *
+   * @param outputStream the stream to write to
+   * @throws IOException if the header cannot be written
+   */
+  public PGNBinaryWriter(OutputStream outputStream) throws IOException {
+    out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(MAGIC);
+    out.writeByte(VERSION);
+  }
+
+  /**
+   * Write a game. The moves of the game must have been produced by {@link PGNParser}, as the
+   * squares of every move are written.
+   *
+   * @param game the game
+   * @throws IOException if the game cannot be written
+   */
+  public void write(PGNGame game) throws IOException {
+    writeVarint(game.getTagsCount());
+
+    for (String key : game.getTagKeys()) {
+      writeReference(key);
+      writeReference(game.getTag(key));
+    }
+
+    writeMoves(game);
+  }
+
+  /**
+   * Write the moves of a game. The moves of a line are written in runs of moves without
+   * comments, results or variations, each followed by the move ending it. The variations of
+   * that move follow it, and the lines being written are kept on an explicit stack, so games
+   * with deeply nested variations are written without recursion.
+   */
+  private void writeMoves(PGNGame game) throws IOException {
+    Deque<Line> parents = new ArrayDeque<>();
+    Line line = startLine(game);
+
+    while (true) {
+      if (line.variations != null && line.variation < line.variations.size()) {
+        PGNVariation variation = line.variations.get(line.variation++);
+        parents.push(line);
+        line = startLine(variation);
+        continue;
+      }
+
+      line.variations = null;
+
+      if (line.index == line.moves.size()) {
+        if (parents.isEmpty()) {
+          return;
+        }
+
+        line = parents.pop();
+        continue;
+      }
+
+      List<PGNMove> moves = line.moves;
+      int count = moves.size();
+      int i = line.index;
+      int next = i;
+
+      while (next < count && getFlags(moves.get(next)) == 0) {
+        next++;
+      }
+
+      writeVarint(next - i);
+
+      for (; i < next; i++) {
+        out.writeShort(encodeMove(moves.get(i)));
+      }
+
+      if (i < count) {
+        PGNMove move = moves.get(i++);
+        int flags = getFlags(move);
+        out.writeShort(encodeMove(move));
+        out.writeByte(flags);
+
+        if ((flags & HAS_COMMENT) != 0) {
+          writeString(move.getComment());
+        }
+
+        if ((flags & HAS_END_GAME_MARK) != 0) {
+          writeReference(move.getEndGameMark());
+        }
+
+        if ((flags & HAS_VARIATIONS) != 0) {
+          line.variations = move.getVariations();
+          line.variation = 0;
+          writeVarint(line.variations.size());
+        }
+      }
+
+      line.index = i;
+    }
+  }
+
+  private Line startLine(PGNMoveContainer container) throws IOException {
+    writeVarint(container.getMovesCount());
+    return new Line(container.getMoves());
+  }
+
+  private static int getFlags(PGNMove move) {
+    int flags = 0;
+
+    if (move.getComment() != null && !move.getComment().isEmpty()) {
+      flags |= HAS_COMMENT;
+    }
+
+    if (move.isEndGameMarked()) {
+      flags |= HAS_END_GAME_MARK;
+    }
+
+    if (move.hasVariations()) {
+      flags |= HAS_VARIATIONS;
+    }
+
+    return flags;
+  }
+
+  static int encodeMove(PGNMove move) {
+    int from;
+    int to;
+
+    if (move.isCastle()) {
+      int rank = PGN.WHITE.equals(move.getColor()) ? 0 : 7;
+      from = BitboardPosition.square(4, rank);
+      to = BitboardPosition.square(move.isKingSideCastle() ? 6 : 2, rank);
+    } else {
+      from = BitboardPosition.square(move.getFromSquare());
+      to = BitboardPosition.square(move.getToSquare());
+    }
+
+    int code = from | to << 6;
+
+    if (move.isPromoted()) {
+      code |= PROMOTIONS.indexOf(move.getPromotion().charAt(0)) << 12;
+    }
+
+    if (move.isChecked()) {
+      code |= 1 << 14;
+    }
+
+    if (move.isCheckMated()) {
+      code |= 1 << 15;
+    }
+
+    return code;
+  }
+
+  private void writeReference(String value) throws IOException {
+    Integer id = strings.get(value);
+
+    if (id != null) {
+      writeVarint(id);
+    } else {
+      strings.put(value, strings.size() + 1);
+      writeVarint(0);
+      writeString(value);
+    }
+  }
+
+  private void writeString(String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    writeVarint(bytes.length);
+    out.write(bytes);
+  }
+
+  private void writeVarint(int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte(value & 0x7F | 0x80);
+      value >>>= 7;
+    }
+
+    out.writeByte(value);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  /**
+   * A line of moves being written, the main line or a variation.
+   */
+  private static final class Line {
+
+    private final List<PGNMove> moves;
+
+    private int index;
+
+    private List<PGNVariation> variations;
+
+    private int variation;
+
+    private Line(List<PGNMove> moves) {
+      this.moves = moves;
+    }
+
+  }
+
+}
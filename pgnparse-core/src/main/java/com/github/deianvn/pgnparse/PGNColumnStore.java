@@ -0,0 +1,380 @@
+package com.github.deianvn.pgnparse;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Column oriented in-memory store of the main lines and tags of a PGN corpus, for statistics
+ * over millions of games. Instead of a {@link PGNGame} with its own maps and lists per game,
+ * the store keeps a few large primitive arrays: the moves of all games in one column of two
+ * byte codes, the start of every game in that column, one column of dictionary codes per tag
+ * and the result of every game. Scans and aggregations therefore run over contiguous memory
+ * and the store puts almost no objects on the heap.
+ *
+ * <p>The move column can be kept off-heap in direct buffers. Moves are encoded as by the
+ * {@link PGNOpeningTree}, so variations, comments and move marks are not stored.
+ *
+ * <p>A store is not safe for concurrent use while games are being added.
+ */
+public class PGNColumnStore {
+
+  private static final int CHUNK_SHIFT = 20;
+
+  private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final int MOVE_CODES = 1 << 15;
+
+  private final boolean offHeap;
+
+  private final List<ShortBuffer> moveChunks = new ArrayList<>();
+
+  /**
+   * Start of every game in the move column, followed by the number of moves.
+   */
+  private long[] moveOffsets = new long[INITIAL_CAPACITY];
+
+  /**
+   * Result of every game, {@code -1} if the game has no result.
+   */
+  private byte[] results = new byte[INITIAL_CAPACITY];
+
+  private final Map<String, TagColumn> tags = new LinkedHashMap<>();
+
+  private int gamesCount;
+
+  private long movesCount;
+
+  /**
+   * Create an empty store holding its moves on the heap.
+   */
+  public PGNColumnStore() {
+    this(false);
+  }
+
+  /**
+   * Create an empty store.
+   *
+   * @param offHeap whether the move column is held in direct buffers outside of the heap
+   */
+  public PGNColumnStore(boolean offHeap) {
+    this.offHeap = offHeap;
+  }
+
+  /**
+   * Build a store from the games of a source. Games that cannot be parsed are skipped.
+   *
+   * @param source the PGN source
+   * @param offHeap whether the move column is held in direct buffers outside of the heap
+   * @return the filled store
+   */
+  public static PGNColumnStore build(PGNSource source, boolean offHeap) {
+    try (Stream<PGNGame> games = source.stream()) {
+      return build(games, offHeap);
+    }
+  }
+
+  /**
+   * Build a store from the games of a memory-mapped source. Games that cannot be parsed are
+   * skipped.
+   *
+   * @param source the memory-mapped PGN source
+   * @param offHeap whether the move column is held in direct buffers outside of the heap
+   * @return the filled store
+   */
+  public static PGNColumnStore build(PGNMappedSource source, boolean offHeap) {
+    try (Stream<PGNGame> games = source.stream()) {
+      return build(games, offHeap);
+    }
+  }
+
+  private static PGNColumnStore build(Stream<PGNGame> games, boolean offHeap) {
+    PGNColumnStore store = new PGNColumnStore(offHeap);
+    games.forEachOrdered(store::add);
+    return store;
+  }
+
+  /**
+   * Add the tags and main line of a game parsed by {@link PGNParser}.
+   *
+   * @param game the game
+   * @return the number of the game in the store
+   */
+  public int add(PGNGame game) {
+    if (gamesCount + 1 == moveOffsets.length) {
+      grow();
+    }
+
+    int gameNumber = gamesCount;
+
+    for (String name : game.getTagKeys()) {
+      TagColumn column = tags.get(name);
+
+      if (column == null) {
+        column = new TagColumn(moveOffsets.length);
+        tags.put(name, column);
+      }
+
+      column.codes[gameNumber] = column.getCode(game.getTag(name));
+    }
+
+    for (PGNMove move : game.getMoves()) {
+      int index = (int) (movesCount & CHUNK_MASK);
+
+      if (index == 0) {
+        moveChunks.add(allocateChunk());
+      }
+
+      moveChunks.get(moveChunks.size() - 1).put(index, (short) PGNOpeningTree.encodeMove(move));
+      movesCount++;
+    }
+
+    results[gameNumber] = (byte) PGNOpeningTree.getResult(game);
+    moveOffsets[++gamesCount] = movesCount;
+    return gameNumber;
+  }
+
+  private ShortBuffer allocateChunk() {
+    if (offHeap) {
+      return ByteBuffer.allocateDirect(CHUNK_SIZE * 2).order(ByteOrder.nativeOrder())
+          .asShortBuffer();
+    }
+
+    return ShortBuffer.allocate(CHUNK_SIZE);
+  }
+
+  private void grow() {
+    int capacity = moveOffsets.length * 2;
+    moveOffsets = Arrays.copyOf(moveOffsets, capacity);
+    results = Arrays.copyOf(results, capacity);
+
+    for (TagColumn column : tags.values()) {
+      column.codes = Arrays.copyOf(column.codes, capacity);
+    }
+  }
+
+  public int getGamesCount() {
+    return gamesCount;
+  }
+
+  /**
+   * @return the number of moves of all games
+   */
+  public long getMovesCount() {
+    return movesCount;
+  }
+
+  /**
+   * @param game the number of the game
+   * @return the number of moves in the main line of the game
+   */
+  public int getMovesCount(int game) {
+    checkGame(game);
+    return (int) (moveOffsets[game + 1] - moveOffsets[game]);
+  }
+
+  /**
+   * @param game the number of the game
+   * @param ply the index of the move in the main line, starting from {@code 0}
+   * @return the move in coordinate notation, for example {@code e2e4}
+   */
+  public String getMove(int game, int ply) {
+    if (ply < 0 || ply >= getMovesCount(game)) {
+      throw new IndexOutOfBoundsException("Ply " + ply + " of game " + game);
+    }
+
+    return PGNOpeningTree.toCoordinates(getMoveCode(moveOffsets[game] + ply));
+  }
+
+  /**
+   * @return the names of all tags found in the games, in the order of their first use
+   */
+  public Set<String> getTagNames() {
+    return Collections.unmodifiableSet(tags.keySet());
+  }
+
+  /**
+   * @param game the number of the game
+   * @param name the tag name
+   * @return the value of the tag in the game, {@code null} if the game has no such tag
+   */
+  public String getTag(int game, String name) {
+    checkGame(game);
+    TagColumn column = tags.get(name);
+
+    if (column == null || column.codes[game] == 0) {
+      return null;
+    }
+
+    return column.values.get(column.codes[game] - 1);
+  }
+
+  /**
+   * Count the results of the games grouped by the value of a tag, for example the results by
+   * {@code ECO}. Games without the tag or without a result are not counted.
+   *
+   * @param name the tag name
+   * @return the results of every tag value, the values with the most games first
+   */
+  public List<PGNResultStatistics> getResults(String name) {
+    TagColumn column = tags.get(name);
+
+    if (column == null) {
+      return Collections.emptyList();
+    }
+
+    int[] counts = new int[(column.values.size() + 1) * 3];
+
+    for (int game = 0; game < gamesCount; game++) {
+      if (results[game] != -1) {
+        counts[column.codes[game] * 3 + results[game]]++;
+      }
+    }
+
+    List<PGNResultStatistics> statistics = new ArrayList<>();
+
+    for (int code = 1; code <= column.values.size(); code++) {
+      int whiteWins = counts[code * 3 + PGNOpeningTree.WHITE_WIN];
+      int draws = counts[code * 3 + PGNOpeningTree.DRAW];
+      int blackWins = counts[code * 3 + PGNOpeningTree.BLACK_WIN];
+
+      if (whiteWins + draws + blackWins > 0) {
+        statistics.add(new PGNResultStatistics(column.values.get(code - 1), whiteWins, draws,
+            blackWins));
+      }
+    }
+
+    statistics.sort(Comparator.comparingInt(PGNResultStatistics::getGamesCount).reversed());
+    return statistics;
+  }
+
+  /**
+   * Count the moves played at a ply of all games, together with the results of the games.
+   * Games without a result are not counted.
+   *
+   * @param ply the index of the move in the main line, starting from {@code 0}
+   * @return the statistics of the moves, the most played moves first
+   * @throws IndexOutOfBoundsException if the ply is negative
+   */
+  public List<PGNMoveStatistics> getMoves(int ply) {
+    return getMoves(ply, null, null);
+  }
+
+  /**
+   * Count the moves played at a ply of the games with a given tag value, for example of the
+   * games with the {@code ECO} code {@code B90}. Games without a result are not counted.
+   *
+   * @param ply the index of the move in the main line, starting from {@code 0}
+   * @param name the tag name
+   * @param value the value the tag must have
+   * @return the statistics of the moves, the most played moves first
+   * @throws IndexOutOfBoundsException if the ply is negative
+   */
+  public List<PGNMoveStatistics> getMoves(int ply, String name, String value) {
+    if (ply < 0) {
+      throw new IndexOutOfBoundsException("Ply " + ply);
+    }
+
+    int code = 0;
+    int[] codes = null;
+
+    if (name != null) {
+      TagColumn column = tags.get(name);
+      code = column != null ? column.findCode(value) : 0;
+
+      if (code == 0) {
+        return Collections.emptyList();
+      }
+
+      codes = column.codes;
+    }
+
+    int[] counts = new int[MOVE_CODES * 3];
+
+    for (int game = 0; game < gamesCount; game++) {
+      long move = moveOffsets[game] + ply;
+
+      if (results[game] != -1 && move < moveOffsets[game + 1]
+          && (codes == null || codes[game] == code)) {
+        counts[getMoveCode(move) * 3 + results[game]]++;
+      }
+    }
+
+    List<PGNMoveStatistics> statistics = new ArrayList<>();
+
+    for (int move = 0; move < MOVE_CODES; move++) {
+      int whiteWins = counts[move * 3 + PGNOpeningTree.WHITE_WIN];
+      int draws = counts[move * 3 + PGNOpeningTree.DRAW];
+      int blackWins = counts[move * 3 + PGNOpeningTree.BLACK_WIN];
+
+      if (whiteWins + draws + blackWins > 0) {
+        statistics.add(new PGNMoveStatistics(move, whiteWins, draws, blackWins));
+      }
+    }
+
+    statistics.sort(Comparator.comparingInt(PGNMoveStatistics::getGamesCount).reversed());
+    return statistics;
+  }
+
+  private int getMoveCode(long move) {
+    return moveChunks.get((int) (move >>> CHUNK_SHIFT)).get((int) (move & CHUNK_MASK));
+  }
+
+  private void checkGame(int game) {
+    if (game < 0 || game >= gamesCount) {
+      throw new IndexOutOfBoundsException("Game " + game);
+    }
+  }
+
+  /**
+   * Dictionary encoded values of one tag. Code {@code 0} marks a game without the tag, value
+   * {@code i} has code {@code i + 1}.
+   */
+  private static final class TagColumn {
+
+    private final List<String> values = new ArrayList<>();
+
+    private final Map<String, Integer> dictionary = new HashMap<>();
+
+    private int[] codes;
+
+    TagColumn(int capacity) {
+      codes = new int[capacity];
+    }
+
+    int getCode(String value) {
+      Integer code = dictionary.get(value);
+
+      if (code == null) {
+        values.add(value);
+        code = values.size();
+        dictionary.put(value, code);
+      }
+
+      return code;
+    }
+
+    int findCode(String value) {
+      Integer code = dictionary.get(value);
+      return code != null ? code : 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Wraps a compressed stream into a stream of the decompressed PGN text, see
+ * {@link PGNSource#open(java.io.File, PGNDecompressor)}. Formats which the JDK does not
+ * support can be plugged in with the constructor of a decompressing stream, for example
+ * {@code BZip2CompressorInputStream::new} or {@code ZstdCompressorInputStream::new} of
+ * Apache Commons Compress.
+ */
+@FunctionalInterface
+public interface PGNDecompressor {
+
+  PGNDecompressor GZIP = compressed -> new GZIPInputStream(compressed, 1 << 16);
+
+  InputStream decompress(InputStream compressed) throws IOException;
+
+}
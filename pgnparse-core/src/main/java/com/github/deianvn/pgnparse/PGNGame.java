@@ -2,6 +2,7 @@ package com.github.deianvn.pgnparse;
 
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -11,14 +12,94 @@ public class PGNGame extends PGNMoveContainer {
 
   private FENPosition initialPosition;
 
+  private PositionSnapshot initialSnapshot;
+
+  private long initialZobristKey;
+
+  private String movetext;
+
+  private int movetextStart;
+
+  private int movetextLine;
+
+  private PGNParseOptions movetextOptions;
+
+  private volatile boolean movetextPending;
+
   PGNGame() {
   }
 
+  /**
+   * Keep the text of the game for parsing its movetext on first use.
+   */
+  void setMovetext(String pgnGame, int start, int line, PGNParseOptions options) {
+    movetext = pgnGame;
+    movetextStart = start;
+    movetextLine = line;
+    movetextOptions = options;
+    movetextPending = true;
+  }
+
+  private void parseMovetext() {
+    if (!movetextPending) {
+      return;
+    }
+
+    synchronized (this) {
+      if (!movetextPending) {
+        return;
+      }
+
+      try {
+        PGNParser.parseMovetext(this, movetext, movetextStart, movetextLine, movetextOptions);
+      } catch (PGNParseException | RuntimeException e) {
+        clearMoves();
+        throw new IllegalStateException("Error in movetext: " + e.getMessage(), e);
+      }
+
+      movetext = null;
+      movetextOptions = null;
+      movetextPending = false;
+    }
+  }
+
+  @Override
+  public PGNMove getMove(int index) {
+    parseMovetext();
+    return super.getMove(index);
+  }
+
+  @Override
+  public List<PGNMove> getMoves() {
+    parseMovetext();
+    return super.getMoves();
+  }
+
+  @Override
+  public Iterator<PGNMove> getMovesIterator() {
+    parseMovetext();
+    return super.getMovesIterator();
+  }
+
+  @Override
+  public int getMovesCount() {
+    parseMovetext();
+    return super.getMovesCount();
+  }
+
+  @Override
+  public int getMovePairsCount() {
+    parseMovetext();
+    return super.getMovePairsCount();
+  }
+
   public boolean isCustomInitialPositionUsed() {
+    parseMovetext();
     return initialPosition != null;
   }
 
   public FENPosition getInitialPosition() {
+    parseMovetext();
     return initialPosition;
   }
 
@@ -54,8 +135,50 @@ public class PGNGame extends PGNMoveContainer {
     return tags.size();
   }
 
+  /**
+   * Get the Zobrist key of the initial position, computed only when
+   * {@link PGNParseOptions#setZobristHashing(boolean)} is enabled.
+   *
+   * @return the 64-bit key of the initial position, {@code 0} if hashing was not enabled
+   */
+  public long getInitialZobristKey() {
+    parseMovetext();
+    return initialZobristKey;
+  }
+
+  public void setInitialZobristKey(long initialZobristKey) {
+    this.initialZobristKey = initialZobristKey;
+  }
+
+  PositionSnapshot getInitialSnapshot() {
+    parseMovetext();
+    return initialSnapshot;
+  }
+
+  void setInitialSnapshot(PositionSnapshot initialSnapshot) {
+    this.initialSnapshot = initialSnapshot;
+  }
+
+  /**
+   * Get the position after a move of this game or of one of its variations, in
+   * Forsyth-Edwards Notation. The positions after the moves are recorded while parsing when
+   * {@link PGNParseOptions#setPositionSnapshots(boolean)} is enabled, the initial position
+   * always, and the FEN string is built on each call.
+   *
+   * @param move a move of the game, {@code null} for the initial position
+   * @return the FEN string of the position
+   * @throws IllegalArgumentException if the move was not created by parsing a game with
+   *     position snapshots enabled
+   */
   public String getFEN(PGNMove move) {
-    throw new UnsupportedOperationException();
+    parseMovetext();
+    PositionSnapshot position = move != null ? move.getPosition() : initialSnapshot;
+
+    if (position == null) {
+      throw new IllegalArgumentException("The position of the move is not known");
+    }
+
+    return position.toFEN();
   }
 
 }
@@ -0,0 +1,138 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Visitor building the object model of a game as it is parsed: a {@link PGNMove} for every
+ * move, with its SAN fields and the position reached taken from the state of the
+ * parser, attached to the game or to the variation being parsed.
+ */
+class PGNGameBuilder implements PGNVisitor, PGN {
+
+  private final PGNGame game;
+
+  private final PGNParserGameState state;
+
+  /**
+   * Containers of the open variations, created with the first variation.
+   */
+  private Deque<PGNMoveContainer> parents;
+
+  private PGNMoveContainer container;
+
+  private boolean gameTerminated;
+
+  PGNGameBuilder(PGNGame game, PGNParserGameState state) {
+    this.game = game;
+    this.state = state;
+    this.container = game;
+  }
+
+  /**
+   * @return whether a result has been read in the main line
+   */
+  boolean isGameTerminated() {
+    return gameTerminated;
+  }
+
+  @Override
+  public void onTag(String name, String value) {
+    game.addTag(name, value);
+  }
+
+  @Override
+  public void onMove(int from, int to, int piece, int flags) {
+    PGNMove move = new PGNMove();
+    move.setFullMove(new String(state.san, 0, state.sanLength));
+    move.setMove(new String(state.strippedSan, 0, state.strippedSanLength));
+    move.setChecked((flags & CHECK) != 0);
+    move.setCheckMated((flags & CHECKMATE) != 0);
+
+    if ((flags & KING_SIDE_CASTLE) != 0) {
+      move.setKingSideCastle(true);
+    } else if ((flags & QUEEN_SIDE_CASTLE) != 0) {
+      move.setQueenSideCastle(true);
+    } else {
+      move.setPiece(PGNParser.PIECES[Math.abs(piece)]);
+      move.setCaptured((flags & CAPTURE) != 0);
+      int promotion = PGNVisitor.getPromotion(flags);
+
+      if (promotion != 0) {
+        move.setPromoted(true);
+        move.setPromotion(PGNParser.PIECES[promotion]);
+      }
+    }
+
+    container.addMove(move);
+    completeMove(move, from, to, piece, flags, state);
+  }
+
+  @Override
+  public void onComment(String comment) {
+    container.getLastMove().setComment(comment);
+  }
+
+  @Override
+  public void onVariationStart() {
+    PGNVariation variation = new PGNVariation();
+    container.getLastMove().addVariation(variation);
+
+    if (parents == null) {
+      parents = new ArrayDeque<>();
+    }
+
+    parents.push(container);
+    container = variation;
+  }
+
+  @Override
+  public void onVariationEnd() {
+    container = parents.pop();
+  }
+
+  @Override
+  public void onResult(String result) {
+    PGNMove lastMove = container.getLastMove();
+    lastMove.setEndGameMarked(true);
+    lastMove.setEndGameMark(result);
+    gameTerminated |= container == game;
+  }
+
+  /**
+   * Set the fields of a move which follow from playing it: its color, squares, captured piece
+   * and en passant details, and the position and position key after it.
+   */
+  static void completeMove(PGNMove move, int from, int to, int piece, int flags,
+      PGNParserGameState state) {
+    move.setColor(piece < 0 ? WHITE : BLACK);
+
+    if ((flags & (KING_SIDE_CASTLE | QUEEN_SIDE_CASTLE)) == 0) {
+      move.setFromSquare(BitboardPosition.name(from));
+      move.setToSquare(BitboardPosition.name(to));
+    }
+
+    int capturedPiece = PGNVisitor.getCapturedPiece(flags);
+
+    if (capturedPiece != 0) {
+      move.setCapturedPiece(PGNParser.PIECES[capturedPiece]);
+    }
+
+    if ((flags & EN_PASSANT) != 0) {
+      move.setEnpassantCapture(true);
+      move.setEnpassantPieceSquare(
+          BitboardPosition.name(PGNParser.getEnpassantPieceSquare(from, to)));
+    }
+
+    if (state.hashing) {
+      move.setZobristKey(state.zobristKey);
+    }
+
+    if (state.snapshots) {
+      move.setPosition(new PositionSnapshot(state));
+    }
+  }
+
+}
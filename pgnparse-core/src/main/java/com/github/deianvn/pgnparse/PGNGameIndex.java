@@ -0,0 +1,160 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Byte offsets and lengths of the games of a PGN file. The index can be saved to a sidecar
+ * file, so that a {@link PGNMappedSource} can access any game without rescanning the file.
+ */
+public class PGNGameIndex {
+
+  private static final int MAGIC = 0x50474e49;
+
+  private static final int VERSION = 1;
+
+  private static final String SIDECAR_EXTENSION = ".idx";
+
+  private static final int HEADER_SIZE = 28;
+
+  private static final int ENTRY_SIZE = 12;
+
+  private final long fileSize;
+
+  private final long fileModified;
+
+  private long[] offsets;
+
+  private int[] lengths;
+
+  private int count;
+
+  PGNGameIndex(long fileSize, long fileModified, int capacity) {
+    this.fileSize = fileSize;
+    this.fileModified = fileModified;
+    this.offsets = new long[Math.max(16, capacity)];
+    this.lengths = new int[offsets.length];
+  }
+
+  void add(long offset, int length) {
+    if (count == offsets.length) {
+      offsets = Arrays.copyOf(offsets, count * 2);
+      lengths = Arrays.copyOf(lengths, count * 2);
+    }
+
+    offsets[count] = offset;
+    lengths[count] = length;
+    count++;
+  }
+
+  /**
+   * Get the default sidecar index file of a PGN file, which is the PGN file name followed by
+   * {@code .idx}.
+   *
+   * @param pgnFile the PGN file
+   * @return the index file
+   */
+  public static File getSidecarFile(File pgnFile) {
+    return new File(pgnFile.getPath() + SIDECAR_EXTENSION);
+  }
+
+  /**
+   * Load an index saved by {@link #save(File)}.
+   *
+   * @param file the index file
+   * @return the loaded index
+   * @throws IOException if the file cannot be read, is not an index file or is truncated
+   */
+  public static PGNGameIndex load(File file) throws IOException {
+    long length = file.length();
+
+    try (DataInputStream in = new DataInputStream(
+        new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+        throw new IOException("Not a PGN index file: " + file);
+      }
+
+      long fileSize = in.readLong();
+      long fileModified = in.readLong();
+      int count = in.readInt();
+
+      if (count < 0 || length != HEADER_SIZE + (long) count * ENTRY_SIZE) {
+        throw new IOException("Truncated PGN index file: " + file);
+      }
+
+      PGNGameIndex index = new PGNGameIndex(fileSize, fileModified, count);
+
+      for (int i = 0; i < count; i++) {
+        index.add(in.readLong(), in.readInt());
+      }
+
+      return index;
+    }
+  }
+
+  /**
+   * Save the index to a file.
+   *
+   * @param file the index file
+   * @throws IOException if the file cannot be written
+   */
+  public void save(File file) throws IOException {
+    try (DataOutputStream out = new DataOutputStream(
+        new BufferedOutputStream(new FileOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeLong(fileSize);
+      out.writeLong(fileModified);
+      out.writeInt(count);
+
+      for (int i = 0; i < count; i++) {
+        out.writeLong(offsets[i]);
+        out.writeInt(lengths[i]);
+      }
+    }
+  }
+
+  /**
+   * Check whether the index was built for the current contents of a PGN file.
+   *
+   * @param pgnFile the PGN file
+   * @return {@code true} if the file size and modification time match the indexed file
+   */
+  public boolean matches(File pgnFile) {
+    return matches(pgnFile.length(), pgnFile.lastModified());
+  }
+
+  boolean matches(long fileSize, long fileModified) {
+    return this.fileSize == fileSize && this.fileModified == fileModified;
+  }
+
+  public int getGamesCount() {
+    return count;
+  }
+
+  public long getOffset(int game) {
+    checkIndex(game);
+    return offsets[game];
+  }
+
+  public int getLength(int game) {
+    checkIndex(game);
+    return lengths[game];
+  }
+
+  private void checkIndex(int game) {
+    if (game < 0 || game >= count) {
+      throw new IndexOutOfBoundsException("Game " + game + " of " + count);
+    }
+  }
+
+}
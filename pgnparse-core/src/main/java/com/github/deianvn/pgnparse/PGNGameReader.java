@@ -0,0 +1,94 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Reads PGN text from a reader one game at a time, using the same game boundaries as
+ * {@link PGNParser#split(String)}. Only the text of the game being read is kept in memory.
+ */
+class PGNGameReader implements Iterator<String>, Closeable {
+
+  private final BufferedReader reader;
+
+  private final StringBuilder buffer = new StringBuilder();
+
+  private String next;
+
+  private boolean closed;
+
+  PGNGameReader(BufferedReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Read the next game from the underlying reader.
+   *
+   * @return the PGN text of the next game or {@code null} if there are no more games
+   * @throws IOException if reading from the underlying reader fails
+   */
+  String readGame() throws IOException {
+    if (closed) {
+      return null;
+    }
+
+    String line;
+
+    while ((line = reader.readLine()) != null) {
+      line = line.trim();
+
+      if (!line.isEmpty()) {
+        buffer.append(line).append("\n");
+
+        if (PGNParser.isGameTerminated(line)) {
+          String pgn = buffer.toString();
+          buffer.setLength(0);
+          return pgn;
+        }
+      }
+    }
+
+    close();
+    return null;
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null) {
+      try {
+        next = readGame();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return next != null;
+  }
+
+  @Override
+  public String next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+
+    String pgn = next;
+    next = null;
+    return pgn;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!closed) {
+      closed = true;
+      buffer.setLength(0);
+      reader.close();
+    }
+  }
+
+}
@@ -0,0 +1,142 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Parser for the text of one game which arrives in pieces, for example from a live broadcast.
+ * The parser keeps the position reached so far, so every piece of text is parsed only once
+ * however long the game grows. A token cut at the end of a piece, such as {@code Nf} followed
+ * later by {@code 3}, is held back until the text following it has arrived.
+ *
+ * <p>A parser is not safe for concurrent use. After a {@link PGNParseException} the parser
+ * cannot continue.
+ */
+public class PGNIncrementalParser {
+
+  private final StringBuilder text = new StringBuilder();
+
+  private final PGNTokenizer tokenizer = new PGNTokenizer(text, 0, 0);
+
+  private final PGNParseOptions options;
+
+  private final PGNGame game = new PGNGame();
+
+  private PGNParserGameState state;
+
+  /**
+   * Builder of the moves, created with the state once the first token of the movetext has
+   * been read.
+   */
+  private PGNGameBuilder builder;
+
+  private boolean failed;
+
+  public PGNIncrementalParser() {
+    this(null);
+  }
+
+  /**
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults; the tag filter
+   *     and lazy movetext options are ignored
+   */
+  public PGNIncrementalParser(PGNParseOptions options) {
+    this.options = options;
+    tokenizer.setPartial(true);
+  }
+
+  /**
+   * @return the game parsed so far
+   */
+  public PGNGame getGame() {
+    return game;
+  }
+
+  /**
+   * @return whether the result of the game has been read
+   */
+  public boolean isGameTerminated() {
+    return builder != null && builder.isGameTerminated();
+  }
+
+  /**
+   * Parse the next piece of the text of the game.
+   *
+   * @param chunk the text following the text appended so far
+   * @return the moves added to the main line of the game by the complete tokens of the text
+   * @throws PGNParseException if the text cannot be parsed
+   * @throws IllegalStateException if the parser has failed before
+   */
+  public List<PGNMove> append(CharSequence chunk) throws PGNParseException {
+    text.append(chunk);
+    tokenizer.setEnd(text.length());
+    return parse();
+  }
+
+  /**
+   * Signal the end of the text. A token at the very end of the text, which {@link #append}
+   * holds back as it may continue, is parsed now.
+   *
+   * @return the moves added to the main line of the game by the last token
+   * @throws PGNParseException if the last token cannot be parsed or a variation or comment is
+   *     not closed
+   * @throws IllegalStateException if the parser has failed before
+   */
+  public List<PGNMove> finish() throws PGNParseException {
+    tokenizer.setPartial(false);
+    List<PGNMove> moves = parse();
+
+    if (state != null && state.isInVariation()) {
+      failed = true;
+      throw new PGNParseException("Error near character (");
+    }
+
+    return moves;
+  }
+
+  private List<PGNMove> parse() throws PGNParseException {
+    if (failed) {
+      throw new IllegalStateException("The parser has failed on earlier text");
+    }
+
+    int movesCount = game.getMovesCount();
+    failed = true;
+    int token = tokenizer.next();
+
+    if (builder == null) {
+      while (token == PGNTokenizer.TAG) {
+        PGNParser.processTagToken(tokenizer, game);
+        token = tokenizer.next();
+      }
+
+      if (token != PGNTokenizer.END && token != PGNTokenizer.INCOMPLETE) {
+        state = PGNParser.createGameState(game, options);
+        builder = new PGNGameBuilder(game, state);
+      }
+    }
+
+    if (builder != null) {
+      PGNParser.visitMovetext(tokenizer, token, state, builder);
+    }
+
+    failed = false;
+    compact();
+    return new ArrayList<>(game.getMoves().subList(movesCount, game.getMovesCount()));
+  }
+
+  /**
+   * Remove the parsed text, once it is at least as long as the text held back, so that the
+   * text kept stays short however long the game grows.
+   */
+  private void compact() {
+    int parsed = tokenizer.getPosition();
+
+    if (parsed > 0 && parsed >= text.length() - parsed) {
+      text.delete(0, parsed);
+      tokenizer.removePrefix(parsed);
+    }
+  }
+
+}
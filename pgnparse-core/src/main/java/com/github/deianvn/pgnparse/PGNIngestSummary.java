@@ -0,0 +1,65 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Totals of a {@link PGNBatchIngester} run.
+ */
+public class PGNIngestSummary {
+
+  private final int filesCount;
+
+  private final long gamesCount;
+
+  private final long errorsCount;
+
+  private final Map<Path, IOException> failedFiles;
+
+  PGNIngestSummary(int filesCount, long gamesCount, long errorsCount,
+      Map<Path, IOException> failedFiles) {
+    this.filesCount = filesCount;
+    this.gamesCount = gamesCount;
+    this.errorsCount = errorsCount;
+    this.failedFiles = Collections.unmodifiableMap(failedFiles);
+  }
+
+  /**
+   * @return the number of files read, including the failed ones
+   */
+  public int getFilesCount() {
+    return filesCount;
+  }
+
+  /**
+   * @return the number of games parsed without error
+   */
+  public long getGamesCount() {
+    return gamesCount;
+  }
+
+  /**
+   * @return the number of games that could not be parsed
+   */
+  public long getErrorsCount() {
+    return errorsCount;
+  }
+
+  /**
+   * @return the files which could not be read to their end, with the read error
+   */
+  public Map<Path, IOException> getFailedFiles() {
+    return failedFiles;
+  }
+
+  @Override
+  public String toString() {
+    return "Files: " + filesCount + ", games: " + gamesCount + ", errors: " + errorsCount
+        + ", failed files: " + failedFiles.size();
+  }
+
+}
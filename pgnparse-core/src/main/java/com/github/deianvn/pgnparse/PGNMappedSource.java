@@ -0,0 +1,454 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * @author Deyan Rizov
+ *
+ * PGN source backed by a memory-mapped file. Game boundaries are found directly in the mapped
+ * bytes, using the same rules as {@link PGNParser#split(String)}, and the text of a game is
+ * decoded only when the game is parsed.
+ */
+public class PGNMappedSource {
+
+  private static final int SEGMENT_SHIFT = 30;
+
+  private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+  private static final int SEGMENT_MASK = (int) (SEGMENT_SIZE - 1);
+
+  private static final byte[][] GAME_TERMINATORS = {
+      "1-0".getBytes(StandardCharsets.US_ASCII),
+      "0-1".getBytes(StandardCharsets.US_ASCII),
+      "1/2-1/2".getBytes(StandardCharsets.US_ASCII),
+      "*".getBytes(StandardCharsets.US_ASCII)
+  };
+
+  private final MappedByteBuffer[] segments;
+
+  private final long size;
+
+  /**
+   * The modification time of the file when it was mapped, which the game index is built for.
+   */
+  private final long modified;
+
+  private final Charset charset;
+
+  private PGNGameIndex index;
+
+  /**
+   * Map the given file, decoding game text as ISO-8859-1.
+   *
+   * @param file the PGN file
+   * @throws IOException if the file cannot be mapped
+   */
+  public PGNMappedSource(File file) throws IOException {
+    this(file, StandardCharsets.ISO_8859_1);
+  }
+
+  /**
+   * Map the given file, decoding game text with the given charset. The charset must be ASCII
+   * compatible, as game boundaries are found in the raw bytes.
+   *
+   * @param file the PGN file
+   * @param charset the {@link Charset} of the file
+   * @throws IOException if the file cannot be mapped
+   */
+  public PGNMappedSource(File file, Charset charset) throws IOException {
+    Objects.requireNonNull(charset);
+    this.charset = charset;
+    // Read before the size, so that a change while the file is mapped makes the index stale
+    modified = file.lastModified();
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      size = channel.size();
+      segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+
+      for (int i = 0; i < segments.length; i++) {
+        long position = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+            Math.min(SEGMENT_SIZE, size - position));
+      }
+    }
+  }
+
+  public long size() {
+    return size;
+  }
+
+  public List<PGNGame> listGames() throws PGNParseException {
+    ArrayList<PGNGame> games = new ArrayList<>();
+    GameScanner scanner = new GameScanner(0);
+
+    while (scanner.next()) {
+      games.add(PGNParser.parse(scanner.decode()));
+    }
+
+    return games;
+  }
+
+  public List<PGNGame> forceListGames() {
+    ArrayList<PGNGame> games = new ArrayList<>();
+    GameScanner scanner = new GameScanner(0);
+
+    while (scanner.next()) {
+      try {
+        games.add(PGNParser.parse(scanner.decode()));
+      } catch (PGNParseException e) {
+      }
+    }
+
+    return games;
+  }
+
+  /**
+   * Lazily parse the games of the file one at a time. As with {@link #forceListGames()}, games
+   * that cannot be parsed are skipped.
+   *
+   * @return a sequential {@link Stream} of the parsed games
+   */
+  public Stream<PGNGame> stream() {
+    return stream(null);
+  }
+
+  /**
+   * Lazily parse the games of the file one at a time with the given options, as
+   * {@link #stream()} does. When the options have a tag filter, only the bytes of the tag
+   * section of each game are decoded until the filter accepts the game, and the movetext of
+   * rejected games is never decoded.
+   *
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @return a sequential {@link Stream} of the parsed games
+   */
+  public Stream<PGNGame> stream(PGNParseOptions options) {
+    Predicate<PGNGame> tagFilter = options != null ? options.getTagFilter() : null;
+
+    if (tagFilter == null) {
+      return scan(scanner -> forceParse(scanner.decode(), options));
+    }
+
+    PGNParseOptions acceptedOptions = options.withoutTagFilter();
+
+    return scan(scanner -> {
+      PGNGame tags = forceParseTags(scanner.decodeHeader());
+
+      if (tags == null || !tagFilter.test(tags)) {
+        return null;
+      }
+
+      return forceParse(scanner.decode(), acceptedOptions);
+    });
+  }
+
+  /**
+   * Lazily read the tags of the games of the file. Only the tag section of each game is
+   * decoded; the movetext is skipped in the raw bytes. Games with malformed tags are skipped.
+   *
+   * @return a sequential {@link Stream} of games holding only their tags
+   */
+  public Stream<PGNGame> streamTags() {
+    return scan(scanner -> forceParseTags(scanner.decodeHeader()));
+  }
+
+  private Stream<PGNGame> scan(Function<GameScanner, PGNGame> parser) {
+    GameScanner scanner = new GameScanner(0);
+    Iterator<GameScanner> games = new Iterator<GameScanner>() {
+
+      private boolean pending;
+
+      @Override
+      public boolean hasNext() {
+        if (!pending) {
+          pending = scanner.next();
+        }
+
+        return pending;
+      }
+
+      @Override
+      public GameScanner next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+
+        pending = false;
+        return scanner;
+      }
+    };
+
+    return StreamSupport.stream(Spliterators.spliteratorUnknownSize(games,
+        Spliterator.ORDERED | Spliterator.NONNULL), false)
+        .map(parser)
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Get the game index of the file, scanning the whole file if no index has been built or
+   * loaded yet.
+   *
+   * @return the {@link PGNGameIndex} of the file
+   */
+  public PGNGameIndex getIndex() {
+    if (index == null) {
+      PGNGameIndex newIndex = new PGNGameIndex(size, modified, 0);
+      GameScanner scanner = new GameScanner(0);
+
+      while (scanner.next()) {
+        newIndex.add(scanner.gameStart, getLength(scanner.gameStart, scanner.gameEnd));
+      }
+
+      index = newIndex;
+    }
+
+    return index;
+  }
+
+  /**
+   * Load the game index from a sidecar file, or build the index and save it to the sidecar
+   * file if it does not exist, is out of date or cannot be read. The index is checked against
+   * the size and modification time of the file when it was mapped.
+   *
+   * @param indexFile the sidecar index file
+   * @return the {@link PGNGameIndex} of the file
+   * @throws IOException if the index file cannot be written
+   */
+  public PGNGameIndex loadIndex(File indexFile) throws IOException {
+    if (indexFile.exists()) {
+      try {
+        PGNGameIndex loadedIndex = PGNGameIndex.load(indexFile);
+
+        if (loadedIndex.matches(size, modified)) {
+          index = loadedIndex;
+          return index;
+        }
+      } catch (IOException e) {
+        // A corrupt, truncated or old index is rebuilt like an out of date one
+      }
+    }
+
+    index = null;
+    getIndex().save(indexFile);
+    return index;
+  }
+
+  public int getGamesCount() {
+    return getIndex().getGamesCount();
+  }
+
+  /**
+   * Parse a single game, reading only its bytes from the file.
+   *
+   * @param game the zero based number of the game in the file
+   * @return the parsed game
+   * @throws PGNParseException if the game cannot be parsed
+   */
+  public PGNGame getGame(int game) throws PGNParseException {
+    PGNGameIndex gameIndex = getIndex();
+    return PGNParser.parse(decode(gameIndex.getOffset(game), gameIndex.getLength(game)));
+  }
+
+  /**
+   * Parse a range of games, reading only their bytes from the file.
+   *
+   * @param from the number of the first game, inclusive
+   * @param to the number of the last game, exclusive
+   * @return the parsed games
+   * @throws PGNParseException if one of the games cannot be parsed
+   */
+  public List<PGNGame> listGames(int from, int to) throws PGNParseException {
+    PGNGameIndex gameIndex = getIndex();
+
+    if (from < 0 || to > gameIndex.getGamesCount() || from > to) {
+      throw new IndexOutOfBoundsException(
+          "Games " + from + " to " + to + " of " + gameIndex.getGamesCount());
+    }
+
+    ArrayList<PGNGame> games = new ArrayList<>(to - from);
+
+    for (int i = from; i < to; i++) {
+      games.add(PGNParser.parse(decode(gameIndex.getOffset(i), gameIndex.getLength(i))));
+    }
+
+    return games;
+  }
+
+  private static PGNGame forceParse(String pgn, PGNParseOptions options) {
+    try {
+      return PGNParser.parse(pgn, options);
+    } catch (PGNParseException e) {
+      return null;
+    }
+  }
+
+  private static PGNGame forceParseTags(String pgn) {
+    try {
+      return PGNParser.parseTags(pgn);
+    } catch (PGNParseException e) {
+      return null;
+    }
+  }
+
+  String decode(long offset, int length) {
+    byte[] bytes = new byte[length];
+    int copied = 0;
+
+    while (copied < length) {
+      long position = offset + copied;
+      MappedByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+      int segmentOffset = (int) position & SEGMENT_MASK;
+      int chunk = Math.min(length - copied, segment.limit() - segmentOffset);
+      ByteBuffer buffer = segment.duplicate();
+      buffer.position(segmentOffset);
+      buffer.get(bytes, copied, chunk);
+      copied += chunk;
+    }
+
+    return new String(bytes, charset);
+  }
+
+  /**
+   * @return the length of the bytes between two offsets, which are decoded into one string
+   * @throws IllegalStateException if the length does not fit in a string
+   */
+  private static int getLength(long start, long end) {
+    if (end - start > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Game at offset " + start + " is longer than "
+          + Integer.MAX_VALUE + " bytes");
+    }
+
+    return (int) (end - start);
+  }
+
+  private byte get(long position) {
+    return segments[(int) (position >>> SEGMENT_SHIFT)].get((int) position & SEGMENT_MASK);
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b >= 0 && b <= ' ';
+  }
+
+  private boolean isTerminated(long lineStart, long lineEnd) {
+    for (byte[] terminator : GAME_TERMINATORS) {
+      if (lineEnd - lineStart < terminator.length) {
+        continue;
+      }
+
+      long start = lineEnd - terminator.length;
+      int i = 0;
+
+      while (i < terminator.length && get(start + i) == terminator[i]) {
+        i++;
+      }
+
+      if (i == terminator.length) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Cursor over the byte ranges of the games of the file.
+   */
+  class GameScanner {
+
+    private long position;
+
+    long gameStart;
+
+    long gameEnd;
+
+    /**
+     * End of the last tag line before the movetext of the game.
+     */
+    long headerEnd;
+
+    GameScanner(long position) {
+      this.position = position;
+    }
+
+    /**
+     * Advance to the next game.
+     *
+     * @return {@code true} if a complete game was found, {@code false} at the end of the file
+     */
+    boolean next() {
+      gameStart = -1;
+      boolean header = true;
+
+      while (position < size) {
+        long lineStart = position;
+
+        while (position < size && get(position) != '\n' && get(position) != '\r') {
+          position++;
+        }
+
+        long lineEnd = position;
+
+        if (position < size) {
+          position++;
+        }
+
+        while (lineStart < lineEnd && isWhitespace(get(lineStart))) {
+          lineStart++;
+        }
+
+        while (lineEnd > lineStart && isWhitespace(get(lineEnd - 1))) {
+          lineEnd--;
+        }
+
+        if (lineStart == lineEnd) {
+          continue;
+        }
+
+        if (gameStart == -1) {
+          gameStart = lineStart;
+          headerEnd = lineStart;
+        }
+
+        if (header && get(lineStart) == '[') {
+          headerEnd = lineEnd;
+        } else {
+          header = false;
+        }
+
+        if (isTerminated(lineStart, lineEnd)) {
+          gameEnd = lineEnd;
+          return true;
+        }
+      }
+
+      return false;
+    }
+
+    String decode() {
+      return PGNMappedSource.this.decode(gameStart, getLength(gameStart, gameEnd));
+    }
+
+    String decodeHeader() {
+      return PGNMappedSource.this.decode(gameStart, getLength(gameStart, headerEnd));
+    }
+
+  }
+
+}
@@ -49,6 +49,10 @@ public class PGNMove {
 
   private List<PGNVariation> variations;
 
+  private PositionSnapshot position;
+
+  private long zobristKey;
+
   public String getMove() {
     return move;
   }
@@ -209,6 +213,29 @@ public class PGNMove {
     this.enpassantPieceSquare = enpassantPieceSquare;
   }
 
+  /**
+   * Get the Zobrist key of the position after this move. Keys are computed only when
+   * {@link PGNParseOptions#setZobristHashing(boolean)} is enabled, otherwise the key is
+   * {@code 0}. Equal positions, reached by any move order, have equal keys.
+   *
+   * @return the 64-bit key of the position
+   */
+  public long getZobristKey() {
+    return zobristKey;
+  }
+
+  public void setZobristKey(long zobristKey) {
+    this.zobristKey = zobristKey;
+  }
+
+  PositionSnapshot getPosition() {
+    return position;
+  }
+
+  void setPosition(PositionSnapshot position) {
+    this.position = position;
+  }
+
   public boolean isCastle() {
     return isKingSideCastle() || isQueenSideCastle();
   }
@@ -16,6 +16,17 @@ public abstract class PGNMoveContainer {
     moves.add(move);
   }
 
+  void clearMoves() {
+    moves.clear();
+  }
+
+  /**
+   * @return the last move added, {@code null} if there are no moves
+   */
+  PGNMove getLastMove() {
+    return moves.isEmpty() ? null : moves.get(moves.size() - 1);
+  }
+
   public PGNMove getMove(int index) {
     return moves.get(index);
   }
@@ -0,0 +1,328 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Legal move generator on the parser's board. Moves are generated as ints holding the origin
+ * and destination squares and the promotion piece, into a caller's array, so generating the
+ * moves of a position allocates nothing. Pseudo-legal moves are filtered with the same test of
+ * the king's safety that the parser applies to SAN moves, which covers pins, discovered checks
+ * and en passant captures exposing the king along a rank. {@link #perft(String, int)} counts
+ * the leaf nodes of the move tree, the standard test of a move generator.
+ */
+public final class PGNMoveGenerator {
+
+  /**
+   * The size of the move array needed for one position. No position has more than 218 legal
+   * moves.
+   */
+  static final int MAX_MOVES = 256;
+
+  private static final int[] PROMOTIONS = {BitboardPosition.QUEEN, BitboardPosition.ROOK,
+      BitboardPosition.BISHOP, BitboardPosition.KNIGHT};
+
+  private PGNMoveGenerator() {
+
+  }
+
+  /**
+   * Get the legal moves of a position in standard algebraic notation.
+   *
+   * @param fen the position in Forsyth-Edwards Notation
+   * @return the SAN of every legal move, with check and checkmate marks
+   * @throws PGNParseException if the FEN cannot be parsed
+   */
+  public static List<String> getLegalMoves(String fen) throws PGNParseException {
+    PGNParserGameState state = PGNParser.createGameState(FENParser.parse(fen));
+    BitboardPosition board = state.board;
+    int color = state.currentPlayer;
+    int[] moves = new int[MAX_MOVES * 2];
+    int count = generate(board, color, state.castling, state.enpassantSquare, moves, 0);
+    List<String> sans = new ArrayList<>(count);
+    StringBuilder san = new StringBuilder(8);
+
+    for (int i = 0; i < count; i++) {
+      int move = moves[i];
+      int from = from(move);
+      int to = to(move);
+      san.setLength(0);
+
+      if (isCastling(board, from, to)) {
+        san.append(to > from ? "O-O" : "O-O-O");
+      } else {
+        SANFormatter.appendMove(san, board, from, to, promotion(move));
+      }
+
+      BitboardPosition next = board.copy();
+      makeMove(next, color, move);
+      int king = next.getKingSquare(-color);
+
+      if (king != BitboardPosition.NO_SQUARE && next.isAttacked(king, color)) {
+        int castling = updateCastling(state.castling, move);
+        int enpassantSquare = getEnpassantSquare(board, move);
+        boolean mate = generate(next, -color, castling, enpassantSquare, moves, count) == count;
+        san.append(mate ? '#' : '+');
+      }
+
+      sans.add(san.toString());
+    }
+
+    return sans;
+  }
+
+  /**
+   * Count the leaf nodes of the tree of legal moves of a position to a depth.
+   *
+   * @param fen the position in Forsyth-Edwards Notation
+   * @param depth the number of plies, at least {@code 1}
+   * @return the number of move sequences of the given length
+   * @throws PGNParseException if the FEN cannot be parsed
+   */
+  public static long perft(String fen, int depth) throws PGNParseException {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Invalid depth: " + depth);
+    }
+
+    PGNParserGameState state = PGNParser.createGameState(FENParser.parse(fen));
+    return perft(state.board, state.currentPlayer, state.castling, state.enpassantSquare,
+        depth, new int[MAX_MOVES * depth], 0);
+  }
+
+  private static long perft(BitboardPosition board, int color, int castling,
+      int enpassantSquare, int depth, int[] moves, int offset) {
+    int end = generate(board, color, castling, enpassantSquare, moves, offset);
+
+    if (depth == 1) {
+      return end - offset;
+    }
+
+    long nodes = 0;
+
+    for (int i = offset; i < end; i++) {
+      int move = moves[i];
+      BitboardPosition next = board.copy();
+      makeMove(next, color, move);
+      nodes += perft(next, -color, updateCastling(castling, move),
+          getEnpassantSquare(board, move), depth - 1, moves, end);
+    }
+
+    return nodes;
+  }
+
+  static int move(int from, int to, int promotion) {
+    return from | to << 6 | promotion << 12;
+  }
+
+  static int from(int move) {
+    return move & 0x3F;
+  }
+
+  static int to(int move) {
+    return move >>> 6 & 0x3F;
+  }
+
+  /**
+   * @return the type of the promotion piece, {@code 0} if the move is no promotion
+   */
+  static int promotion(int move) {
+    return move >>> 12;
+  }
+
+  /**
+   * Generate the legal moves of a position.
+   *
+   * @param board the position
+   * @param color the side to move
+   * @param castling the castling rights, as in {@link PGNParserGameState#castling}
+   * @param enpassantSquare the en passant target square, {@link BitboardPosition#NO_SQUARE}
+   *     if there is none
+   * @param moves the array receiving the moves
+   * @param offset the index of the first move in the array
+   * @return the index following the last move
+   */
+  static int generate(BitboardPosition board, int color, int castling, int enpassantSquare,
+      int[] moves, int offset) {
+    long own = board.pieces(color);
+    long enemy = board.pieces(-color);
+    long occupied = own | enemy;
+    int count = offset;
+
+    count = generatePawnMoves(board, color, enpassantSquare, moves, count);
+
+    for (long pieces = own & ~board.pawns; pieces != 0; pieces &= pieces - 1) {
+      int from = Long.numberOfTrailingZeros(pieces);
+      int type = Math.abs(board.get(from));
+      long targets = board.attacksTo(type, color, from, occupied) & ~own;
+
+      for (; targets != 0; targets &= targets - 1) {
+        int to = Long.numberOfTrailingZeros(targets);
+
+        if (!board.isKingInCheckAfterMove(from, to, to, color)) {
+          moves[count++] = move(from, to, 0);
+        }
+      }
+    }
+
+    return generateCastling(board, color, castling, moves, count);
+  }
+
+  private static int generatePawnMoves(BitboardPosition board, int color,
+      int enpassantSquare, int[] moves, int count) {
+    long enemy = board.pieces(-color);
+    long empty = ~board.occupied();
+    int direction = color == BitboardPosition.WHITE ? 8 : -8;
+    int startRank = color == BitboardPosition.WHITE ? 1 : 6;
+    long[] attacks = BitboardPosition.PAWN_ATTACKS[BitboardPosition.colorIndex(color)];
+
+    for (long pawns = board.pawns & board.pieces(color); pawns != 0; pawns &= pawns - 1) {
+      int from = Long.numberOfTrailingZeros(pawns);
+      int push = from + direction;
+
+      if ((empty & 1L << push) != 0) {
+        count = addPawnMove(board, color, from, push, push, moves, count);
+        int doublePush = push + direction;
+
+        if (BitboardPosition.rank(from) == startRank && (empty & 1L << doublePush) != 0) {
+          count = addPawnMove(board, color, from, doublePush, doublePush, moves, count);
+        }
+      }
+
+      for (long targets = attacks[from] & enemy; targets != 0; targets &= targets - 1) {
+        int to = Long.numberOfTrailingZeros(targets);
+        count = addPawnMove(board, color, from, to, to, moves, count);
+      }
+
+      if (enpassantSquare != BitboardPosition.NO_SQUARE
+          && (attacks[from] & 1L << enpassantSquare) != 0) {
+        int captureSquare = enpassantSquare - direction;
+
+        if (board.get(captureSquare) == -BitboardPosition.PAWN * color) {
+          count = addPawnMove(board, color, from, enpassantSquare, captureSquare, moves, count);
+        }
+      }
+    }
+
+    return count;
+  }
+
+  private static int addPawnMove(BitboardPosition board, int color, int from, int to,
+      int captureSquare, int[] moves, int count) {
+    if (board.isKingInCheckAfterMove(from, to, captureSquare, color)) {
+      return count;
+    }
+
+    int rank = BitboardPosition.rank(to);
+
+    if (rank == 0 || rank == 7) {
+      for (int promotion : PROMOTIONS) {
+        moves[count++] = move(from, to, promotion);
+      }
+    } else {
+      moves[count++] = move(from, to, 0);
+    }
+
+    return count;
+  }
+
+  private static int generateCastling(BitboardPosition board, int color, int castling,
+      int[] moves, int count) {
+    int rank = color == BitboardPosition.WHITE ? 0 : 7;
+    int king = BitboardPosition.square(4, rank);
+    int kingSide = color == BitboardPosition.WHITE ? PGNParserGameState.WHITE_KING_CASTLE
+        : PGNParserGameState.BLACK_KING_CASTLE;
+    int queenSide = color == BitboardPosition.WHITE ? PGNParserGameState.WHITE_QUEEN_CASTLE
+        : PGNParserGameState.BLACK_QUEEN_CASTLE;
+
+    if ((castling & (kingSide | queenSide)) == 0
+        || board.get(king) != BitboardPosition.KING * color || board.isAttacked(king, -color)) {
+      return count;
+    }
+
+    if ((castling & kingSide) != 0 && canCastle(board, color, king, king + 3, king + 1)) {
+      moves[count++] = move(king, king + 2, 0);
+    }
+
+    if ((castling & queenSide) != 0 && canCastle(board, color, king, king - 4, king - 1)) {
+      moves[count++] = move(king, king - 2, 0);
+    }
+
+    return count;
+  }
+
+  /**
+   * Check that the rook is in its corner, the squares between the king and the rook are empty
+   * and the two squares the king crosses are not attacked.
+   */
+  private static boolean canCastle(BitboardPosition board, int color, int king, int rook,
+      int crossed) {
+    if (board.get(rook) != BitboardPosition.ROOK * color) {
+      return false;
+    }
+
+    for (int square = Math.min(king, rook) + 1; square < Math.max(king, rook); square++) {
+      if (board.get(square) != 0) {
+        return false;
+      }
+    }
+
+    int step = crossed - king;
+    return !board.isAttacked(crossed, -color) && !board.isAttacked(crossed + step, -color);
+  }
+
+  /**
+   * Make a legal move on a board. Castling moves the rook as well, and an en passant capture
+   * removes the captured pawn.
+   */
+  static void makeMove(BitboardPosition board, int color, int move) {
+    int from = from(move);
+    int to = to(move);
+    int piece = board.get(from);
+
+    if (isCastling(board, from, to)) {
+      boolean kingSide = to > from;
+      int rook = kingSide ? from + 3 : from - 4;
+      board.set(rook, 0);
+      board.set(kingSide ? from + 1 : from - 1, BitboardPosition.ROOK * color);
+    } else if (Math.abs(piece) == BitboardPosition.PAWN
+        && BitboardPosition.file(from) != BitboardPosition.file(to) && board.get(to) == 0) {
+      board.set(BitboardPosition.square(BitboardPosition.file(to),
+          BitboardPosition.rank(from)), 0);
+    }
+
+    int promotion = promotion(move);
+    board.set(to, promotion != 0 ? promotion * color : piece);
+    board.set(from, 0);
+  }
+
+  private static boolean isCastling(BitboardPosition board, int from, int to) {
+    return Math.abs(board.get(from)) == BitboardPosition.KING
+        && Math.abs(BitboardPosition.file(to) - BitboardPosition.file(from)) == 2;
+  }
+
+  /**
+   * @return the castling rights after a move
+   */
+  static int updateCastling(int castling, int move) {
+    return castling & PGNParser.CASTLING_MASKS[from(move)] & PGNParser.CASTLING_MASKS[to(move)];
+  }
+
+  /**
+   * @param board the position before the move
+   * @param move the move
+   * @return the en passant target square after the move
+   */
+  static int getEnpassantSquare(BitboardPosition board, int move) {
+    int from = from(move);
+    int to = to(move);
+
+    if (Math.abs(board.get(from)) == BitboardPosition.PAWN && Math.abs(to - from) == 16) {
+      return (from + to) / 2;
+    }
+
+    return BitboardPosition.NO_SQUARE;
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Results of the games in which a move was played from a position of a {@link PGNOpeningTree}.
+ */
+public class PGNMoveStatistics {
+
+  private final int move;
+
+  private final int whiteWins;
+
+  private final int draws;
+
+  private final int blackWins;
+
+  PGNMoveStatistics(int move, int whiteWins, int draws, int blackWins) {
+    this.move = move;
+    this.whiteWins = whiteWins;
+    this.draws = draws;
+    this.blackWins = blackWins;
+  }
+
+  /**
+   * @return the move in coordinate notation, for example {@code e2e4}, {@code e1g1} for white
+   *     king side castling or {@code e7e8q} for a promotion
+   */
+  public String getMove() {
+    return PGNOpeningTree.toCoordinates(move);
+  }
+
+  public String getFromSquare() {
+    return BitboardPosition.name(PGNOpeningTree.getFrom(move));
+  }
+
+  public String getToSquare() {
+    return BitboardPosition.name(PGNOpeningTree.getTo(move));
+  }
+
+  public int getWhiteWins() {
+    return whiteWins;
+  }
+
+  public int getDraws() {
+    return draws;
+  }
+
+  public int getBlackWins() {
+    return blackWins;
+  }
+
+  public int getGamesCount() {
+    return whiteWins + draws + blackWins;
+  }
+
+  @Override
+  public String toString() {
+    return getMove() + " +" + whiteWins + " =" + draws + " -" + blackWins;
+  }
+
+}
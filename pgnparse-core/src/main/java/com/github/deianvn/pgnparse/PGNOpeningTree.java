@@ -0,0 +1,496 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.IntFunction;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Opening explorer over a PGN corpus. For every position reached in the main lines of the
+ * games, the tree holds the moves played from it together with the results of the games.
+ * Positions are identified by their Zobrist key, see {@link PGNMove#getZobristKey()}.
+ *
+ * <p>The tree is built once into a file of fixed size entries sorted by position key and move,
+ * and is then memory-mapped, so opening a tree is instant and a lookup is a binary search.
+ */
+public class PGNOpeningTree {
+
+  private static final int MAGIC = 0x50474e4f;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER_SIZE = 16;
+
+  private static final int ENTRY_SIZE = 24;
+
+  private static final int SEGMENT_SHIFT = 25;
+
+  private static final int SEGMENT_ENTRIES = 1 << SEGMENT_SHIFT;
+
+  private static final int BATCHES_PER_PROCESSOR = 4;
+
+  static final int WHITE_WIN = 0;
+
+  static final int DRAW = 1;
+
+  static final int BLACK_WIN = 2;
+
+  private static final String PROMOTIONS = " nbrq";
+
+  private final MappedByteBuffer[] segments;
+
+  private final long count;
+
+  private final int skippedGamesCount;
+
+  /**
+   * Open a tree file written by one of the {@code build} methods.
+   *
+   * @param file the tree file
+   * @throws IOException if the file cannot be mapped or is not a tree file
+   */
+  public PGNOpeningTree(File file) throws IOException {
+    this(file, 0);
+  }
+
+  private PGNOpeningTree(File file, int skippedGamesCount) throws IOException {
+    this.skippedGamesCount = skippedGamesCount;
+
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+      while (header.hasRemaining() && channel.read(header) != -1) {
+      }
+
+      header.flip();
+
+      if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC
+          || header.getInt() != VERSION) {
+        throw new IOException("Not a PGN opening tree file: " + file);
+      }
+
+      count = header.getLong();
+
+      if (channel.size() != HEADER_SIZE + count * ENTRY_SIZE) {
+        throw new IOException("Truncated PGN opening tree file: " + file);
+      }
+
+      segments = new MappedByteBuffer[(int) ((count + SEGMENT_ENTRIES - 1) >>> SEGMENT_SHIFT)];
+
+      for (int i = 0; i < segments.length; i++) {
+        long first = (long) i << SEGMENT_SHIFT;
+        segments[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            HEADER_SIZE + first * ENTRY_SIZE, Math.min(SEGMENT_ENTRIES, count - first) * ENTRY_SIZE);
+      }
+    }
+  }
+
+  /**
+   * @return the number of distinct position and move pairs in the tree
+   */
+  public long size() {
+    return count;
+  }
+
+  /**
+   * @return the number of games skipped when the tree was built, because they cannot be parsed
+   *     or have no result, {@code 0} for a tree opened from a file
+   */
+  public int getSkippedGamesCount() {
+    return skippedGamesCount;
+  }
+
+  /**
+   * Get the moves played from a position.
+   *
+   * @param positionKey the Zobrist key of the position
+   * @return the statistics of the moves, empty if the position is not in the tree
+   */
+  public List<PGNMoveStatistics> getMoves(long positionKey) {
+    long low = 0;
+    long high = count;
+
+    while (low < high) {
+      long middle = (low + high) >>> 1;
+
+      if (getKey(middle) < positionKey) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    if (low == count || getKey(low) != positionKey) {
+      return Collections.emptyList();
+    }
+
+    List<PGNMoveStatistics> moves = new ArrayList<>();
+
+    for (long entry = low; entry < count && getKey(entry) == positionKey; entry++) {
+      ByteBuffer segment = segments[(int) (entry >>> SEGMENT_SHIFT)];
+      int offset = (int) (entry & (SEGMENT_ENTRIES - 1)) * ENTRY_SIZE;
+      moves.add(new PGNMoveStatistics(segment.getInt(offset + 8), segment.getInt(offset + 12),
+          segment.getInt(offset + 16), segment.getInt(offset + 20)));
+    }
+
+    return moves;
+  }
+
+  /**
+   * Get the moves played from the position after a move of a game parsed with Zobrist hashing
+   * enabled.
+   *
+   * @param move the move leading to the position
+   * @return the statistics of the moves, empty if the position is not in the tree
+   */
+  public List<PGNMoveStatistics> getMoves(PGNMove move) {
+    return getMoves(move.getZobristKey());
+  }
+
+  private long getKey(long entry) {
+    return segments[(int) (entry >>> SEGMENT_SHIFT)]
+        .getLong((int) (entry & (SEGMENT_ENTRIES - 1)) * ENTRY_SIZE);
+  }
+
+  /**
+   * Build a tree file from the games of a source. The games are parsed in parallel using the
+   * given executor; games that cannot be parsed or have no result are skipped and counted, see
+   * {@link #getSkippedGamesCount()}.
+   *
+   * @param source the PGN source
+   * @param maxPlies the number of plies of each game to include
+   * @param file the tree file to write
+   * @param executor the {@link Executor} running the parse batches
+   * @return the opened tree
+   * @throws IOException if the tree file cannot be written
+   */
+  public static PGNOpeningTree build(PGNSource source, int maxPlies, File file,
+      Executor executor) throws IOException {
+    List<String> pgns = source.split();
+    return build(pgns.size(), pgns::get, maxPlies, file, executor);
+  }
+
+  /**
+   * Build a tree file from the games of a memory-mapped source. Each parse batch decodes its
+   * own range of games from the file, so only the games being parsed are held in memory.
+   *
+   * @param source the memory-mapped PGN source
+   * @param maxPlies the number of plies of each game to include
+   * @param file the tree file to write
+   * @param executor the {@link Executor} running the parse batches
+   * @return the opened tree
+   * @throws IOException if the tree file cannot be written
+   */
+  public static PGNOpeningTree build(PGNMappedSource source, int maxPlies, File file,
+      Executor executor) throws IOException {
+    PGNGameIndex index = source.getIndex();
+    return build(index.getGamesCount(),
+        game -> source.decode(index.getOffset(game), index.getLength(game)), maxPlies, file,
+        executor);
+  }
+
+  private static PGNOpeningTree build(int gamesCount, IntFunction<String> pgns, int maxPlies,
+      File file, Executor executor) throws IOException {
+    int batchSize = Math.max(1,
+        gamesCount / (Runtime.getRuntime().availableProcessors() * BATCHES_PER_PROCESSOR));
+    List<CompletableFuture<Accumulator>> batches = new ArrayList<>();
+    PGNParseOptions options = new PGNParseOptions();
+    options.setZobristHashing(true);
+
+    for (int start = 0; start < gamesCount; start += batchSize) {
+      final int from = start;
+      final int to = Math.min(gamesCount, start + batchSize);
+
+      batches.add(CompletableFuture.supplyAsync(() -> {
+        Accumulator accumulator = new Accumulator();
+
+        for (int i = from; i < to; i++) {
+          try {
+            accumulator.add(PGNParser.parse(pgns.apply(i), options), maxPlies);
+          } catch (PGNParseException e) {
+            accumulator.skippedGamesCount++;
+          }
+        }
+
+        return accumulator;
+      }, executor));
+    }
+
+    Accumulator tree = new Accumulator();
+
+    try {
+      for (CompletableFuture<Accumulator> batch : batches) {
+        tree.addAll(batch.join());
+      }
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+
+    tree.save(file);
+    return new PGNOpeningTree(file, tree.skippedGamesCount);
+  }
+
+  static int encodeMove(PGNMove move) {
+    if (move.isCastle()) {
+      int rank = PGN.WHITE.equals(move.getColor()) ? 0 : 7;
+      int to = move.isKingSideCastle() ? 6 : 2;
+      return encodeMove(BitboardPosition.square(4, rank), BitboardPosition.square(to, rank), 0);
+    }
+
+    int promotion = 0;
+
+    if (move.isPromoted()) {
+      promotion = " NBRQ".indexOf(move.getPromotion().charAt(0));
+    }
+
+    return encodeMove(BitboardPosition.square(move.getFromSquare()),
+        BitboardPosition.square(move.getToSquare()), promotion);
+  }
+
+  private static int encodeMove(int from, int to, int promotion) {
+    return from | to << 6 | promotion << 12;
+  }
+
+  static int getFrom(int move) {
+    return move & 0x3F;
+  }
+
+  static int getTo(int move) {
+    return move >>> 6 & 0x3F;
+  }
+
+  static int getPromotion(int move) {
+    return move >>> 12 & 0x7;
+  }
+
+  /**
+   * @return an encoded move in coordinate notation, for example {@code e7e8q}
+   */
+  static String toCoordinates(int move) {
+    String coordinates = BitboardPosition.name(getFrom(move))
+        + BitboardPosition.name(getTo(move));
+    int promotion = getPromotion(move);
+    return promotion == 0 ? coordinates : coordinates + PROMOTIONS.charAt(promotion);
+  }
+
+  static int getResult(PGNGame game) {
+    String result = game.getTag("Result");
+
+    if (result == null && game.getMovesCount() > 0) {
+      result = game.getMove(game.getMovesCount() - 1).getEndGameMark();
+    }
+
+    if ("1-0".equals(result)) {
+      return WHITE_WIN;
+    } else if ("1/2-1/2".equals(result)) {
+      return DRAW;
+    } else if ("0-1".equals(result)) {
+      return BLACK_WIN;
+    }
+
+    return -1;
+  }
+
+  /**
+   * Open addressing hash table of position and move pairs with their result counts, filled by
+   * a single parse batch and merged into the final tree.
+   */
+  private static final class Accumulator {
+
+    private long[] keys = new long[1024];
+
+    /**
+     * Encoded moves plus one, so that {@code 0} marks an empty slot.
+     */
+    private int[] moves = new int[keys.length];
+
+    private int[] results = new int[keys.length * 3];
+
+    private int size;
+
+    private int skippedGamesCount;
+
+    void add(PGNGame game, int maxPlies) {
+      int result = getResult(game);
+
+      if (result == -1) {
+        skippedGamesCount++;
+        return;
+      }
+
+      long key = game.getInitialZobristKey();
+      int plies = Math.min(maxPlies, game.getMovesCount());
+
+      for (int i = 0; i < plies; i++) {
+        PGNMove move = game.getMove(i);
+        // The slot is found first, as finding it may grow the results
+        int slot = slot(key, encodeMove(move));
+        results[slot * 3 + result]++;
+        key = move.getZobristKey();
+      }
+    }
+
+    void addAll(Accumulator other) {
+      skippedGamesCount += other.skippedGamesCount;
+
+      for (int i = 0; i < other.moves.length; i++) {
+        if (other.moves[i] != 0) {
+          int slot = slot(other.keys[i], other.moves[i] - 1);
+
+          for (int result = 0; result < 3; result++) {
+            results[slot * 3 + result] += other.results[i * 3 + result];
+          }
+        }
+      }
+    }
+
+    private int slot(long key, int move) {
+      if (size * 2 >= keys.length) {
+        grow();
+      }
+
+      int mask = keys.length - 1;
+      int slot = hash(key, move) & mask;
+
+      while (moves[slot] != 0) {
+        if (keys[slot] == key && moves[slot] == move + 1) {
+          return slot;
+        }
+
+        slot = (slot + 1) & mask;
+      }
+
+      keys[slot] = key;
+      moves[slot] = move + 1;
+      size++;
+      return slot;
+    }
+
+    private static int hash(long key, int move) {
+      long h = (key ^ move) * 0x9E3779B97F4A7C15L;
+      return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+      long[] oldKeys = keys;
+      int[] oldMoves = moves;
+      int[] oldResults = results;
+      keys = new long[oldKeys.length * 2];
+      moves = new int[keys.length];
+      results = new int[keys.length * 3];
+      size = 0;
+
+      for (int i = 0; i < oldMoves.length; i++) {
+        if (oldMoves[i] != 0) {
+          int slot = slot(oldKeys[i], oldMoves[i] - 1);
+          System.arraycopy(oldResults, i * 3, results, slot * 3, 3);
+        }
+      }
+    }
+
+    void save(File file) throws IOException {
+      long[] order = sortSlots();
+
+      try (DataOutputStream out = new DataOutputStream(
+          new BufferedOutputStream(new FileOutputStream(file), 1 << 16))) {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(size);
+
+        for (long entry : order) {
+          int slot = (int) entry;
+          out.writeLong(keys[slot]);
+          out.writeInt(moves[slot] - 1);
+          out.writeInt(results[slot * 3 + WHITE_WIN]);
+          out.writeInt(results[slot * 3 + DRAW]);
+          out.writeInt(results[slot * 3 + BLACK_WIN]);
+        }
+      }
+    }
+
+    /**
+     * Sort the used slots by position key and move. Each slot is packed with the rank of its
+     * key among the distinct keys in the high bits, so that the slots are sorted as primitives,
+     * and the few slots of every position are then ordered by move.
+     *
+     * @return the packed slots, the slot in the low 32 bits
+     */
+    private long[] sortSlots() {
+      long[] distinctKeys = new long[size];
+      int n = 0;
+
+      for (int i = 0; i < moves.length; i++) {
+        if (moves[i] != 0) {
+          distinctKeys[n++] = keys[i];
+        }
+      }
+
+      Arrays.parallelSort(distinctKeys);
+      int distinctCount = 0;
+
+      for (int i = 0; i < n; i++) {
+        if (distinctCount == 0 || distinctKeys[i] != distinctKeys[distinctCount - 1]) {
+          distinctKeys[distinctCount++] = distinctKeys[i];
+        }
+      }
+
+      long[] order = new long[size];
+      n = 0;
+
+      for (int i = 0; i < moves.length; i++) {
+        if (moves[i] != 0) {
+          long rank = Arrays.binarySearch(distinctKeys, 0, distinctCount, keys[i]);
+          order[n++] = rank << 32 | i;
+        }
+      }
+
+      Arrays.parallelSort(order);
+      int positionStart = 0;
+
+      for (int i = 1; i <= n; i++) {
+        if (i == n || order[i] >>> 32 != order[positionStart] >>> 32) {
+          sortByMove(order, positionStart, i);
+          positionStart = i;
+        }
+      }
+
+      return order;
+    }
+
+    private void sortByMove(long[] order, int from, int to) {
+      for (int i = from + 1; i < to; i++) {
+        long entry = order[i];
+        int move = moves[(int) entry];
+        int j = i - 1;
+
+        while (j >= from && moves[(int) order[j]] > move) {
+          order[j + 1] = order[j];
+          j--;
+        }
+
+        order[j + 1] = entry;
+      }
+    }
+
+  }
+
+}
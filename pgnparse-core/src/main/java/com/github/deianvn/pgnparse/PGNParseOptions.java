@@ -0,0 +1,92 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.function.Predicate;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Optional features of {@link PGNParser#parse(String, PGNParseOptions)}. All features are off
+ * by default.
+ */
+public class PGNParseOptions {
+
+  private boolean zobristHashing;
+
+  private boolean positionSnapshots;
+
+  private Predicate<PGNGame> tagFilter;
+
+  private boolean lazyMovetext;
+
+  public boolean isZobristHashing() {
+    return zobristHashing;
+  }
+
+  /**
+   * Keep a 64-bit Zobrist key of the position up to date while parsing and record it on every
+   * move, see {@link PGNMove#getZobristKey()}.
+   *
+   * @param zobristHashing {@code true} to compute position keys
+   */
+  public void setZobristHashing(boolean zobristHashing) {
+    this.zobristHashing = zobristHashing;
+  }
+
+  public boolean isPositionSnapshots() {
+    return positionSnapshots;
+  }
+
+  /**
+   * Record the position after every move while parsing, so that
+   * {@link PGNGame#getFEN(PGNMove)} can be called for any move. A snapshot of the board is
+   * kept with every move, so this is best left off for games which are only aggregated.
+   *
+   * @param positionSnapshots {@code true} to record the positions of the moves
+   */
+  public void setPositionSnapshots(boolean positionSnapshots) {
+    this.positionSnapshots = positionSnapshots;
+  }
+
+  /**
+   * @return a copy of these options without the tag filter, for games that have already
+   *     been accepted by the filter
+   */
+  PGNParseOptions withoutTagFilter() {
+    PGNParseOptions options = new PGNParseOptions();
+    options.zobristHashing = zobristHashing;
+    options.positionSnapshots = positionSnapshots;
+    options.lazyMovetext = lazyMovetext;
+    return options;
+  }
+
+  public Predicate<PGNGame> getTagFilter() {
+    return tagFilter;
+  }
+
+  /**
+   * Decide from the tags whether a game is parsed. The predicate is given a game holding only
+   * the tags; if it rejects the game the movetext is not parsed and
+   * {@link PGNParser#parse(String, PGNParseOptions)} returns {@code null}.
+   *
+   * @param tagFilter the tag predicate, {@code null} to parse every game
+   */
+  public void setTagFilter(Predicate<PGNGame> tagFilter) {
+    this.tagFilter = tagFilter;
+  }
+
+  public boolean isLazyMovetext() {
+    return lazyMovetext;
+  }
+
+  /**
+   * Parse only the tags of a game up front and keep the text of its movetext. The moves are
+   * parsed and replayed on the board the first time they, or a position of the game, are
+   * requested. Errors in the movetext are then reported as {@link IllegalStateException}.
+   *
+   * @param lazyMovetext {@code true} to defer parsing the moves
+   */
+  public void setLazyMovetext(boolean lazyMovetext) {
+    this.lazyMovetext = lazyMovetext;
+  }
+
+}
@@ -0,0 +1,65 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Outcome of parsing one game of a source: either the parsed game or the error which made
+ * parsing fail, so that a consumer can handle bad games without stopping at the first one.
+ */
+public class PGNParseResult {
+
+  private final int gameNumber;
+
+  private final PGNGame game;
+
+  private final String pgn;
+
+  private final PGNParseException error;
+
+  PGNParseResult(int gameNumber, PGNGame game) {
+    this.gameNumber = gameNumber;
+    this.game = game;
+    this.pgn = null;
+    this.error = null;
+  }
+
+  PGNParseResult(int gameNumber, String pgn, PGNParseException error) {
+    this.gameNumber = gameNumber;
+    this.game = null;
+    this.pgn = pgn;
+    this.error = error;
+  }
+
+  /**
+   * @return the position of the game in the source, starting from {@code 0}
+   */
+  public int getGameNumber() {
+    return gameNumber;
+  }
+
+  public boolean isSuccessful() {
+    return error == null;
+  }
+
+  /**
+   * @return the parsed game, {@code null} if parsing failed
+   */
+  public PGNGame getGame() {
+    return game;
+  }
+
+  /**
+   * @return the text of the game if parsing failed, {@code null} otherwise
+   */
+  public String getPGN() {
+    return pgn;
+  }
+
+  /**
+   * @return the parse error, {@code null} if the game was parsed
+   */
+  public PGNParseException getError() {
+    return error;
+  }
+
+}
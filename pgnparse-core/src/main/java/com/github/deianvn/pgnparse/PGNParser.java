@@ -1,6 +1,7 @@
 package com.github.deianvn.pgnparse;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -10,46 +11,24 @@ import java.util.List;
  */
 public class PGNParser implements PGN {
 
-  private static final String MOVE_TYPE_1_RE = "[a-h][1-8]";
+  private static final int MOVE_TYPE_INVALID = 0;
 
-  private static final int MOVE_TYPE_1_LENGTH = 2;
+  private static final int MOVE_TYPE_1 = 1;
 
-  private static final String MOVE_TYPE_2_RE =
-      "[" + PAWN + KNIGHT + BISHOP + ROOK + QUEEN + KING + "][a-h][1-8]";
+  private static final int MOVE_TYPE_2 = 2;
 
-  private static final int MOVE_TYPE_2_LENGTH = 3;
+  private static final int MOVE_TYPE_3 = 3;
 
-  private static final String MOVE_TYPE_3_RE =
-      "[" + PAWN + KNIGHT + BISHOP + ROOK + QUEEN + KING + "][a-h][a-h][1-8]";
+  private static final int MOVE_TYPE_4 = 4;
 
-  private static final int MOVE_TYPE_3_LENGTH = 4;
+  private static final int MOVE_TYPE_5 = 5;
 
-  private static final String MOVE_TYPE_4_RE =
-      "[" + PAWN + KNIGHT + BISHOP + ROOK + QUEEN + KING + "][a-h][1-8][a-h][1-8]";
-
-  private static final int MOVE_TYPE_4_LENGTH = 5;
-
-  private static final String MOVE_TYPE_5_RE = "[a-h][a-h][1-8]";
-
-  private static final String MOVE_TYPE_6_RE =
-      "[" + PAWN + KNIGHT + BISHOP + ROOK + QUEEN + KING + "][1-8][a-h][1-8]";
+  private static final int MOVE_TYPE_6 = 6;
 
   static final int W = -1;
 
   static final int B = 1;
 
-  private static final int WHITE_PAWN = -1;
-
-  private static final int WHITE_KNIGHT = -2;
-
-  private static final int WHITE_BISHOP = -3;
-
-  private static final int WHITE_ROOK = -4;
-
-  private static final int WHITE_QUEEN = -5;
-
-  private static final int WHITE_KING = -6;
-
   private static final int EMPTY = 0;
 
   private static final int BLACK_PAWN = 1;
@@ -64,15 +43,28 @@ public class PGNParser implements PGN {
 
   private static final int BLACK_KING = 6;
 
-  private static final int[][] KNIGHT_SEARCH_PATH = {{-1, 2}, {1, 2}, {-1, -2}, {1, -2}, {-2, 1},
-      {-2, -1}, {2, -1}, {2, 1}};
+  static final String[] PIECES = {null, PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
 
-  private static final int[][] BISHOP_SEARCH_PATH = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}};
+  private static final long FILE_A = 0x0101010101010101L;
 
-  private static final int[][] ROOK_SEARCH_PATH = {{0, 1}, {1, 0}, {0, -1}, {-1, 0}};
+  private static final long RANK_1 = 0xFFL;
 
-  private static final int[][] QUEEN_KING_SEARCH_PATH = {{1, 1}, {1, -1}, {-1, -1}, {-1, 1}, {0, 1},
-      {1, 0}, {0, -1}, {-1, 0}};
+  /**
+   * Castling rights kept when a piece moves from or to each square.
+   */
+  static final int[] CASTLING_MASKS = new int[64];
+
+  static {
+    Arrays.fill(CASTLING_MASKS, PGNParserGameState.ALL_CASTLES);
+    CASTLING_MASKS[0] &= ~PGNParserGameState.WHITE_QUEEN_CASTLE;
+    CASTLING_MASKS[4] &= ~(PGNParserGameState.WHITE_KING_CASTLE
+        | PGNParserGameState.WHITE_QUEEN_CASTLE);
+    CASTLING_MASKS[7] &= ~PGNParserGameState.WHITE_KING_CASTLE;
+    CASTLING_MASKS[56] &= ~PGNParserGameState.BLACK_QUEEN_CASTLE;
+    CASTLING_MASKS[60] &= ~(PGNParserGameState.BLACK_KING_CASTLE
+        | PGNParserGameState.BLACK_QUEEN_CASTLE);
+    CASTLING_MASKS[63] &= ~PGNParserGameState.BLACK_KING_CASTLE;
+  }
 
   private PGNParser() {
 
@@ -88,42 +80,114 @@ public class PGNParser implements PGN {
    */
   public static PGNGame parse(String pgnGame)
       throws PGNParseException {
+    return parse(pgnGame, null);
+  }
+
+  /**
+   * Parse the string argument as a PGN game object, with optional features enabled.
+   *
+   * @param pgnGame a {@link String} containing the PGN text
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @return the {@link PGNGame} object containing the parsed PGN data, {@code null} if the game
+   *     is rejected by the tag filter of the options
+   * @throws PGNParseException if the String does not contain parsable PGN
+   */
+  public static PGNGame parse(String pgnGame, PGNParseOptions options)
+      throws PGNParseException {
     final PGNGame game = new PGNGame();
-    String[] lines = pgnGame.split("\\R");
-    StringBuilder pgn = new StringBuilder();
-    int lineNumber = 1;
+    PGNTokenizer tokenizer = new PGNTokenizer(pgnGame);
+    int movetextStart = tokenizer.getPosition();
+    int movetextLine = tokenizer.getCurrentLine();
+    int token = tokenizer.next();
+
+    while (token == PGNTokenizer.TAG) {
+      processTagToken(tokenizer, game);
+      movetextStart = tokenizer.getPosition();
+      movetextLine = tokenizer.getCurrentLine();
+      token = tokenizer.next();
+    }
+
+    if (options != null && options.getTagFilter() != null
+        && !options.getTagFilter().test(game)) {
+      return null;
+    }
+
+    if (options != null && options.isLazyMovetext()) {
+      game.setMovetext(pgnGame, movetextStart, movetextLine, options);
+      return game;
+    }
+
+    parseMovetext(game, tokenizer, token, options);
+    return game;
+  }
+
+  /**
+   * Parse the string argument as a PGN game, reporting its tags, moves, comments, variations
+   * and result to a visitor instead of building a {@link PGNGame}. The moves are replayed and
+   * validated as by {@link #parse(String)}.
+   *
+   * @param pgnGame a {@link String} containing the PGN text
+   * @param visitor the {@link PGNVisitor} receiving the events of the game
+   * @throws PGNParseException if the String does not contain parsable PGN
+   */
+  public static void visit(String pgnGame, PGNVisitor visitor) throws PGNParseException {
+    PGNTokenizer tokenizer = new PGNTokenizer(pgnGame);
     String fen = null;
+    int token = tokenizer.next();
 
-    for (String line : lines) {
-      line = line.trim();
+    while (token == PGNTokenizer.TAG) {
+      String tagName = tokenizer.getTagName();
+      String tagValue = tokenizer.getTagValue();
+      checkTag(tokenizer, tagName, tagValue);
 
-      if (line.startsWith("@")) {
-        lineNumber++;
-        continue;
+      if (tagName.equals("FEN")) {
+        fen = tagValue;
       }
 
-      if (line.startsWith("[")) {
-        try {
-          String tagName = line.substring(1, line.indexOf("\"")).trim();
-          String tagValue = line.substring(line.indexOf("\"") + 1,
-              line.lastIndexOf("\""));
-          game.addTag(tagName, tagValue);
+      visitor.onTag(tagName, tagValue);
+      token = tokenizer.next();
+    }
 
-          if (tagName.compareTo("FEN") == 0) {
-            fen = tagValue;
-          }
-        } catch (IndexOutOfBoundsException e) {
-          throw new PGNParseException("Error in line " + lineNumber);
-        }
-      } else {
-        if (!line.isEmpty()) {
-          pgn.append(line).append("\n");
-        }
-      }
+    if (!visitor.onMovetextStart()) {
+      return;
+    }
+
+    PGNParserGameState state = fen != null ? createGameState(FENParser.parse(fen))
+        : createDefaultGameState();
+    parseMovetext(tokenizer, token, state, visitor);
+  }
+
+  /**
+   * Parse the movetext of a game whose tags have been parsed with lazy movetext enabled.
+   */
+  static void parseMovetext(PGNGame game, String pgnGame, int start, int line,
+      PGNParseOptions options) throws PGNParseException {
+    PGNTokenizer tokenizer = new PGNTokenizer(pgnGame, start, pgnGame.length(), line);
+    parseMovetext(game, tokenizer, tokenizer.next(), options);
+  }
 
-      lineNumber++;
+  private static void parseMovetext(PGNGame game, PGNTokenizer tokenizer, int token,
+      PGNParseOptions options) throws PGNParseException {
+    PGNParserGameState state = createGameState(game, options);
+    parseMovetext(tokenizer, token, state, new PGNGameBuilder(game, state));
+  }
+
+  private static void parseMovetext(PGNTokenizer tokenizer, int token,
+      PGNParserGameState state, PGNVisitor visitor) throws PGNParseException {
+    visitMovetext(tokenizer, token, state, visitor);
+
+    if (state.isInVariation()) {
+      throw new PGNParseException("Error near character (");
     }
+  }
 
+  /**
+   * Create the state of the initial position of a game from its FEN tag, and record the
+   * initial position on the game.
+   */
+  static PGNParserGameState createGameState(PGNGame game, PGNParseOptions options)
+      throws PGNParseException {
+    String fen = game.getTag("FEN");
     PGNParserGameState state;
 
     if (fen != null) {
@@ -134,10 +198,54 @@ public class PGNParser implements PGN {
       state = createDefaultGameState();
     }
 
-    parse(game, pgn.toString(), state);
+    if (options != null && options.isZobristHashing()) {
+      state.hashing = true;
+      state.zobristKey = Zobrist.hash(state.board, state.currentPlayer, state.castling,
+          state.enpassantSquare);
+      game.setInitialZobristKey(state.zobristKey);
+    }
+
+    state.snapshots = options != null && options.isPositionSnapshots();
+    game.setInitialSnapshot(new PositionSnapshot(state));
+    return state;
+  }
+
+  /**
+   * Parse only the tags of a PGN game. Reading stops at the first token of the movetext, so no
+   * moves are parsed or validated and the returned game has no moves.
+   *
+   * @param pgnGame a {@link String} containing the PGN text
+   * @return the {@link PGNGame} object containing the tags
+   * @throws PGNParseException if a tag cannot be parsed
+   */
+  public static PGNGame parseTags(String pgnGame) throws PGNParseException {
+    PGNGame game = new PGNGame();
+    PGNTokenizer tokenizer = new PGNTokenizer(pgnGame);
+
+    while (tokenizer.next() == PGNTokenizer.TAG) {
+      processTagToken(tokenizer, game);
+    }
+
     return game;
   }
 
+  /**
+   * Parse a game, reporting a parse error as a failed result instead of throwing it.
+   *
+   * @param gameNumber the position of the game in its source
+   * @param pgnGame a {@link String} containing the PGN text
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @return the result, {@code null} if the game was rejected by the tag filter
+   */
+  static PGNParseResult parse(int gameNumber, String pgnGame, PGNParseOptions options) {
+    try {
+      PGNGame game = parse(pgnGame, options);
+      return game != null ? new PGNParseResult(gameNumber, game) : null;
+    } catch (PGNParseException e) {
+      return new PGNParseResult(gameNumber, pgnGame, e);
+    }
+  }
+
   /**
    * Split PGN string containing multiple chess games
    *
@@ -155,8 +263,7 @@ public class PGNParser implements PGN {
       if (!line.isEmpty()) {
         buffer.append(line).append("\n");
 
-        if (line.endsWith("1-0") || line.endsWith("0-1") || line.endsWith("1/2-1/2") || line
-            .endsWith("*")) {
+        if (isGameTerminated(line)) {
           pgnGames.add(buffer.toString());
           buffer.delete(0, buffer.length());
         }
@@ -166,989 +273,854 @@ public class PGNParser implements PGN {
     return pgnGames;
   }
 
-  private static int getLineEndIndex(String line, int start) {
-    int index = line.indexOf('\n', start);
-
-    if (index == -1) {
-      index = line.length();
-    }
-
-    return index;
+  static boolean isGameTerminated(String line) {
+    return line.endsWith("1-0") || line.endsWith("0-1") || line.endsWith("1/2-1/2") || line
+        .endsWith("*");
   }
 
-  private static void parse(
-      PGNMoveContainer container, String pgn,
-      final PGNParserGameState state)
-      throws PGNParseException {
+  /**
+   * Parse the tokens of a movetext up to the end of the text or an incomplete token, playing
+   * the moves on a state and reporting the tokens to a visitor.
+   *
+   * @return the token parsing stopped at, {@link PGNTokenizer#END} or
+   *     {@link PGNTokenizer#INCOMPLETE}
+   */
+  static int visitMovetext(PGNTokenizer tokenizer, int token, PGNParserGameState state,
+      PGNVisitor visitor) throws PGNParseException {
+    for (; token != PGNTokenizer.END && token != PGNTokenizer.INCOMPLETE;
+        token = tokenizer.next()) {
+      switch (token) {
+        case PGNTokenizer.TAG:
+          String tagName = tokenizer.getTagName();
+          String tagValue = tokenizer.getTagValue();
+          checkTag(tokenizer, tagName, tagValue);
+          visitor.onTag(tagName, tagValue);
+          break;
+        case PGNTokenizer.SAN:
+          if (!tokenizer.textEquals("e.p.")) {
+            int move = processMoveToken(tokenizer, state);
+            visitor.onMove(getMoveFrom(move), getMoveTo(move), getMovePiece(move),
+                getMoveFlags(move));
+          }
 
-    StringBuilder token = new StringBuilder();
+          break;
+        case PGNTokenizer.COMMENT:
+          String comment = tokenizer.getText();
 
-    for (int i = 0; i < pgn.length(); i++) {
+          if (!state.isLineStarted()) {
+            throw new PGNParseException(comment);
+          }
 
-      char ch = pgn.charAt(i);
+          visitor.onComment(comment);
+          break;
+        case PGNTokenizer.RESULT:
+          if (!state.isLineStarted()) {
+            throw new PGNParseException(tokenizer.getText());
+          }
 
-      if (ch != ' ' && ch != '\n' && ch != '{' && ch != ';' && ch != '(') {
-        token.append(ch);
-      } else {
-        processMoveToken(token.toString().trim(), container, state);
-        token.delete(0, token.length());
-
-        if (ch == ';') {
-          int lineEndIndex = getLineEndIndex(pgn, i + 1);
-          String commentToken = pgn.substring(i + 1, lineEndIndex).trim();
-          processCommentToken(commentToken, container);
-          i = lineEndIndex;
-        } else if (ch == '{') {
-          int commentEndIndex = pgn.indexOf('}', i);
-
-          if (commentEndIndex != -1) {
-            String commentToken = pgn.substring(i + 1, commentEndIndex);
-            processCommentToken(commentToken, container);
-            i = commentEndIndex + 1;
-          } else {
-            throw new PGNParseException("Error near character {");
+          visitor.onResult(getResult(tokenizer));
+          break;
+        case PGNTokenizer.VARIATION_START:
+          if (!state.isLineStarted()) {
+            throw new PGNParseException("Error near character (");
           }
-        } else if (ch == '(') {
-          int end = 1;
-
-          for (int k = i + 1; k < pgn.length(); k++) {
-            char nextCh = pgn.charAt(k);
-
-            if (nextCh == '(') {
-              end++;
-            } else if (nextCh == ')' && --end == 0) {
-              String variationPgn = pgn.substring(i + 1, k);
-              PGNMove lastMove = container
-                  .getMove(container.getMovesCount() - 1);
-              PGNParserGameState variationGameState = state.clone();
-              handleGameStateBackMove(lastMove, variationGameState);
-              variationGameState.switchPlayer();
-              PGNVariation variation = new PGNVariation();
-              lastMove.addVariation(variation);
-              parse(variation, variationPgn, variationGameState);
-              i = k;
-              break;
-            }
+
+          startVariation(state);
+          visitor.onVariationStart();
+          break;
+        case PGNTokenizer.VARIATION_END:
+          if (!state.isInVariation()) {
+            throw new PGNParseException("Error near character )");
           }
-        }
 
+          endVariation(state);
+          visitor.onVariationEnd();
+          break;
+        default:
+          break;
       }
     }
 
-    processMoveToken(token.toString().trim(), container, state);
+    return token;
   }
 
-  private static void rollbackCastling(final PGNMove move,
-      final PGNParserGameState state) {
-    int[][] board = state.board;
-
-    if (move.isKingSideCastle()) {
-      if (WHITE.equals(move.getColor())) {
-        board[4][0] = board[6][0];
-        board[7][0] = board[5][0];
-        board[6][0] = EMPTY;
-        board[5][0] = EMPTY;
-      } else {
-        board[4][7] = board[6][7];
-        board[7][7] = board[5][7];
-        board[6][7] = EMPTY;
-        board[5][7] = EMPTY;
-      }
-    } else {
-      if (WHITE.equals(move.getColor())) {
-        board[4][0] = board[2][0];
-        board[0][0] = board[3][0];
-        board[2][0] = EMPTY;
-        board[3][0] = EMPTY;
-      } else {
-        board[4][7] = board[2][7];
-        board[0][7] = board[3][7];
-        board[2][7] = EMPTY;
-        board[3][7] = EMPTY;
-      }
+  /**
+   * @return the result of the current result token, without creating a string
+   */
+  private static String getResult(PGNTokenizer tokenizer) {
+    if (tokenizer.textEquals("1-0")) {
+      return "1-0";
+    } else if (tokenizer.textEquals("0-1")) {
+      return "0-1";
+    } else if (tokenizer.textEquals("1/2-1/2")) {
+      return "1/2-1/2";
     }
+
+    return "*";
   }
 
-  private static void handleGameStateBackMove(
-      PGNMove move, final PGNParserGameState state) {
+  /**
+   * Start a variation replacing the last move played in a state, taking the move back.
+   */
+  static void startVariation(PGNParserGameState state) {
+    handleGameStateBackMove(state.startVariation(), state);
+  }
 
-    int[][] board = state.board;
+  /**
+   * End the innermost variation of a state, taking back its moves and playing again the move
+   * it replaced.
+   */
+  static void endVariation(PGNParserGameState state) {
+    while (state.isVariationMove()) {
+      handleGameStateBackMove(state.rollbackMove(), state);
+    }
 
-    if (move.isCastle()) {
-      rollbackCastling(move, state);
-    } else {
-      String from = move.getFromSquare();
-      String to = move.getToSquare();
-      int color = state.currentPlayer;
+    handleGameStateForwardMove(state.endVariation(), state);
+  }
 
-      if (move.isPromoted()) {
-        board[getChessATOI(from.charAt(0))][from.charAt(1) - '1'] = BLACK_PAWN * color;
-      } else {
-        board[getChessATOI(from.charAt(0))][from.charAt(1) - '1'] = board[getChessATOI(
-            to.charAt(0))][to.charAt(1) - '1'];
-      }
+  /**
+   * Pack a move into an int: the origin and destination squares, the signed moving piece and
+   * the {@link PGNVisitor} flags of the move.
+   */
+  private static int packMove(int from, int to, int piece, int flags) {
+    return from | to << 6 | (piece + BLACK_KING) << 12 | flags << 16;
+  }
 
-      if (move.isCaptured()) {
-        int piece = pieceToInt(move.getCapturedPiece(), color * -1);
+  private static int getMoveFrom(int move) {
+    return move & 0x3F;
+  }
 
-        if (move.isEnpassant()) {
-          String ep = move.getEnpassantPieceSquare();
-          board[getChessATOI(ep.charAt(0))][ep.charAt(1) - '1'] = piece;
-        } else {
-          board[getChessATOI(to.charAt(0))][to.charAt(1) - '1'] = piece;
-        }
-      } else {
-        board[getChessATOI(to.charAt(0))][to.charAt(1) - '1'] = EMPTY;
-      }
-    }
+  private static int getMoveTo(int move) {
+    return move >>> 6 & 0x3F;
   }
 
-  private static void processMoveToken(String token, PGNMoveContainer container,
-      final PGNParserGameState state)
-      throws PGNParseException {
-    token = token.replaceAll("\\s*\\d+\\.+\\s*", "");
+  private static int getMovePiece(int move) {
+    return (move >>> 12 & 0xF) - BLACK_KING;
+  }
 
-    if (token.length() > 0) {
-      try {
-        handleToken(token, container, state);
-      } catch (RuntimeException e) {
-        throw new PGNParseException(token);
-      }
-    }
+  private static int getMoveFlags(int move) {
+    return move >>> 16;
   }
 
-  private static void processCommentToken(String token,
-      PGNMoveContainer container) throws PGNParseException {
-    PGNMove lastMove = getLastPGNMove(container);
+  private static boolean isCastle(int flags) {
+    return (flags & (PGNVisitor.KING_SIDE_CASTLE | PGNVisitor.QUEEN_SIDE_CASTLE)) != 0;
+  }
 
-    if (lastMove != null) {
-      lastMove.setComment(token);
+  /**
+   * Move the king and rook of a castling move on a board, or back to their initial squares.
+   * The position key is not updated, as it is restored from the undo records.
+   */
+  private static void moveCastlingPieces(boolean kingSide, int color,
+      final BitboardPosition board, boolean rollback) {
+    int rank = color == W ? 0 : 7;
+    int kingFile = kingSide ? 6 : 2;
+    int rookFile = kingSide ? 7 : 0;
+    int king = BitboardPosition.square(4, rank);
+    int rook = BitboardPosition.square(rookFile, rank);
+    int castledKing = BitboardPosition.square(kingFile, rank);
+    int castledRook = BitboardPosition.square((4 + kingFile) / 2, rank);
+
+    if (rollback) {
+      board.set(king, board.get(castledKing));
+      board.set(rook, board.get(castledRook));
+      board.set(castledKing, EMPTY);
+      board.set(castledRook, EMPTY);
     } else {
-      throw new PGNParseException(token);
+      board.set(castledKing, board.get(king));
+      board.set(castledRook, board.get(rook));
+      board.set(king, EMPTY);
+      board.set(rook, EMPTY);
     }
   }
 
-  private static PGNMove getLastPGNMove(
-      PGNMoveContainer container) {
-    int movesCount = container.getMovesCount();
-
-    return movesCount > 0 ? container.getMove(movesCount - 1) : null;
+  private static void movePiece(PGNParserGameState state, int rank, int fromFile,
+      int toFile) {
+    movePiece(state, BitboardPosition.square(fromFile, rank),
+        BitboardPosition.square(toFile, rank));
   }
 
-  static PGNMove parseMove(String move) throws PGNParseException {
-    PGNMove pgnMove = new PGNMove();
-    pgnMove.setFullMove(move);
+  private static void movePiece(PGNParserGameState state, int from, int to) {
+    int piece = state.board.get(from);
+    state.board.set(to, piece);
+    state.board.set(from, EMPTY);
 
-    if (move.contains("+")) {
-      pgnMove.setChecked(true);
-      move = move.replace("+", "");
+    if (state.hashing) {
+      state.zobristKey ^= Zobrist.piece(piece, from) ^ Zobrist.piece(piece, to);
     }
+  }
+
+  private static void setPiece(PGNParserGameState state, int square, int piece) {
+    if (state.hashing) {
+      int oldPiece = state.board.get(square);
 
-    if (move.contains("#")) {
-      pgnMove.setCheckMated(true);
-      move = move.replace("#", "");
+      if (oldPiece != EMPTY) {
+        state.zobristKey ^= Zobrist.piece(oldPiece, square);
+      }
+
+      if (piece != EMPTY) {
+        state.zobristKey ^= Zobrist.piece(piece, square);
+      }
     }
 
-    if (move.equals("0-0") || move.equals("O-O")) {
-      pgnMove.setKingSideCastle(true);
-    } else if (move.equals("0-0-0") || move.equals("O-O-O")) {
-      pgnMove.setQueenSideCastle(true);
+    state.board.set(square, piece);
+  }
+
+  private static void handleGameStateBackMove(int move, final PGNParserGameState state) {
+    BitboardPosition board = state.board;
+    int flags = getMoveFlags(move);
+    int color = Integer.signum(getMovePiece(move));
+
+    if (isCastle(flags)) {
+      moveCastlingPieces((flags & PGNVisitor.KING_SIDE_CASTLE) != 0, color, board, true);
     } else {
+      int from = getMoveFrom(move);
+      int to = getMoveTo(move);
 
-      String piece;
-
-      if (move.startsWith(PAWN)) {
-        piece = PAWN;
-      } else if (move.startsWith(KNIGHT)) {
-        piece = KNIGHT;
-      } else if (move.startsWith(BISHOP)) {
-        piece = BISHOP;
-      } else if (move.startsWith(ROOK)) {
-        piece = ROOK;
-      } else if (move.startsWith(QUEEN)) {
-        piece = QUEEN;
-      } else if (move.startsWith(KING)) {
-        piece = KING;
+      if (PGNVisitor.getPromotion(flags) != EMPTY) {
+        board.set(from, BLACK_PAWN * color);
       } else {
-        piece = PAWN;
+        board.set(from, board.get(to));
       }
 
-      pgnMove.setPiece(piece);
+      board.set(to, EMPTY);
+      int capturedPiece = PGNVisitor.getCapturedPiece(flags);
 
-      if (move.contains("x")) {
-        pgnMove.setCaptured(true);
-        move = move.replace("x", "");
-      }
-
-      if (move.contains("=")) {
-        String promotedPiece = move.substring(move.indexOf('=') + 1);
-
-        if (promotedPiece.equals(PAWN)
-            || promotedPiece.equals(KNIGHT)
-            || promotedPiece.equals(BISHOP)
-            || promotedPiece.equals(ROOK)
-            || promotedPiece.equals(QUEEN)
-            || promotedPiece.equals(KING)) {
-          move = move.substring(0, move.indexOf('='));
-          pgnMove.setPromoted(true);
-          pgnMove.setPromotion(promotedPiece);
+      if (capturedPiece != EMPTY) {
+        if ((flags & PGNVisitor.EN_PASSANT) != 0) {
+          board.set(getEnpassantPieceSquare(from, to), capturedPiece * -color);
         } else {
-          throw new PGNParseException(pgnMove.getFullMove());
+          board.set(to, capturedPiece * -color);
         }
       }
     }
-
-    pgnMove.setMove(move);
-
-    return pgnMove;
   }
 
-  private static void handleToken(String token, PGNMoveContainer container,
-      final PGNParserGameState state)
-      throws PGNParseException {
-
-    PGNMove move = null;
-
-    if (container.getMovesCount() > 0) {
-      move = container.getMove(container.getMovesCount() - 1);
-    }
+  private static void handleGameStateForwardMove(int move, final PGNParserGameState state) {
+    BitboardPosition board = state.board;
+    int flags = getMoveFlags(move);
+    int color = Integer.signum(getMovePiece(move));
 
-    if (token.equals("e.p.")) {
-      return;
-    } else if (token.startsWith("{") && token.endsWith("}")) {
-      move.setComment(token.substring(1, token.length() - 1));
-    } else if (token.equals("1-0") || token.equals("0-1") || token.equals("1/2-1/2") || token
-        .equals("*")) {
-      move.setEndGameMarked(true);
-      move.setEndGameMark(token);
+    if (isCastle(flags)) {
+      moveCastlingPieces((flags & PGNVisitor.KING_SIDE_CASTLE) != 0, color, board, false);
     } else {
-      move = parseMove(token);
+      int from = getMoveFrom(move);
+      int to = getMoveTo(move);
+      int piece = board.get(from);
+      int promotion = PGNVisitor.getPromotion(flags);
 
-      if (validateMove(move)) {
-        if (state.currentPlayer == W) {
-          move.setColor(WHITE);
-        } else {
-          move.setColor(BLACK);
-        }
+      if ((flags & PGNVisitor.EN_PASSANT) != 0) {
+        board.set(getEnpassantPieceSquare(from, to), EMPTY);
+      }
 
-        container.addMove(move);
-        updateNextMove(move, state);
-        state.switchPlayer();
-      } else {
-        throw new PGNParseException(token);
+      if (promotion != EMPTY && promotion != BLACK_PAWN && promotion != BLACK_KING) {
+        piece = promotion * color;
       }
+
+      board.set(to, piece);
+      board.set(from, EMPTY);
     }
   }
 
-  private static void performCastling(final PGNMove move,
-      final PGNParserGameState state) {
-    int[][] board = state.board;
-
-    if (move.isKingSideCastle()) {
-      if (WHITE.equals(move.getColor())) {
-        board[6][0] = board[4][0];
-        board[5][0] = board[7][0];
-        board[4][0] = EMPTY;
-        board[7][0] = EMPTY;
-      } else {
-        board[6][7] = board[4][7];
-        board[5][7] = board[7][7];
-        board[4][7] = EMPTY;
-        board[7][7] = EMPTY;
-      }
-    } else {
-      if (WHITE.equals(move.getColor())) {
-        board[2][0] = board[4][0];
-        board[3][0] = board[0][0];
-        board[4][0] = EMPTY;
-        board[0][0] = EMPTY;
-      } else {
-        board[2][7] = board[4][7];
-        board[3][7] = board[0][7];
-        board[4][7] = EMPTY;
-        board[0][7] = EMPTY;
-      }
+  /**
+   * @return the square of the pawn taken by an en passant capture
+   */
+  static int getEnpassantPieceSquare(int from, int to) {
+    return BitboardPosition.square(BitboardPosition.file(to), BitboardPosition.rank(from));
+  }
 
-    }
+  static void processTagToken(PGNTokenizer tokenizer, PGNGame game)
+      throws PGNParseException {
+    String tagName = tokenizer.getTagName();
+    String tagValue = tokenizer.getTagValue();
+    checkTag(tokenizer, tagName, tagValue);
+    game.addTag(tagName, tagValue);
   }
 
-  private static void updateNextMove(final PGNMove move,
-      final PGNParserGameState state)
+  private static void checkTag(PGNTokenizer tokenizer, String tagName, String tagValue)
       throws PGNParseException {
-    int[][] board = state.board;
-    String strippedMove = move.getMove();
+    if (tagName == null || tagValue == null) {
+      throw new PGNParseException("Error in line " + tokenizer.getLine());
+    }
+  }
 
-    if (move.isCastle()) {
-      performCastling(move, state);
-    } else if (!move.isEndGameMarked()) {
-      switch (strippedMove.length()) {
-        case MOVE_TYPE_1_LENGTH:
-          handleMoveType1(move, strippedMove, state);
+  private static int processMoveToken(PGNTokenizer tokenizer, final PGNParserGameState state)
+      throws PGNParseException {
+    try {
+      return playMove(tokenizer, state);
+    } catch (RuntimeException e) {
+      throw new PGNParseException(tokenizer.getText());
+    }
+  }
 
-          break;
-        case MOVE_TYPE_2_LENGTH:
-          if (strippedMove.matches(MOVE_TYPE_2_RE)) {
-            handleMoveType2(move, strippedMove, state);
-          } else if (strippedMove.matches(MOVE_TYPE_5_RE)) {
-            handleMoveType5(move, strippedMove, state);
-          }
+  static PGNMove parseMove(String move) throws PGNParseException {
+    PGNMove pgnMove = new PGNMove();
+    pgnMove.setFullMove(move);
 
-          break;
-        case MOVE_TYPE_3_LENGTH:
-          if (strippedMove.matches(MOVE_TYPE_3_RE)) {
-            handleMoveType3(move, strippedMove, state);
-          } else if (strippedMove.matches(MOVE_TYPE_6_RE)) {
-            handleMoveType6(move, strippedMove, state);
-          }
+    int length = move.length();
+    char[] withoutChecks = new char[length];
+    char[] withoutCaptures = new char[length];
+    int withoutChecksLength = 0;
+    int withoutCapturesLength = 0;
+    int promotionIndex = -1;
 
-          break;
-        case MOVE_TYPE_4_LENGTH:
-          handleMoveType4(move, strippedMove, state);
+    for (int i = 0; i < length; i++) {
+      char ch = move.charAt(i);
 
-          break;
+      if (ch == '+') {
+        pgnMove.setChecked(true);
+        continue;
       }
 
-      int capturedPiece = board[getChessATOI(move.getToSquare().charAt(0))][
-          move.getToSquare().charAt(1) - '1'];
-      board[getChessATOI(move.getToSquare().charAt(0))][move.getToSquare().charAt(1)
-          - '1'] = board[getChessATOI(move.getFromSquare().charAt(0))][
-          move.getFromSquare().charAt(1) - '1'];
-      board[getChessATOI(move.getFromSquare().charAt(0))][move.getFromSquare().charAt(1)
-          - '1'] = EMPTY;
-
-      if (move.isEnpassantCapture()) {
-        capturedPiece = board[getChessATOI(move.getEnpassantPieceSquare().charAt(0))][
-            move.getEnpassantPieceSquare().charAt(1) - '1'];
-        board[getChessATOI(move.getEnpassantPieceSquare().charAt(0))][
-            move.getEnpassantPieceSquare().charAt(1) - '1'] = EMPTY;
+      if (ch == '#') {
+        pgnMove.setCheckMated(true);
+        continue;
       }
 
-      if (capturedPiece != EMPTY) {
-        switch (Math.abs(capturedPiece)) {
-          case BLACK_PAWN:
-            move.setCapturedPiece(PAWN);
-            break;
-          case BLACK_ROOK:
-            move.setCapturedPiece(ROOK);
-            break;
-          case BLACK_KNIGHT:
-            move.setCapturedPiece(KNIGHT);
-            break;
-          case BLACK_BISHOP:
-            move.setCapturedPiece(BISHOP);
-            break;
-          case BLACK_QUEEN:
-            move.setCapturedPiece(QUEEN);
-            break;
-          case BLACK_KING:
-            move.setCapturedPiece(KING);
-            break;
-        }
-      }
+      withoutChecks[withoutChecksLength++] = ch;
 
-      int color = state.currentPlayer;
-
-      if (move.isPromoted()) {
-        if (move.getPromotion().equals(QUEEN)) {
-          board[getChessATOI(move.getToSquare().charAt(0))][move.getToSquare().charAt(1) - '1'] =
-              BLACK_QUEEN * color;
-        } else if (move.getPromotion().equals(ROOK)) {
-          board[getChessATOI(move.getToSquare().charAt(0))][move.getToSquare().charAt(1) - '1'] =
-              BLACK_ROOK * color;
-        } else if (move.getPromotion().equals(BISHOP)) {
-          board[getChessATOI(move.getToSquare().charAt(0))][move.getToSquare().charAt(1) - '1'] =
-              BLACK_BISHOP * color;
-        } else if (move.getPromotion().equals(KNIGHT)) {
-          board[getChessATOI(move.getToSquare().charAt(0))][move.getToSquare().charAt(1) - '1'] =
-              BLACK_KNIGHT * color;
-        }
+      if (ch == 'x') {
+        continue;
       }
 
-    }
-
-  }
+      if (ch == '=' && promotionIndex == -1) {
+        promotionIndex = withoutCapturesLength;
+      }
 
-  private static void handleMoveType1(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
-      throws PGNParseException {
-    int tohPos = getChessATOI(strippedMove.charAt(0));
-    int tovPos = strippedMove.charAt(1) - '1';
-    int piece = BLACK_PAWN * state.currentPlayer;
-    int fromvPos = getPawnvPos(tohPos, tovPos, piece, state.board);
-    int fromhPos = tohPos;
-
-    if (fromvPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
+      withoutCaptures[withoutCapturesLength++] = ch;
     }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
-  }
+    if (isCastle(withoutChecks, withoutChecksLength, 3)) {
+      pgnMove.setKingSideCastle(true);
+    } else if (isCastle(withoutChecks, withoutChecksLength, 5)) {
+      pgnMove.setQueenSideCastle(true);
+    } else {
+      String piece = withoutChecksLength > 0 ? getPiece(withoutChecks[0]) : null;
+      pgnMove.setPiece(piece != null ? piece : PAWN);
 
-  private static void handleMoveType2(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
-      throws PGNParseException {
-    int piece;
-    int tohPos = getChessATOI(strippedMove.charAt(1));
-    int tovPos = strippedMove.charAt(2) - '1';
-    int fromvPos = -1;
-    int fromhPos = -1;
-    int color = state.currentPlayer;
-    int[][] board = state.board;
-
-    if (strippedMove.charAt(0) == PAWN.charAt(0)) {
-      piece = BLACK_PAWN * color;
-      fromvPos = getPawnvPos(tohPos, tovPos, piece, board);
-      fromhPos = tohPos;
-    } else if (strippedMove.charAt(0) == KNIGHT.charAt(0)) {
-      piece = BLACK_KNIGHT * color;
-      int[] fromPos = getSingleMovePiecePos(tohPos, tovPos, piece, board, KNIGHT_SEARCH_PATH);
-
-      if (fromPos == null) {
-        throw new PGNParseException("Invalid move: " + move.getFullMove());
+      if (withoutCapturesLength != withoutChecksLength) {
+        pgnMove.setCaptured(true);
       }
 
-      fromhPos = fromPos[0];
-      fromvPos = fromPos[1];
-    } else if (strippedMove.charAt(0) == BISHOP.charAt(0)) {
-      piece = BLACK_BISHOP * color;
-      int[] fromPos = getMultiMovePiecePos(tohPos, tovPos, piece, board, BISHOP_SEARCH_PATH);
-
-      if (fromPos == null) {
-        throw new PGNParseException("Invalid move: " + move.getFullMove());
-      }
+      if (promotionIndex != -1) {
+        int promotion = withoutCapturesLength == promotionIndex + 2
+            ? getPromotionType(withoutCaptures[promotionIndex + 1]) : EMPTY;
 
-      fromhPos = fromPos[0];
-      fromvPos = fromPos[1];
-    } else if (strippedMove.charAt(0) == ROOK.charAt(0)) {
-      piece = BLACK_ROOK * color;
-      int[] fromPos = getMultiMovePiecePos(tohPos, tovPos, piece, board, ROOK_SEARCH_PATH);
+        if (promotion == EMPTY) {
+          throw new PGNParseException(move);
+        }
 
-      if (fromPos == null) {
-        throw new PGNParseException(move.getFullMove());
+        pgnMove.setPromoted(true);
+        pgnMove.setPromotion(PIECES[promotion]);
+        withoutCapturesLength = promotionIndex;
       }
 
-      fromhPos = fromPos[0];
-      fromvPos = fromPos[1];
-    } else if (strippedMove.charAt(0) == QUEEN.charAt(0)) {
-      piece = BLACK_QUEEN * color;
-      int[] fromPos = getMultiMovePiecePos(tohPos, tovPos, piece, board, QUEEN_KING_SEARCH_PATH);
+      pgnMove.setMove(new String(withoutCaptures, 0, withoutCapturesLength));
+      return pgnMove;
+    }
 
-      if (fromPos == null) {
-        throw new PGNParseException("Invalid move: " + move.getFullMove());
-      }
+    pgnMove.setMove(new String(withoutChecks, 0, withoutChecksLength));
+    return pgnMove;
+  }
 
-      fromhPos = fromPos[0];
-      fromvPos = fromPos[1];
-    } else if (strippedMove.charAt(0) == KING.charAt(0)) {
-      piece = BLACK_KING * color;
-      int[] fromPos = getSingleMovePiecePos(tohPos, tovPos, piece, board, QUEEN_KING_SEARCH_PATH);
+  private static boolean isCastle(char[] move, int length, int castleLength) {
+    if (length != castleLength) {
+      return false;
+    }
 
-      if (fromPos == null) {
-        throw new PGNParseException("Invalid move: " + move.getFullMove());
-      }
+    char castle = move[0];
 
-      fromhPos = fromPos[0];
-      fromvPos = fromPos[1];
+    if (castle != 'O' && castle != '0') {
+      return false;
     }
 
-    if (fromvPos == -1 || fromhPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
+    for (int i = 1; i < length; i += 2) {
+      if (move[i] != '-' || move[i + 1] != castle) {
+        return false;
+      }
     }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
+    return true;
   }
 
-  private static void handleMoveType3(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
-      throws PGNParseException {
-    int piece = WHITE_PAWN;
-    int fromhPos = getChessATOI(strippedMove.charAt(1));
-    int tohPos = getChessATOI(strippedMove.charAt(2));
-    int tovPos = strippedMove.charAt(3) - '1';
-    int fromvPos = -1;
-    int color = state.currentPlayer;
-    int[][] board = state.board;
-
-    if (strippedMove.charAt(0) == PAWN.charAt(0)) {
-      piece = BLACK_PAWN * color;
-      fromvPos = getPawnvPos(fromhPos, tovPos, piece, board);
-    } else if (strippedMove.charAt(0) == KNIGHT.charAt(0)) {
-      piece = BLACK_KNIGHT * color;
-      fromvPos = getSingleMovePiecevPos(tohPos, tovPos, fromhPos, piece, board, KNIGHT_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == BISHOP.charAt(0)) {
-      piece = BLACK_BISHOP * color;
-      fromvPos = getMultiMovePiecevPos(tohPos, tovPos, fromhPos, piece, board, BISHOP_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == ROOK.charAt(0)) {
-      piece = BLACK_ROOK * color;
-      fromvPos = getMultiMovePiecevPos(tohPos, tovPos, fromhPos, piece, board, ROOK_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == QUEEN.charAt(0)) {
-      piece = BLACK_QUEEN * color;
-      fromvPos = getMultiMovePiecevPos(tohPos, tovPos, fromhPos, piece, board,
-          QUEEN_KING_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == KING.charAt(0)) {
-      piece = BLACK_KING * color;
-      fromvPos = getSingleMovePiecevPos(tohPos, tovPos, fromhPos, piece, board,
-          QUEEN_KING_SEARCH_PATH);
-    }
+  private static String getPiece(char ch) {
+    return PIECES[getPieceType(ch)];
+  }
+
+  /**
+   * @return the type of the piece a pawn can promote to, {@code 0} for any other letter
+   */
+  private static int getPromotionType(char ch) {
+    int type = getPieceType(ch);
+    return type >= BLACK_KNIGHT && type <= BLACK_QUEEN ? type : EMPTY;
+  }
 
-    if (fromvPos == -1 || fromhPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
+  private static int getPieceType(char ch) {
+    switch (ch) {
+      case 'P':
+        return BLACK_PAWN;
+      case 'N':
+        return BLACK_KNIGHT;
+      case 'B':
+        return BLACK_BISHOP;
+      case 'R':
+        return BLACK_ROOK;
+      case 'Q':
+        return BLACK_QUEEN;
+      case 'K':
+        return BLACK_KING;
+      default:
+        return EMPTY;
     }
+  }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
+  private static boolean isFile(char ch) {
+    return ch >= 'a' && ch <= 'h';
   }
 
-  private static void handleMoveType4(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
-      throws PGNParseException {
-    int piece = WHITE_PAWN;
-    int fromhPos = getChessATOI(strippedMove.charAt(1));
-    int fromvPos = strippedMove.charAt(2) - '1';
-    int tohPos = getChessATOI(strippedMove.charAt(3));
-    int tovPos = strippedMove.charAt(4) - '1';
-    int color = state.currentPlayer;
-    int[][] board = state.board;
-
-    if (strippedMove.charAt(0) == PAWN.charAt(0)) {
-      piece = BLACK_PAWN * color;
-    } else if (strippedMove.charAt(0) == KNIGHT.charAt(0)) {
-      piece = BLACK_KNIGHT * color;
-    } else if (strippedMove.charAt(0) == BISHOP.charAt(0)) {
-      piece = BLACK_BISHOP * color;
-    } else if (strippedMove.charAt(0) == ROOK.charAt(0)) {
-      piece = BLACK_ROOK * color;
-    } else if (strippedMove.charAt(0) == QUEEN.charAt(0)) {
-      piece = BLACK_QUEEN * color;
-    } else if (strippedMove.charAt(0) == KING.charAt(0)) {
-      piece = BLACK_KING * color;
-    }
+  private static boolean isRank(char ch) {
+    return ch >= '1' && ch <= '8';
+  }
 
-    if (fromvPos == -1 || fromhPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
-    }
+  /**
+   * Classify a move stripped of check, capture and promotion marks by its shape.
+   *
+   * @return one of the {@code MOVE_TYPE_} constants
+   */
+  private static int getMoveType(char[] move, int length) {
+    switch (length) {
+      case 2:
+        if (isFile(move[0]) && isRank(move[1])) {
+          return MOVE_TYPE_1;
+        }
+
+        break;
+      case 3:
+        if (isFile(move[1]) && isRank(move[2])) {
+          if (getPieceType(move[0]) != EMPTY) {
+            return MOVE_TYPE_2;
+          } else if (isFile(move[0])) {
+            return MOVE_TYPE_5;
+          }
+        }
+
+        break;
+      case 4:
+        if (getPieceType(move[0]) != EMPTY && isFile(move[2]) && isRank(move[3])) {
+          if (isFile(move[1])) {
+            return MOVE_TYPE_3;
+          } else if (isRank(move[1])) {
+            return MOVE_TYPE_6;
+          }
+        }
+
+        break;
+      case 5:
+        if (getPieceType(move[0]) != EMPTY && isFile(move[1]) && isRank(move[2])
+            && isFile(move[3]) && isRank(move[4])) {
+          return MOVE_TYPE_4;
+        }
 
-    if (board[fromhPos][fromvPos] != piece) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
+        break;
     }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
+    return MOVE_TYPE_INVALID;
   }
 
-  private static void handleMoveType5(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
+  /**
+   * Play a move given by its squares rather than in SAN. The SAN of the move is generated
+   * from the position, so the move gets the same fields as a parsed one.
+   *
+   * @param from the origin square, the king square for castling
+   * @param to the destination square, the king destination for castling
+   * @param promotion the signed or unsigned code of the promotion piece, {@code 0} if none
+   * @param checked whether the move is marked as check
+   * @param checkMated whether the move is marked as checkmate
+   * @return the played move
+   * @throws PGNParseException if there is no piece of the side to move on the origin square,
+   *     or the move is not legal
+   */
+  static PGNMove handleMove(int from, int to, int promotion, boolean checked,
+      boolean checkMated, PGNMoveContainer container, PGNParserGameState state)
       throws PGNParseException {
-    int fromhPos = getChessATOI(strippedMove.charAt(0));
-    int tohPos = getChessATOI(strippedMove.charAt(1));
-    int tovPos = strippedMove.charAt(2) - '1';
-    int color = state.currentPlayer;
-    int[][] board = state.board;
-    int piece = BLACK_PAWN * color;
-    int fromvPos = getPawnvPos(fromhPos, tovPos, piece, board);
-
-    if (fromvPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
-    }
+    PGNMove move = SANFormatter.createMove(state.board, state.currentPlayer, from, to,
+        Math.abs(promotion), checked, checkMated);
+    int flags = (checked ? PGNVisitor.CHECK : 0) | (checkMated ? PGNVisitor.CHECKMATE : 0);
+    int packedMove;
 
-    if (move.isCaptured()) {
-      if (board[tohPos][tovPos] == EMPTY) {
-        int enPassantvPos = tovPos - (tovPos - fromvPos);
+    if (move.isCastle()) {
+      packedMove = castle(move.isKingSideCastle(), flags, state);
+    } else {
+      packedMove = playMove(Math.abs(state.board.get(from)), from, to, Math.abs(promotion),
+          flags, state);
 
-        if (board[tohPos][enPassantvPos] == -1 * BLACK_PAWN * color) {
-          move.setEnpassantCapture(true);
-          move.setEnpassantPieceSquare(getChessCoords(tohPos, enPassantvPos));
-        } else {
-          throw new PGNParseException(
-              "Invalid move (Enpassant capture expected): " + move.getFullMove());
-        }
+      if (packedMove == -1) {
+        throw new PGNParseException(
+            "Invalid move (Enpassant capture expected): " + move.getFullMove());
       }
     }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
+    container.addMove(move);
+    PGNGameBuilder.completeMove(move, getMoveFrom(packedMove), getMoveTo(packedMove),
+        getMovePiece(packedMove), getMoveFlags(packedMove), state);
+    return move;
   }
 
-  private static void handleMoveType6(
-      PGNMove move, String strippedMove,
-      final PGNParserGameState state)
+  /**
+   * Parse the current SAN token and play its move. The SAN is read into the buffers of the
+   * state, as written and stripped, so no objects are created for a valid move.
+   *
+   * @return the move, packed by {@link #packMove(int, int, int, int)}
+   */
+  private static int playMove(PGNTokenizer tokenizer, final PGNParserGameState state)
       throws PGNParseException {
-    int piece = WHITE_PAWN;
-    int fromvPos = strippedMove.charAt(1) - '1';
-    int tohPos = getChessATOI(strippedMove.charAt(2));
-    int tovPos = strippedMove.charAt(3) - '1';
-    int fromhPos = -1;
-    int color = state.currentPlayer;
-    int[][] board = state.board;
-
-    if (strippedMove.charAt(0) == PAWN.charAt(0)) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
-    } else if (strippedMove.charAt(0) == KNIGHT.charAt(0)) {
-      piece = BLACK_KNIGHT * color;
-      fromhPos = getSingleMovePiecehPos(tohPos, tovPos, fromvPos, piece, board, KNIGHT_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == BISHOP.charAt(0)) {
-      piece = BLACK_BISHOP * color;
-      fromhPos = getMultiMovePiecehPos(tohPos, tovPos, fromvPos, piece, board, BISHOP_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == ROOK.charAt(0)) {
-      piece = BLACK_ROOK * color;
-      fromhPos = getMultiMovePiecehPos(tohPos, tovPos, fromvPos, piece, board, ROOK_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == QUEEN.charAt(0)) {
-      piece = BLACK_QUEEN * color;
-      fromhPos = getMultiMovePiecehPos(tohPos, tovPos, fromvPos, piece, board,
-          QUEEN_KING_SEARCH_PATH);
-    } else if (strippedMove.charAt(0) == KING.charAt(0)) {
-      piece = BLACK_KING * color;
-      fromhPos = getSingleMovePiecehPos(tohPos, tovPos, fromvPos, piece, board,
-          QUEEN_KING_SEARCH_PATH);
-    }
+    int start = tokenizer.getStart();
+    int end = tokenizer.getEnd();
+    int sanLength = end - start;
 
-    if (fromvPos == -1 || fromhPos == -1) {
-      throw new PGNParseException("Invalid move: " + move.getFullMove());
+    if (state.san.length < sanLength) {
+      state.san = new char[sanLength];
+      state.strippedSan = new char[sanLength];
     }
 
-    move.setFromSquare(getChessCoords(fromhPos, fromvPos));
-    move.setToSquare(getChessCoords(tohPos, tovPos));
-  }
+    char[] fullSan = state.san;
+    char[] san = state.strippedSan;
+    int flags = 0;
+    int length = 0;
 
-  private static int getChessATOI(char alfa) {
-    return alfa - 'a';
-  }
+    for (int i = 0; i < sanLength; i++) {
+      char ch = tokenizer.charAt(start + i);
+      fullSan[i] = ch;
 
-  private static String getChessCoords(int hPos, int vPos) {
-    return (char) ('a' + hPos) + "" + (vPos + 1);
-  }
-
-  private static int getPawnvPos(int hPos, int vPos, int piece, int[][] board) {
-    if (board[hPos][vPos + piece] == piece) {
-      return vPos + piece;
-    } else if (board[hPos][vPos + 2 * piece] == piece) {
-      return vPos + 2 * piece;
+      if (ch == '+') {
+        flags |= PGNVisitor.CHECK;
+      } else if (ch == '#') {
+        flags |= PGNVisitor.CHECKMATE;
+      } else {
+        san[length++] = ch;
+      }
     }
 
-    return -1;
-  }
+    state.sanLength = sanLength;
+    state.strippedSanLength = length;
 
-  private static int[] getSingleMovePiecePos(int hPos, int vPos, int piece, int[][] board,
-      int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      try {
-        if (board[hPos + moveData[i][0]][vPos + moveData[i][1]] == piece) {
-          if (Math.abs(piece) != BLACK_KING) {
-            if (isKingInCheckAfterMove(board, piece / Math.abs(piece), hPos + moveData[i][0],
-                vPos + moveData[i][1], hPos, vPos)) {
-              continue;
-            }
-          }
+    if (isCastle(san, length, 3) || isCastle(san, length, 5)) {
+      int move = castle(length == 3, flags, state);
 
-          return new int[]{hPos + moveData[i][0], vPos + moveData[i][1]};
-        }
-      } catch (IndexOutOfBoundsException e) {
+      if (move == -1) {
+        throw new PGNParseException("Invalid move: " + tokenizer.getText());
       }
+
+      return move;
     }
 
-    return null;
-  }
+    int strippedLength = 0;
+    int promotionIndex = -1;
 
-  private static int getSingleMovePiecevPos(int hPos, int vPos, int fromhPos, int piece,
-      int[][] board, int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      try {
-        if (board[hPos + moveData[i][0]][vPos + moveData[i][1]] == piece
-            && hPos + moveData[i][0] == fromhPos) {
-          if (Math.abs(piece) != BLACK_KING) {
-            if (isKingInCheckAfterMove(board, piece / Math.abs(piece), fromhPos,
-                vPos + moveData[i][1], hPos, vPos)) {
-              continue;
-            }
-          }
+    for (int i = 0; i < length; i++) {
+      char ch = san[i];
 
-          return vPos + moveData[i][1];
-        }
-      } catch (IndexOutOfBoundsException e) {
+      if (ch == 'x') {
+        flags |= PGNVisitor.CAPTURE;
+        continue;
       }
+
+      if (ch == '=' && promotionIndex == -1) {
+        promotionIndex = strippedLength;
+      }
+
+      san[strippedLength++] = ch;
     }
 
-    return -1;
-  }
+    int promotion = EMPTY;
 
-  private static int getSingleMovePiecehPos(int hPos, int vPos, int fromvPos, int piece,
-      int[][] board, int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      try {
-        if (board[hPos + moveData[i][0]][vPos + moveData[i][1]] == piece
-            && vPos + moveData[i][1] == fromvPos) {
-          if (Math.abs(piece) != BLACK_KING) {
-            if (isKingInCheckAfterMove(board, piece / Math.abs(piece), hPos + moveData[i][0],
-                vPos + moveData[i][1], hPos, vPos)) {
-              continue;
-            }
-          }
+    if (promotionIndex != -1) {
+      if (strippedLength == promotionIndex + 2) {
+        promotion = getPromotionType(san[promotionIndex + 1]);
+      }
 
-          return hPos + moveData[i][0];
-        }
-      } catch (IndexOutOfBoundsException e) {
+      if (promotion == EMPTY) {
+        throw new PGNParseException(tokenizer.getText());
       }
+
+      strippedLength = promotionIndex;
     }
 
-    return -1;
-  }
+    state.strippedSanLength = strippedLength;
 
-  private static int[] getMultiMovePiecePos(int hPos, int vPos, int piece, int[][] board,
-      int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      int[] position = getMultiMovePiecePosRec(hPos, vPos, hPos, vPos, moveData[i][0],
-          moveData[i][1], piece, board);
+    BitboardPosition board = state.board;
+    int color = state.currentPlayer;
+    int piece;
+    int fromFile = -1;
+    int fromRank = -1;
+    int to;
+
+    switch (getMoveType(san, strippedLength)) {
+      case MOVE_TYPE_1:
+        piece = BLACK_PAWN;
+        to = getSquare(san, 0);
+        break;
+      case MOVE_TYPE_2:
+        piece = getPieceType(san[0]);
+        to = getSquare(san, 1);
+        break;
+      case MOVE_TYPE_3:
+        piece = getPieceType(san[0]);
+        fromFile = san[1] - 'a';
+        to = getSquare(san, 2);
+        break;
+      case MOVE_TYPE_4:
+        piece = getPieceType(san[0]);
+        fromFile = san[1] - 'a';
+        fromRank = san[2] - '1';
+        to = getSquare(san, 3);
+        break;
+      case MOVE_TYPE_5:
+        piece = BLACK_PAWN;
+        fromFile = san[0] - 'a';
+        to = getSquare(san, 1);
+        break;
+      case MOVE_TYPE_6:
+        piece = getPieceType(san[0]);
+        fromRank = san[1] - '1';
+        to = getSquare(san, 2);
+
+        if (piece == BLACK_PAWN) {
+          throw new PGNParseException("Invalid move: " + tokenizer.getText());
+        }
 
-      if (position != null) {
-        return position;
-      }
+        break;
+      default:
+        throw new PGNParseException(tokenizer.getText());
     }
 
-    return null;
-  }
+    int from;
 
-  private static int[] getMultiMovePiecePosRec(int originalhPos, int originalvPos, int hPos,
-      int vPos, int hAdd, int vAdd, int piece, int[][] board) {
-    hPos += hAdd;
-    vPos += vAdd;
+    if (piece == BLACK_PAWN) {
+      from = getPawnPos(board, color, to, fromFile, fromRank);
+    } else {
+      from = getPiecePos(board, piece, color, to, fromFile, fromRank);
+    }
 
-    try {
-      if (board[hPos][vPos] == piece) {
-        if (Math.abs(piece) != BLACK_KING) {
-          if (isKingInCheckAfterMove(board, piece / Math.abs(piece), hPos, vPos, originalhPos,
-              originalvPos)) {
-            return null;
-          }
-        }
+    if (from == -1) {
+      throw new PGNParseException("Invalid move: " + tokenizer.getText());
+    }
 
-        return new int[]{hPos, vPos};
-      } else if (board[hPos][vPos] != EMPTY) {
-        return null;
-      }
-    } catch (IndexOutOfBoundsException e) {
-      return null;
+    int move = playMove(piece, from, to, promotion, flags, state);
+
+    if (move == -1) {
+      throw new PGNParseException(
+          "Invalid move (Enpassant capture expected): " + tokenizer.getText());
     }
 
-    return getMultiMovePiecePosRec(originalhPos, originalvPos, hPos, vPos, hAdd, vAdd, piece,
-        board);
+    return move;
   }
 
-  private static int getMultiMovePiecevPos(int hPos, int vPos, int fromhPos, int piece,
-      int[][] board, int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      int fromvPos = getMultiMovePiecevPosRec(hPos, vPos, hPos, vPos, moveData[i][0],
-          moveData[i][1], fromhPos, piece, board);
+  /**
+   * Make a castling move.
+   *
+   * @return the move, packed by {@link #packMove(int, int, int, int)}, {@code -1} if the king
+   *     or the rook is not on its initial square or the squares between them are not empty
+   */
+  private static int castle(boolean kingSide, int flags, final PGNParserGameState state) {
+    int color = state.currentPlayer;
+    int rank = color == W ? 0 : 7;
+    int king = BitboardPosition.square(4, rank);
+    int castledKing = BitboardPosition.square(kingSide ? 6 : 2, rank);
 
-      if (fromvPos != -1) {
-        return fromvPos;
-      }
+    if (state.board.get(king) != BLACK_KING * color
+        || !SANFormatter.isCastling(state.board, color, king, castledKing, kingSide)) {
+      return -1;
     }
 
-    return -1;
+    startMove(state);
+
+    if (kingSide) {
+      movePiece(state, rank, 4, 6);
+      movePiece(state, rank, 7, 5);
+    } else {
+      movePiece(state, rank, 4, 2);
+      movePiece(state, rank, 0, 3);
+    }
+
+    state.castling &= color == W
+        ? ~(PGNParserGameState.WHITE_KING_CASTLE | PGNParserGameState.WHITE_QUEEN_CASTLE)
+        : ~(PGNParserGameState.BLACK_KING_CASTLE | PGNParserGameState.BLACK_QUEEN_CASTLE);
+    state.enpassantSquare = BitboardPosition.NO_SQUARE;
+    state.halfMovesCount++;
+    flags |= kingSide ? PGNVisitor.KING_SIDE_CASTLE : PGNVisitor.QUEEN_SIDE_CASTLE;
+    return endMove(state, packMove(king, castledKing, BLACK_KING * color, flags));
   }
 
-  private static int getMultiMovePiecevPosRec(int originalhPos, int originalvPos, int hPos,
-      int vPos, int hAdd, int vAdd, int fromhPos, int piece, int[][] board) {
-    hPos += hAdd;
-    vPos += vAdd;
+  /**
+   * Make a move whose origin square is known.
+   *
+   * @param piece the type of the moving piece
+   * @param promotion the type of the promotion piece, {@code 0} if none
+   * @param flags the check flags of the move
+   * @return the move, packed by {@link #packMove(int, int, int, int)}, {@code -1} if the move
+   *     is a pawn capture to an empty square which is no en passant capture
+   */
+  private static int playMove(int piece, int from, int to, int promotion, int flags,
+      final PGNParserGameState state) {
+    BitboardPosition board = state.board;
+    int color = state.currentPlayer;
+    int captureSquare = to;
 
-    try {
-      if (board[hPos][vPos] == piece && hPos == fromhPos) {
-        if (Math.abs(piece) != BLACK_KING) {
-          if (isKingInCheckAfterMove(board, piece / Math.abs(piece), hPos, vPos, originalhPos,
-              originalvPos)) {
-            return -1;
-          }
-        }
+    if (piece == BLACK_PAWN && BitboardPosition.file(from) != BitboardPosition.file(to)
+        && board.get(to) == EMPTY) {
+      captureSquare = getEnpassantPieceSquare(from, to);
 
-        return vPos;
-      } else if (board[hPos][vPos] != EMPTY) {
+      if (board.get(captureSquare) != -1 * BLACK_PAWN * color) {
         return -1;
       }
-    } catch (IndexOutOfBoundsException e) {
-      return -1;
+
+      flags |= PGNVisitor.EN_PASSANT;
     }
 
-    return getMultiMovePiecevPosRec(originalhPos, originalvPos, hPos, vPos, hAdd, vAdd, fromhPos,
-        piece, board);
-  }
+    startMove(state);
+    int capturedPiece = board.get(captureSquare);
+    setPiece(state, captureSquare, EMPTY);
+    movePiece(state, from, to);
 
-  private static int getMultiMovePiecehPos(int hPos, int vPos, int fromvPos, int piece,
-      int[][] board, int[][] moveData) {
-    for (int i = 0; i < moveData.length; i++) {
-      int fromhPos = getMultiMovePiecehPosRec(hPos, vPos, hPos, vPos, moveData[i][0],
-          moveData[i][1], fromvPos, piece, board);
+    if (promotion != EMPTY && promotion != BLACK_PAWN && promotion != BLACK_KING) {
+      setPiece(state, to, promotion * color);
+    }
 
-      if (fromhPos != -1) {
-        return fromhPos;
-      }
+    state.castling &= CASTLING_MASKS[from] & CASTLING_MASKS[to];
+
+    if (piece == BLACK_PAWN && Math.abs(to - from) == 16) {
+      state.enpassantSquare = (from + to) / 2;
+    } else {
+      state.enpassantSquare = BitboardPosition.NO_SQUARE;
     }
 
-    return -1;
-  }
+    if (piece == BLACK_PAWN || capturedPiece != EMPTY) {
+      state.halfMovesCount = 0;
+    } else {
+      state.halfMovesCount++;
+    }
 
-  private static int getMultiMovePiecehPosRec(int originalhPos, int originalvPos, int hPos,
-      int vPos, int hAdd, int vAdd, int fromvPos, int piece, int[][] board) {
-    hPos += hAdd;
-    vPos += vAdd;
+    flags |= promotion | Math.abs(capturedPiece) << 3;
+    return endMove(state, packMove(from, to, piece * color, flags));
+  }
 
-    try {
-      if (board[hPos][vPos] == piece && vPos == fromvPos) {
-        if (Math.abs(piece) != BLACK_KING) {
-          if (isKingInCheckAfterMove(board, piece / Math.abs(piece), hPos, vPos, originalhPos,
-              originalvPos)) {
-            return -1;
-          }
-        }
+  private static void startMove(PGNParserGameState state) {
+    state.startMove();
 
-        return hPos;
-      } else if (board[hPos][vPos] != EMPTY) {
-        return -1;
-      }
-    } catch (IndexOutOfBoundsException e) {
-      return -1;
+    if (state.hashing) {
+      state.zobristKey ^= Zobrist.state(state.board, state.currentPlayer, state.castling,
+          state.enpassantSquare);
     }
-
-    return getMultiMovePiecehPosRec(originalhPos, originalvPos, hPos, vPos, hAdd, vAdd, fromvPos,
-        piece, board);
   }
 
-  private static boolean validateMove(PGNMove move) {
-    String strippedMove = move.getMove();
+  private static int endMove(PGNParserGameState state, int move) {
+    state.switchPlayer();
 
-    if (move.isCastle()) {
-      return true;
-    } else if (move.isEndGameMarked()) {
-      return true;
-    } else if (strippedMove.length() == MOVE_TYPE_1_LENGTH) {
-      return strippedMove.matches(MOVE_TYPE_1_RE);
-    } else if (strippedMove.length() == MOVE_TYPE_2_LENGTH) {
-      return strippedMove.matches(MOVE_TYPE_2_RE) || strippedMove.matches(MOVE_TYPE_5_RE);
-    } else if (strippedMove.length() == MOVE_TYPE_3_LENGTH) {
-      return strippedMove.matches(MOVE_TYPE_3_RE) || strippedMove.matches(MOVE_TYPE_6_RE);
-    } else if (strippedMove.length() == MOVE_TYPE_4_LENGTH) {
-      return strippedMove.matches(MOVE_TYPE_4_RE);
+    if (state.hashing) {
+      state.zobristKey ^= Zobrist.state(state.board, state.currentPlayer, state.castling,
+          state.enpassantSquare);
     }
 
-    return false;
+    state.endMove(move);
+    return move;
   }
 
-  private static boolean isKingInCheckAfterMove(int[][] board, int color, int hPos, int vPos,
-      int tohPos, int tovPos) {
-    try {
-      int king = BLACK_KING * color;
-      int kinghPos = -1;
-      int kingvPos = -1;
-
-      OUT:
-      {
-        for (int i = 0; i < 8; i++) {
-          for (int j = 0; j < 8; j++) {
-            if (board[j][i] == king) {
-              kinghPos = j;
-              kingvPos = i;
-              break OUT;
-            }
-          }
-        }
-      }
-
-      if (kinghPos == -1 || kingvPos == -1) {
-        return false;
-      }
+  /**
+   * Find the pawn making a move. The pawn is looked for on the given file, one and then two
+   * ranks behind the destination square.
+   */
+  private static int getPawnPos(BitboardPosition board, int color, int to, int fromFile,
+      int fromRank) {
+    int pawn = BLACK_PAWN * color;
 
-      int piece = -1 * color * BLACK_BISHOP;
+    if (fromFile != -1 && fromRank != -1) {
+      int from = BitboardPosition.square(fromFile, fromRank);
+      return board.get(from) == pawn ? from : -1;
+    }
 
-      for (int i = 0; i < BISHOP_SEARCH_PATH.length; i++) {
-        if (isKingInCheckAfterMoveRec(board, piece, kinghPos, kingvPos, hPos, vPos, tohPos, tovPos,
-            BISHOP_SEARCH_PATH[i][0], BISHOP_SEARCH_PATH[i][1])) {
-          return true;
-        }
-      }
+    int file = fromFile != -1 ? fromFile : BitboardPosition.file(to);
 
-      piece = -1 * color * BLACK_ROOK;
+    for (int distance = 1; distance <= 2; distance++) {
+      int rank = BitboardPosition.rank(to) + distance * color;
 
-      for (int i = 0; i < ROOK_SEARCH_PATH.length; i++) {
-        if (isKingInCheckAfterMoveRec(board, piece, kinghPos, kingvPos, hPos, vPos, tohPos, tovPos,
-            ROOK_SEARCH_PATH[i][0], ROOK_SEARCH_PATH[i][1])) {
-          return true;
-        }
+      if (rank < 0 || rank > 7) {
+        return -1;
       }
 
-      piece = -1 * color * BLACK_QUEEN;
+      int from = BitboardPosition.square(file, rank);
 
-      for (int i = 0; i < QUEEN_KING_SEARCH_PATH.length; i++) {
-        if (isKingInCheckAfterMoveRec(board, piece, kinghPos, kingvPos, hPos, vPos, tohPos, tovPos,
-            QUEEN_KING_SEARCH_PATH[i][0], QUEEN_KING_SEARCH_PATH[i][1])) {
-          return true;
-        }
+      if (board.get(from) == pawn) {
+        return from;
       }
-    } catch (Exception e) {
     }
 
-    return false;
-
+    return -1;
   }
 
-  private static boolean isKingInCheckAfterMoveRec(int[][] board, int piece, int hPos, int vPos,
-      int skiphPos, int skipvPos, int tohPos, int tovPos, int hAdd, int vAdd) {
-    hPos += hAdd;
-    vPos += vAdd;
+  /**
+   * Find the piece making a move among the pieces of its type attacking the destination square,
+   * narrowed down by the disambiguation file and rank. Pieces which are pinned to their king are
+   * skipped.
+   */
+  private static int getPiecePos(BitboardPosition board, int piece, int color, int to,
+      int fromFile, int fromRank) {
+    long candidates = board.pieces(piece, color)
+        & board.attacksTo(piece, color, to, board.occupied());
 
-    if (hPos < 0 || hPos > 7 || vPos < 0 || vPos > 7 || (hPos == tohPos && vPos == tovPos)) {
-      return false;
+    if (fromFile != -1) {
+      candidates &= FILE_A << fromFile;
+    }
+
+    if (fromRank != -1) {
+      candidates &= RANK_1 << (8 * fromRank);
     }
 
-    if (board[hPos][vPos] == EMPTY || (skiphPos == hPos && skipvPos == vPos)) {
-      return isKingInCheckAfterMoveRec(board, piece, hPos, vPos, skiphPos, skipvPos, tohPos, tovPos,
-          hAdd, vAdd);
+    while (candidates != 0) {
+      int from = Long.numberOfTrailingZeros(candidates);
+
+      if (!board.isKingInCheckAfterMove(from, to, to, color)) {
+        return from;
+      }
+
+      candidates &= candidates - 1;
     }
 
-    return board[hPos][vPos] == piece;
+    return -1;
+  }
+
+  private static int getSquare(char[] move, int index) {
+    return BitboardPosition.square(move[index] - 'a', move[index + 1] - '1');
   }
 
   private static PGNParserGameState createDefaultGameState() {
     PGNParserGameState state = new PGNParserGameState();
+    int[] backRank = {BLACK_ROOK, BLACK_KNIGHT, BLACK_BISHOP, BLACK_QUEEN, BLACK_KING,
+        BLACK_BISHOP, BLACK_KNIGHT, BLACK_ROOK};
+    BitboardPosition board = new BitboardPosition();
+
+    for (int file = 0; file < 8; file++) {
+      board.set(BitboardPosition.square(file, 0), backRank[file] * W);
+      board.set(BitboardPosition.square(file, 1), BLACK_PAWN * W);
+      board.set(BitboardPosition.square(file, 6), BLACK_PAWN * B);
+      board.set(BitboardPosition.square(file, 7), backRank[file] * B);
+    }
 
-    state.board = new int[][]{
-        {WHITE_ROOK, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_ROOK,},
-        {WHITE_KNIGHT, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_KNIGHT,},
-        {WHITE_BISHOP, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_BISHOP,},
-        {WHITE_QUEEN, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_QUEEN,},
-        {WHITE_KING, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_KING,},
-        {WHITE_BISHOP, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_BISHOP,},
-        {WHITE_KNIGHT, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_KNIGHT,},
-        {WHITE_ROOK, WHITE_PAWN, EMPTY, EMPTY, EMPTY, EMPTY, BLACK_PAWN, BLACK_ROOK,},
-    };
-
+    state.board = board;
     state.currentPlayer = W;
 
     return state;
   }
 
-  private static PGNParserGameState createGameState(
+  static PGNParserGameState createGameState(
       FENPosition position) throws PGNParseException {
 
     PGNParserGameState state = new PGNParserGameState();
-    int[][] board = new int[8][8];
-
-    for (int i = 0; i < 8; i++) {
-      for (int j = 0; j < 8; j++) {
-        board[i][j] = EMPTY;
-      }
-    }
+    BitboardPosition board = new BitboardPosition();
 
     for (String square : position.getOccupiedSquares()) {
-      int[] coor = squareToCoordinates(square);
       Piece piece = position.getPiece(square);
-      board[coor[0]][coor[1]] = pieceToInt(piece.getType(), colorToInt(piece.getColor()));
+      board.set(BitboardPosition.square(square),
+          pieceToInt(piece.getType(), colorToInt(piece.getColor())));
     }
 
     state.board = board;
@@ -1158,22 +1130,32 @@ public class PGNParser implements PGN {
     String enpassantSquare = position.getEnpassantSquare();
 
     if (enpassantSquare != null) {
-      state.enpassantSquare = squareToCoordinates(enpassantSquare);
+      state.enpassantSquare = BitboardPosition.square(enpassantSquare);
+    }
+
+    state.castling = 0;
+
+    if (position.isWhiteKingCastleAvailable()) {
+      state.castling |= PGNParserGameState.WHITE_KING_CASTLE;
+    }
+
+    if (position.isWhiteQueenCastleAvailable()) {
+      state.castling |= PGNParserGameState.WHITE_QUEEN_CASTLE;
+    }
+
+    if (position.isBlackKingCastleAvailable()) {
+      state.castling |= PGNParserGameState.BLACK_KING_CASTLE;
+    }
+
+    if (position.isBlackQueenCastleAvailable()) {
+      state.castling |= PGNParserGameState.BLACK_QUEEN_CASTLE;
     }
 
-    state.whiteKingCastleAvailable = position.isWhiteKingCastleAvailable();
-    state.whiteQueenCastleAvailable = position.isWhiteQueenCastleAvailable();
-    state.blackKingCastleAvailable = position.isBlackKingCastleAvailable();
-    state.blackQueenCastleAvailable = position.isBlackQueenCastleAvailable();
     state.currentPlayer = colorToInt(position.getPlayerToMove());
 
     return state;
   }
 
-  private static int[] squareToCoordinates(String square) {
-    return new int[]{square.charAt(0) - 'a', square.charAt(1) - '1'};
-  }
-
   private static int colorToInt(String color) {
     if (color.equals("w")) {
       return W;
@@ -1200,7 +1182,7 @@ public class PGNParser implements PGN {
       p = BLACK_KING * color;
     }
 
-    return (int) p;
+    return p;
   }
 
 }
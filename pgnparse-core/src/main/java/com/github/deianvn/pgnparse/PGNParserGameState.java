@@ -1,47 +1,192 @@
 package com.github.deianvn.pgnparse;
 
+import java.util.Arrays;
+
 class PGNParserGameState {
 
-  int[][] board;
+  static final int WHITE_KING_CASTLE = 1;
 
-  int currentPlayer;
+  static final int WHITE_QUEEN_CASTLE = 2;
+
+  static final int BLACK_KING_CASTLE = 4;
 
-  boolean whiteKingCastleAvailable = true;
+  static final int BLACK_QUEEN_CASTLE = 8;
 
-  boolean whiteQueenCastleAvailable = true;
+  static final int ALL_CASTLES =
+      WHITE_KING_CASTLE | WHITE_QUEEN_CASTLE | BLACK_KING_CASTLE | BLACK_QUEEN_CASTLE;
 
-  boolean blackKingCastleAvailable = true;
+  private static final int RECORD_SIZE = 3;
 
-  boolean blackQueenCastleAvailable = true;
+  private static final int INITIAL_CAPACITY = 32;
 
-  int[] enpassantSquare;
+  private static final int INITIAL_VARIATIONS = 8;
+
+  BitboardPosition board;
+
+  int currentPlayer;
+
+  int castling = ALL_CASTLES;
+
+  int enpassantSquare = BitboardPosition.NO_SQUARE;
 
   int halfMovesCount;
 
-  int fullMovesCount;
+  int fullMovesCount = 1;
+
+  boolean hashing;
+
+  /**
+   * Whether the position after every move is recorded on the move.
+   */
+  boolean snapshots;
+
+  long zobristKey;
 
-  @Override
-  protected PGNParserGameState clone() {
-    int[][] newBoard = new int[board.length][];
+  /**
+   * Buffer for the SAN of the move being parsed, as written in the text.
+   */
+  char[] san = new char[16];
 
-    for (int i = 0; i < board.length; i++) {
-      newBoard[i] = board[i].clone();
+  int sanLength;
+
+  /**
+   * Buffer for the SAN of the move being parsed without its check marks and, unless the move
+   * is castling, without its capture mark and promotion.
+   */
+  char[] strippedSan = new char[16];
+
+  int strippedSanLength;
+
+  /**
+   * Undo records of the last move of the main line and the moves of the open variations, in
+   * the order they were played. A record holds the move, packed by {@link PGNParser}, and the
+   * position key, the player, castling rights and en passant square, and the move counters
+   * from before it.
+   */
+  private int[] moves = new int[INITIAL_CAPACITY];
+
+  private long[] records = new long[INITIAL_CAPACITY * RECORD_SIZE];
+
+  private int movesCount;
+
+  /**
+   * The number of moves played when every open variation started, and a record of the
+   * position after the move the variation replaces.
+   */
+  private int[] variationStarts;
+
+  private long[] variationRecords;
+
+  private int variationsCount;
+
+  /**
+   * Remember the castling rights, en passant square, move counters and position key before a
+   * move is made, so that they can be restored when the move is taken back.
+   */
+  void startMove() {
+    if (variationsCount == 0) {
+      // Of the main line only the last move is ever taken back, by a variation replacing it
+      movesCount = 0;
+    } else if (movesCount == moves.length) {
+      moves = Arrays.copyOf(moves, movesCount * 2);
+      records = Arrays.copyOf(records, movesCount * 2 * RECORD_SIZE);
     }
 
-    PGNParserGameState gameState = new PGNParserGameState();
-    gameState.board = newBoard;
-    gameState.currentPlayer = currentPlayer;
-    gameState.whiteKingCastleAvailable = whiteKingCastleAvailable;
-    gameState.whiteQueenCastleAvailable = whiteQueenCastleAvailable;
-    gameState.blackKingCastleAvailable = blackKingCastleAvailable;
-    gameState.blackQueenCastleAvailable = blackQueenCastleAvailable;
-    gameState.enpassantSquare = enpassantSquare;
+    save(records, movesCount++);
+  }
 
-    return gameState;
+  /**
+   * Record the move started last, once it has been made.
+   */
+  void endMove(int move) {
+    moves[movesCount - 1] = move;
+  }
+
+  /**
+   * Restore the player, castling rights, en passant square, move counters and position key
+   * from before the last move. The board is rolled back separately.
+   *
+   * @return the move taken back
+   */
+  int rollbackMove() {
+    restore(records, --movesCount);
+    return moves[movesCount];
+  }
+
+  /**
+   * Start a variation replacing the last move. The state after the move is remembered for
+   * {@link #endVariation()} and the state before it is restored. The board is rolled back
+   * separately.
+   *
+   * @return the move the variation replaces
+   */
+  int startVariation() {
+    if (variationStarts == null) {
+      variationStarts = new int[INITIAL_VARIATIONS];
+      variationRecords = new long[INITIAL_VARIATIONS * RECORD_SIZE];
+    } else if (variationsCount == variationStarts.length) {
+      variationStarts = Arrays.copyOf(variationStarts, variationsCount * 2);
+      variationRecords = Arrays.copyOf(variationRecords, variationsCount * 2 * RECORD_SIZE);
+    }
+
+    variationStarts[variationsCount] = movesCount;
+    save(variationRecords, variationsCount++);
+    restore(records, movesCount - 1);
+    return moves[movesCount - 1];
+  }
+
+  /**
+   * @return whether the last move was played in the innermost open variation
+   */
+  boolean isVariationMove() {
+    return variationsCount > 0 && movesCount > variationStarts[variationsCount - 1];
+  }
+
+  /**
+   * @return whether a move has been played in the current line, the innermost open variation
+   *     or the main line
+   */
+  boolean isLineStarted() {
+    return variationsCount > 0 ? isVariationMove() : movesCount > 0;
+  }
+
+  boolean isInVariation() {
+    return variationsCount > 0;
+  }
+
+  /**
+   * End the innermost variation, once all of its moves have been rolled back, and restore the
+   * state after the move it replaced. The board is played forward separately.
+   *
+   * @return the move the variation replaced
+   */
+  int endVariation() {
+    restore(variationRecords, --variationsCount);
+    return moves[movesCount - 1];
+  }
+
+  private void save(long[] to, int index) {
+    int offset = index * RECORD_SIZE;
+    to[offset] = zobristKey;
+    to[offset + 1] = castling | (long) enpassantSquare << 4 | (long) currentPlayer << 32;
+    to[offset + 2] = (long) fullMovesCount << 32 | (halfMovesCount & 0xFFFFFFFFL);
+  }
+
+  private void restore(long[] from, int index) {
+    int offset = index * RECORD_SIZE;
+    zobristKey = from[offset];
+    castling = (int) from[offset + 1] & 0xF;
+    enpassantSquare = (int) from[offset + 1] >>> 4;
+    currentPlayer = (int) (from[offset + 1] >> 32);
+    fullMovesCount = (int) (from[offset + 2] >>> 32);
+    halfMovesCount = (int) from[offset + 2];
   }
 
   void switchPlayer() {
-    enpassantSquare = null;
+    if (currentPlayer == PGNParser.B) {
+      fullMovesCount++;
+    }
+
     currentPlayer *= -1;
   }
 }
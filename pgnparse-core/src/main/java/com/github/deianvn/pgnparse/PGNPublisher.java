@@ -0,0 +1,224 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Publishes the games of a source as they are requested. Game texts are read only to fill the
+ * demand of the subscriber, parsed on the executor with at most a few games in flight per
+ * processor, and delivered in source order.
+ */
+final class PGNPublisher implements Flow.Publisher<PGNParseResult> {
+
+  private static final int GAMES_IN_FLIGHT_PER_PROCESSOR = 2;
+
+  private final Supplier<Stream<String>> pgns;
+
+  private final PGNParseOptions options;
+
+  private final Executor executor;
+
+  PGNPublisher(Supplier<Stream<String>> pgns, PGNParseOptions options, Executor executor) {
+    this.pgns = pgns;
+    this.options = options;
+    this.executor = executor;
+  }
+
+  @Override
+  public void subscribe(Flow.Subscriber<? super PGNParseResult> subscriber) {
+    Objects.requireNonNull(subscriber);
+    Stream<String> games;
+
+    try {
+      games = pgns.get();
+    } catch (IllegalStateException | UncheckedIOException e) {
+      subscriber.onSubscribe(new Flow.Subscription() {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+      });
+      subscriber.onError(e);
+      return;
+    }
+
+    GameSubscription subscription = new GameSubscription(subscriber, games);
+    subscriber.onSubscribe(subscription);
+  }
+
+  private final class GameSubscription implements Flow.Subscription {
+
+    private final Flow.Subscriber<? super PGNParseResult> subscriber;
+
+    private final Stream<String> games;
+
+    private final Iterator<String> iterator;
+
+    private final int maxInFlight =
+        Runtime.getRuntime().availableProcessors() * GAMES_IN_FLIGHT_PER_PROCESSOR;
+
+    /**
+     * Parses in source order, only accessed by the drain loop.
+     */
+    private final Queue<CompletableFuture<PGNParseResult>> inFlight = new ArrayDeque<>();
+
+    private final AtomicLong requested = new AtomicLong();
+
+    /**
+     * Number of pending drain requests, the drain loop runs while it is not {@code 0}.
+     */
+    private final AtomicInteger work = new AtomicInteger();
+
+    private volatile boolean cancelled;
+
+    private volatile Throwable requestError;
+
+    private boolean exhausted;
+
+    private int gameNumber;
+
+    GameSubscription(Flow.Subscriber<? super PGNParseResult> subscriber, Stream<String> games) {
+      this.subscriber = subscriber;
+      this.games = games;
+      this.iterator = games.iterator();
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        requestError = new IllegalArgumentException("Non-positive request: " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, added) -> {
+          long sum = current + added;
+          return sum < 0 ? Long.MAX_VALUE : sum;
+        });
+      }
+
+      schedule();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      schedule();
+    }
+
+    private void schedule() {
+      if (work.getAndIncrement() == 0) {
+        try {
+          executor.execute(this::drain);
+        } catch (RuntimeException e) {
+          release();
+          subscriber.onError(e);
+        }
+      }
+    }
+
+    /**
+     * Deliver the parsed games at the head of the queue and start parsing the next games.
+     * Leaving the loop without releasing the work counter makes the subscription terminal.
+     */
+    private void drain() {
+      int missed = 1;
+
+      do {
+        try {
+          if (cancelled) {
+            release();
+            return;
+          }
+
+          if (requestError != null) {
+            release();
+            subscriber.onError(requestError);
+            return;
+          }
+
+          long demand = requested.get();
+          long emitted = 0;
+
+          while (emitted != demand && !inFlight.isEmpty() && inFlight.peek().isDone()) {
+            PGNParseResult result = inFlight.poll().join();
+
+            if (result != null) {
+              subscriber.onNext(result);
+              emitted++;
+            }
+
+            if (cancelled) {
+              release();
+              return;
+            }
+          }
+
+          if (emitted != 0 && demand != Long.MAX_VALUE) {
+            demand = requested.addAndGet(-emitted);
+          }
+
+          while (!exhausted && inFlight.size() < Math.min(demand, maxInFlight)) {
+            if (!iterator.hasNext()) {
+              exhausted = true;
+              break;
+            }
+
+            int number = gameNumber++;
+            String pgn = iterator.next();
+            CompletableFuture<PGNParseResult> parse =
+                CompletableFuture.supplyAsync(() -> PGNParser.parse(number, pgn, options),
+                    executor);
+            inFlight.add(parse);
+            parse.whenComplete((result, error) -> schedule());
+          }
+
+          if (!exhausted && inFlight.isEmpty() && !iterator.hasNext()) {
+            exhausted = true;
+          }
+
+          if (exhausted && inFlight.isEmpty()) {
+            release();
+            subscriber.onComplete();
+            return;
+          }
+        } catch (CompletionException | UncheckedIOException e) {
+          release();
+          subscriber.onError(e.getCause());
+          return;
+        } catch (RuntimeException e) {
+          release();
+          subscriber.onError(e);
+          return;
+        }
+
+        missed = work.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void release() {
+      cancelled = true;
+      inFlight.clear();
+
+      try {
+        games.close();
+      } catch (UncheckedIOException e) {
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Results of a group of games of a {@link PGNColumnStore}, for example of all games with the
+ * same ECO code.
+ */
+public class PGNResultStatistics {
+
+  private final String value;
+
+  private final int whiteWins;
+
+  private final int draws;
+
+  private final int blackWins;
+
+  PGNResultStatistics(String value, int whiteWins, int draws, int blackWins) {
+    this.value = value;
+    this.whiteWins = whiteWins;
+    this.draws = draws;
+    this.blackWins = blackWins;
+  }
+
+  /**
+   * @return the tag value shared by the games of the group
+   */
+  public String getValue() {
+    return value;
+  }
+
+  public int getWhiteWins() {
+    return whiteWins;
+  }
+
+  public int getDraws() {
+    return draws;
+  }
+
+  public int getBlackWins() {
+    return blackWins;
+  }
+
+  public int getGamesCount() {
+    return whiteWins + draws + blackWins;
+  }
+
+  @Override
+  public String toString() {
+    return value + " +" + whiteWins + " =" + draws + " -" + blackWins;
+  }
+
+}
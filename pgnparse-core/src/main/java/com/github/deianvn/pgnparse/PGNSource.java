@@ -6,15 +6,30 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class PGNSource {
 
+  private static final int BATCHES_PER_PROCESSOR = 4;
+
   private String source;
 
+  private BufferedReader reader;
+
   public PGNSource(String pgn) {
     Objects.requireNonNull(pgn);
     this.source = pgn;
@@ -28,26 +43,79 @@ public class PGNSource {
     this(url.openStream());
   }
 
+  /**
+   * Create a source holding the whole text of the given stream, which is read and closed.
+   * Use {@link #open(InputStream)} to read the games of a large input one at a time instead.
+   *
+   * @param inputStream the stream containing the PGN text
+   * @throws IOException if the stream cannot be read
+   */
   public PGNSource(InputStream inputStream) throws IOException {
-    BufferedReader br = new BufferedReader(new InputStreamReader(inputStream));
-    String line;
-    StringBuilder buffer = new StringBuilder();
+    this.source = readText(new BufferedReader(new InputStreamReader(inputStream)));
+  }
 
-    while ((line = br.readLine()) != null) {
-      buffer.append(line).append("\n");
+  private PGNSource(BufferedReader reader) {
+    this.reader = reader;
+  }
+
+  /**
+   * Open a source reading the given stream lazily. The stream is not read until the games are
+   * requested, and it can be read only once: one at a time by {@link #stream()}, or all at
+   * once by the other methods, which then keep the text. The stream is closed when it has
+   * been read to its end or the {@link Stream} of the games is closed, so a source which is
+   * opened but never read should have its stream closed by the caller. Read errors are
+   * reported as {@link UncheckedIOException}.
+   *
+   * @param inputStream the stream containing the PGN text
+   * @return the source reading the stream
+   */
+  public static PGNSource open(InputStream inputStream) {
+    Objects.requireNonNull(inputStream);
+    return new PGNSource(new BufferedReader(new InputStreamReader(inputStream)));
+  }
+
+  /**
+   * Open a PGN file to be read lazily, as {@link #open(InputStream)} does, decompressing it
+   * while it is read if its name ends with {@code .gz}. Use
+   * {@link #open(File, PGNDecompressor)} for other compression formats.
+   *
+   * @param file the PGN file, plain or compressed
+   * @return the source reading the file
+   * @throws IOException if the file cannot be opened
+   */
+  public static PGNSource open(File file) throws IOException {
+    if (file.getName().endsWith(".gz")) {
+      return open(file, PGNDecompressor.GZIP);
     }
 
-    br.close();
-    this.source = buffer.toString();
+    return open(new FileInputStream(file));
   }
 
+  /**
+   * Open a compressed PGN file. The file is decompressed on a background thread while the
+   * games are read, a few chunks ahead of the parser, so it is never decompressed to disk or
+   * held in memory as a whole when read with {@link #stream()}.
+   *
+   * @param file the compressed PGN file
+   * @param decompressor the {@link PGNDecompressor} of the compression format
+   * @return the source reading the file
+   * @throws IOException if the file cannot be opened
+   */
+  public static PGNSource open(File file, PGNDecompressor decompressor) throws IOException {
+    return open(new DecompressingInputStream(new FileInputStream(file), decompressor));
+  }
+
+  /**
+   * @return the PGN text, or a placeholder for a source opened lazily whose text has not been
+   *     read into memory, as reading it here would consume the input
+   */
   @Override
   public String toString() {
-    return source;
+    return source != null ? source : "PGNSource[unread input]";
   }
 
   public List<PGNGame> listGames() throws PGNParseException {
-    List<String> pgns = PGNParser.split(source);
+    List<String> pgns = PGNParser.split(getSource());
     ArrayList<PGNGame> games = new ArrayList<>();
 
     for (String pgn : pgns) {
@@ -58,7 +126,7 @@ public class PGNSource {
   }
 
   public List<PGNGame> forceListGames() {
-    List<String> pgns = PGNParser.split(source);
+    List<String> pgns = PGNParser.split(getSource());
     ArrayList<PGNGame> games = new ArrayList<>();
 
     for (String pgn : pgns) {
@@ -71,4 +139,232 @@ public class PGNSource {
     return games;
   }
 
+  /**
+   * Parse the games of this source in parallel using the given executor. The games are split
+   * into batches which are parsed independently, and the result keeps the original game order.
+   *
+   * @param executor the {@link Executor} running the parse batches
+   * @return the parsed games in source order
+   * @throws PGNParseException the error of the first game, in source order, that cannot be
+   *     parsed
+   */
+  public List<PGNGame> listGames(Executor executor) throws PGNParseException {
+    List<String> pgns = PGNParser.split(getSource());
+    PGNGame[] games = new PGNGame[pgns.size()];
+    PGNParseException[] errors = new PGNParseException[pgns.size()];
+    parse(pgns, games, errors, executor);
+
+    for (PGNParseException error : errors) {
+      if (error != null) {
+        throw error;
+      }
+    }
+
+    return new ArrayList<>(Arrays.asList(games));
+  }
+
+  /**
+   * Parse the games of this source in parallel using the given executor, skipping the games
+   * that cannot be parsed as {@link #forceListGames()} does. The result keeps the original
+   * game order.
+   *
+   * @param executor the {@link Executor} running the parse batches
+   * @return the parsed games in source order
+   */
+  public List<PGNGame> forceListGames(Executor executor) {
+    List<String> pgns = PGNParser.split(getSource());
+    PGNGame[] games = new PGNGame[pgns.size()];
+    parse(pgns, games, new PGNParseException[pgns.size()], executor);
+    ArrayList<PGNGame> parsedGames = new ArrayList<>(games.length);
+
+    for (PGNGame game : games) {
+      if (game != null) {
+        parsedGames.add(game);
+      }
+    }
+
+    return parsedGames;
+  }
+
+  private static void parse(List<String> pgns, PGNGame[] games, PGNParseException[] errors,
+      Executor executor) {
+    int count = pgns.size();
+    int batchSize = Math.max(1,
+        count / (Runtime.getRuntime().availableProcessors() * BATCHES_PER_PROCESSOR));
+    List<CompletableFuture<Void>> batches = new ArrayList<>();
+
+    for (int start = 0; start < count; start += batchSize) {
+      final int from = start;
+      final int to = Math.min(count, start + batchSize);
+
+      batches.add(CompletableFuture.runAsync(() -> {
+        for (int i = from; i < to; i++) {
+          try {
+            games[i] = PGNParser.parse(pgns.get(i));
+          } catch (PGNParseException e) {
+            errors[i] = e;
+          }
+        }
+      }, executor));
+    }
+
+    try {
+      CompletableFuture.allOf(batches.toArray(new CompletableFuture<?>[0])).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+
+      throw e;
+    }
+  }
+
+  /**
+   * Lazily read and parse the games of this source one at a time. Only the text of the game
+   * currently being parsed is held in memory, so arbitrarily large inputs can be processed.
+   * As with {@link #forceListGames()}, games that cannot be parsed are skipped.
+   *
+   * <p>A source opened lazily can be read only once. The returned stream should be
+   * closed if it is not fully consumed, so that the underlying input is released. Errors
+   * while reading are reported as {@link UncheckedIOException}.
+   *
+   * @return a sequential {@link Stream} of the parsed games
+   * @throws IllegalStateException if the underlying input has already been consumed
+   */
+  public Stream<PGNGame> stream() {
+    return stream(null);
+  }
+
+  /**
+   * Lazily read and parse the games of this source one at a time with the given options, as
+   * {@link #stream()} does. Games rejected by the tag filter of the options are skipped
+   * without parsing their movetext.
+   *
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @return a sequential {@link Stream} of the parsed games
+   * @throws IllegalStateException if the underlying input has already been consumed
+   */
+  public Stream<PGNGame> stream(PGNParseOptions options) {
+    return readGames().map(pgn -> forceParse(pgn, options)).filter(Objects::nonNull);
+  }
+
+  /**
+   * Lazily read the tags of the games of this source, see {@link PGNParser#parseTags(String)}.
+   * Games with malformed tags are skipped.
+   *
+   * @return a sequential {@link Stream} of games holding only their tags
+   * @throws IllegalStateException if the underlying input has already been consumed
+   */
+  public Stream<PGNGame> streamTags() {
+    return readGames().map(PGNSource::forceParseTags).filter(Objects::nonNull);
+  }
+
+  /**
+   * Publish the games of this source with backpressure. The input is read and split only as
+   * far as the subscriber has requested games, the games are parsed on the given executor and
+   * delivered in source order. A game that cannot be parsed is delivered as a failed
+   * {@link PGNParseResult} and does not end the stream; only read errors are signalled with
+   * {@code onError}.
+   *
+   * <p>As with {@link #stream()}, a source opened lazily can have only one subscriber.
+   *
+   * @param executor the {@link Executor} reading and parsing the games
+   * @return the publisher of the parse results
+   */
+  public Flow.Publisher<PGNParseResult> publisher(Executor executor) {
+    return publisher(null, executor);
+  }
+
+  /**
+   * Publish the games of this source with the given options, as {@link #publisher(Executor)}
+   * does. Games rejected by the tag filter of the options are not delivered.
+   *
+   * @param options the {@link PGNParseOptions}, {@code null} for the defaults
+   * @param executor the {@link Executor} reading and parsing the games
+   * @return the publisher of the parse results
+   */
+  public Flow.Publisher<PGNParseResult> publisher(PGNParseOptions options, Executor executor) {
+    return new PGNPublisher(this::readGames, options, executor);
+  }
+
+  /**
+   * @return the texts of the games of this source, read one at a time
+   */
+  Stream<String> readGames() {
+    PGNGameReader gameReader = new PGNGameReader(openReader());
+    Spliterator<String> spliterator = Spliterators.spliteratorUnknownSize(gameReader,
+        Spliterator.ORDERED | Spliterator.NONNULL);
+
+    return StreamSupport.stream(spliterator, false)
+        .onClose(() -> {
+          try {
+            gameReader.close();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
+  }
+
+  /**
+   * @return the texts of the games of this source
+   */
+  List<String> split() {
+    return PGNParser.split(getSource());
+  }
+
+  private static PGNGame forceParse(String pgn, PGNParseOptions options) {
+    try {
+      return PGNParser.parse(pgn, options);
+    } catch (PGNParseException e) {
+      return null;
+    }
+  }
+
+  private static PGNGame forceParseTags(String pgn) {
+    try {
+      return PGNParser.parseTags(pgn);
+    } catch (PGNParseException e) {
+      return null;
+    }
+  }
+
+  private BufferedReader openReader() {
+    if (source != null) {
+      return new BufferedReader(new StringReader(source));
+    }
+
+    if (reader == null) {
+      throw new IllegalStateException("The PGN source has already been consumed");
+    }
+
+    BufferedReader br = reader;
+    reader = null;
+    return br;
+  }
+
+  private String getSource() {
+    if (source == null) {
+      try {
+        source = readText(openReader());
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    return source;
+  }
+
+  private static String readText(BufferedReader reader) throws IOException {
+    StringBuilder buffer = new StringBuilder();
+    String line;
+
+    try (BufferedReader br = reader) {
+      while ((line = br.readLine()) != null) {
+        buffer.append(line).append("\n");
+      }
+    }
+
+    return buffer.toString();
+  }
+
 }
@@ -0,0 +1,478 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Tokenizer for the text of a single PGN game. Tokens are reported as a kind together with
+ * offsets into the original text, so no strings are created unless {@link #getText()} or one
+ * of the tag accessors is called.
+ */
+final class PGNTokenizer {
+
+  static final int END = 0;
+
+  static final int TAG = 1;
+
+  static final int MOVE_NUMBER = 2;
+
+  static final int SAN = 3;
+
+  static final int COMMENT = 4;
+
+  static final int NAG = 5;
+
+  static final int VARIATION_START = 6;
+
+  static final int VARIATION_END = 7;
+
+  static final int RESULT = 8;
+
+  static final int INCOMPLETE = 9;
+
+  private final CharSequence text;
+
+  private int end;
+
+  private boolean partial;
+
+  private int position;
+
+  private int line = 1;
+
+  private boolean lineStart = true;
+
+  private int tokenStart;
+
+  private int tokenEnd;
+
+  private int tokenLine;
+
+  /**
+   * Start of a brace comment which was not terminated at the end of a partial text, with the
+   * offset and line count its scan has reached, so that the scan resumes there.
+   */
+  private int commentStart = -1;
+
+  private int commentScanEnd;
+
+  private int commentScanLines;
+
+  PGNTokenizer(CharSequence text) {
+    this(text, 0, text.length());
+  }
+
+  PGNTokenizer(CharSequence text, int start, int end) {
+    this(text, start, end, 1);
+  }
+
+  PGNTokenizer(CharSequence text, int start, int end, int line) {
+    this.text = text;
+    this.position = start;
+    this.end = end;
+    this.line = line;
+  }
+
+  /**
+   * Set the end of the text, after more text has been appended to it.
+   */
+  void setEnd(int end) {
+    this.end = end;
+  }
+
+  /**
+   * In partial mode the text is the beginning of a longer text, so a token which reaches the
+   * end of the text may not be complete yet. Such a token is reported as {@link #INCOMPLETE},
+   * without advancing, and is read again once the text has been extended.
+   */
+  void setPartial(boolean partial) {
+    this.partial = partial;
+  }
+
+  /**
+   * Adjust the offsets after the first characters of the text, which must precede the current
+   * position, have been removed from it.
+   *
+   * @param length the number of characters removed
+   */
+  void removePrefix(int length) {
+    position -= length;
+    end -= length;
+    tokenStart -= length;
+    tokenEnd -= length;
+
+    if (commentStart != -1) {
+      commentStart -= length;
+      commentScanEnd -= length;
+    }
+  }
+
+  /**
+   * Advance to the next token.
+   *
+   * @return the kind of the token, {@link #END} if there are no more tokens
+   * @throws PGNParseException if a comment is not terminated or a brace closes no comment
+   */
+  int next() throws PGNParseException {
+    while (position < end) {
+      char ch = text.charAt(position);
+
+      if (ch == '\r' && partial && position + 1 == end) {
+        return INCOMPLETE;
+      }
+
+      if (ch == '\n' || ch == '\r') {
+        if (ch == '\n' || position + 1 == end || text.charAt(position + 1) != '\n') {
+          line++;
+        }
+
+        lineStart = true;
+        position++;
+        continue;
+      }
+
+      if (isWhitespace(ch)) {
+        position++;
+        continue;
+      }
+
+      tokenLine = line;
+      int start = position;
+      boolean startsLine = lineStart;
+
+      if (lineStart) {
+        lineStart = false;
+
+        if (ch == '[' || ch == '@') {
+          int lineEnd = getLineEnd(position);
+
+          if (partial && lineEnd == end) {
+            return incomplete(start, startsLine);
+          } else if (ch == '@') {
+            position = lineEnd;
+            continue;
+          }
+
+          tokenStart = position;
+          tokenEnd = trimEnd(position, lineEnd);
+          position = tokenEnd;
+          return TAG;
+        }
+      }
+
+      switch (ch) {
+        case '{':
+          return readBraceComment(startsLine);
+        case ';':
+          if (partial && getLineEnd(position) == end) {
+            return incomplete(start, startsLine);
+          }
+
+          tokenStart = skipWhitespace(position + 1);
+          position = getLineEnd(position);
+          tokenEnd = trimEnd(tokenStart, position);
+          return COMMENT;
+        case '(':
+          position++;
+          return VARIATION_START;
+        case ')':
+          position++;
+          return VARIATION_END;
+        case '}':
+          throw new PGNParseException("Error near character }");
+        case '$':
+          tokenStart = position++;
+
+          while (position < end && isDigit(text.charAt(position))) {
+            position++;
+          }
+
+          if (partial && position == end) {
+            return incomplete(start, startsLine);
+          }
+
+          tokenEnd = position;
+          return NAG;
+      }
+
+      tokenStart = position;
+
+      if (isDigit(ch)) {
+        int numberEnd = position + 1;
+
+        while (numberEnd < end && isDigit(text.charAt(numberEnd))) {
+          numberEnd++;
+        }
+
+        if (numberEnd < end && text.charAt(numberEnd) == '.') {
+          while (numberEnd < end && text.charAt(numberEnd) == '.') {
+            numberEnd++;
+          }
+
+          if (partial && numberEnd == end) {
+            return incomplete(start, startsLine);
+          }
+
+          position = tokenEnd = numberEnd;
+          return MOVE_NUMBER;
+        }
+      }
+
+      while (position < end && !isDelimiter(text.charAt(position))) {
+        position++;
+      }
+
+      if (position == start) {
+        // Every token consumes text, so the callers' loops always make progress
+        throw new PGNParseException("Error near character " + ch);
+      }
+
+      if (partial && position == end) {
+        return incomplete(start, startsLine);
+      }
+
+      tokenEnd = position;
+
+      if (isResult()) {
+        return RESULT;
+      }
+
+      while (tokenEnd > tokenStart && isSuffixAnnotation(text.charAt(tokenEnd - 1))) {
+        tokenEnd--;
+      }
+
+      if (tokenEnd == tokenStart) {
+        tokenEnd = position;
+        return NAG;
+      }
+
+      return SAN;
+    }
+
+    return END;
+  }
+
+  private int incomplete(int start, boolean startsLine) {
+    position = start;
+    lineStart = startsLine;
+    return INCOMPLETE;
+  }
+
+  private int readBraceComment(boolean startsLine) throws PGNParseException {
+    int commentEnd = position + 1;
+    int lines = 0;
+
+    if (position == commentStart) {
+      commentEnd = commentScanEnd;
+      lines = commentScanLines;
+    }
+
+    while (commentEnd < end && text.charAt(commentEnd) != '}') {
+      char ch = text.charAt(commentEnd);
+
+      if (ch == '\r' && partial && commentEnd + 1 == end) {
+        // A line feed may follow in the next text
+        break;
+      }
+
+      if (ch == '\n' || (ch == '\r' && (commentEnd + 1 == end
+          || text.charAt(commentEnd + 1) != '\n'))) {
+        lines++;
+      }
+
+      commentEnd++;
+    }
+
+    if (commentEnd == end || text.charAt(commentEnd) != '}') {
+      if (partial) {
+        commentStart = position;
+        commentScanEnd = commentEnd;
+        commentScanLines = lines;
+        return incomplete(position, startsLine);
+      }
+
+      throw new PGNParseException("Error near character {");
+    }
+
+    commentStart = -1;
+
+    line += lines;
+    tokenStart = position + 1;
+    tokenEnd = commentEnd;
+    position = commentEnd + 1;
+    return COMMENT;
+  }
+
+  private boolean isResult() {
+    return textEquals("1-0") || textEquals("0-1") || textEquals("1/2-1/2") || textEquals("*");
+  }
+
+  /**
+   * @return the text of the current token
+   */
+  String getText() {
+    return text.subSequence(tokenStart, tokenEnd).toString();
+  }
+
+  boolean textEquals(String value) {
+    int length = tokenEnd - tokenStart;
+
+    if (length != value.length()) {
+      return false;
+    }
+
+    for (int i = 0; i < length; i++) {
+      if (text.charAt(tokenStart + i) != value.charAt(i)) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * @return the character at an offset of the text
+   */
+  char charAt(int index) {
+    return text.charAt(index);
+  }
+
+  int getStart() {
+    return tokenStart;
+  }
+
+  int getEnd() {
+    return tokenEnd;
+  }
+
+  /**
+   * @return the offset following the current token
+   */
+  int getPosition() {
+    return position;
+  }
+
+  /**
+   * @return the line of {@link #getPosition()}, starting from 1
+   */
+  int getCurrentLine() {
+    return line;
+  }
+
+  /**
+   * @return the line of the current token, starting from 1
+   */
+  int getLine() {
+    return tokenLine;
+  }
+
+  /**
+   * @return the name of the current tag token or {@code null} if the tag is malformed
+   */
+  String getTagName() {
+    int quote = indexOf('"');
+
+    if (quote == -1) {
+      return null;
+    }
+
+    int nameStart = skipWhitespace(tokenStart + 1);
+    return text.subSequence(nameStart, trimEnd(nameStart, quote)).toString();
+  }
+
+  /**
+   * @return the value of the current tag token, with the escaped quotes and backslashes
+   *     unescaped, or {@code null} if the tag is malformed
+   */
+  String getTagValue() {
+    int quote = indexOf('"');
+    int lastQuote = lastIndexOf('"');
+
+    if (quote == -1 || lastQuote == quote) {
+      return null;
+    }
+
+    StringBuilder value = null;
+    int copied = quote + 1;
+
+    for (int i = quote + 1; i < lastQuote - 1; i++) {
+      char ch = text.charAt(i);
+
+      if (ch == '\\' && (text.charAt(i + 1) == '"' || text.charAt(i + 1) == '\\')) {
+        if (value == null) {
+          value = new StringBuilder(lastQuote - quote);
+        }
+
+        value.append(text, copied, i);
+        copied = ++i;
+      }
+    }
+
+    if (value == null) {
+      return text.subSequence(quote + 1, lastQuote).toString();
+    }
+
+    return value.append(text, copied, lastQuote).toString();
+  }
+
+  private int indexOf(char ch) {
+    for (int i = tokenStart; i < tokenEnd; i++) {
+      if (text.charAt(i) == ch) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private int lastIndexOf(char ch) {
+    for (int i = tokenEnd - 1; i >= tokenStart; i--) {
+      if (text.charAt(i) == ch) {
+        return i;
+      }
+    }
+
+    return -1;
+  }
+
+  private int getLineEnd(int from) {
+    while (from < end && text.charAt(from) != '\n' && text.charAt(from) != '\r') {
+      from++;
+    }
+
+    return from;
+  }
+
+  private int skipWhitespace(int from) {
+    while (from < end && isWhitespace(text.charAt(from))) {
+      from++;
+    }
+
+    return from;
+  }
+
+  private int trimEnd(int start, int to) {
+    while (to > start && text.charAt(to - 1) <= ' ') {
+      to--;
+    }
+
+    return to;
+  }
+
+  private static boolean isWhitespace(char ch) {
+    return ch <= ' ' && ch != '\n' && ch != '\r';
+  }
+
+  private static boolean isDigit(char ch) {
+    return ch >= '0' && ch <= '9';
+  }
+
+  private static boolean isDelimiter(char ch) {
+    return ch <= ' ' || ch == '{' || ch == '}' || ch == '(' || ch == ')' || ch == ';'
+        || ch == '$';
+  }
+
+  private static boolean isSuffixAnnotation(char ch) {
+    return ch == '!' || ch == '?';
+  }
+
+}
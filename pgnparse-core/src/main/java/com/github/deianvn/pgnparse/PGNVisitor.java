@@ -0,0 +1,126 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Receives the events of a game parsed by {@link PGNParser#visit(String, PGNVisitor)}, in the
+ * order of the text. Moves are replayed and validated as for {@link PGNParser#parse(String)},
+ * but are reported as primitives and no {@link PGNMove} objects are built, so a visitor which
+ * aggregates over many games allocates next to nothing per move. All methods do nothing by
+ * default.
+ *
+ * <p>Piece types are numbered from {@code 1} for a pawn, then knight, bishop, rook and queen,
+ * to {@code 6} for a king, and pieces are their types, negative for white. Squares are
+ * numbered from {@code 0} for a1 to {@code 63} for h8.
+ */
+public interface PGNVisitor {
+
+  /**
+   * Flag of an en passant capture.
+   */
+  int EN_PASSANT = 1 << 6;
+
+  /**
+   * Flag of a king side castling move.
+   */
+  int KING_SIDE_CASTLE = 1 << 7;
+
+  /**
+   * Flag of a queen side castling move.
+   */
+  int QUEEN_SIDE_CASTLE = 1 << 8;
+
+  /**
+   * Flag of a move marked as check in the text.
+   */
+  int CHECK = 1 << 9;
+
+  /**
+   * Flag of a move marked as checkmate in the text.
+   */
+  int CHECKMATE = 1 << 10;
+
+  /**
+   * Flag of a move marked as capture in the text.
+   */
+  int CAPTURE = 1 << 11;
+
+  /**
+   * @param flags the flags of a move
+   * @return the type of the promotion piece, {@code 0} if the move is no promotion
+   */
+  static int getPromotion(int flags) {
+    return flags & 0x7;
+  }
+
+  /**
+   * @param flags the flags of a move
+   * @return the type of the captured piece, {@code 0} if the move is no capture
+   */
+  static int getCapturedPiece(int flags) {
+    return flags >>> 3 & 0x7;
+  }
+
+  /**
+   * Called for every tag, including tags found in the movetext.
+   */
+  default void onTag(String name, String value) {
+
+  }
+
+  /**
+   * Called once the tags before the movetext have been read.
+   *
+   * @return whether the movetext is parsed, {@code false} to stop after the tags
+   */
+  default boolean onMovetextStart() {
+    return true;
+  }
+
+  /**
+   * Called for every move, once it has been made.
+   *
+   * @param from the origin square, the king square for castling
+   * @param to the destination square, the king destination for castling
+   * @param piece the moving piece, a pawn for promotions
+   * @param flags the promotion and captured piece types and the {@code EN_PASSANT},
+   *     {@code KING_SIDE_CASTLE}, {@code QUEEN_SIDE_CASTLE}, {@code CHECK},
+   *     {@code CHECKMATE} and {@code CAPTURE} flags
+   */
+  default void onMove(int from, int to, int piece, int flags) {
+
+  }
+
+  /**
+   * Called for a comment following a move.
+   */
+  default void onComment(String comment) {
+
+  }
+
+  /**
+   * Called when a variation replacing the last move starts. The following moves are played
+   * from the position before that move.
+   */
+  default void onVariationStart() {
+
+  }
+
+  /**
+   * Called when the innermost variation ends. The following moves are played from the
+   * position after the move it replaced.
+   */
+  default void onVariationEnd() {
+
+  }
+
+  /**
+   * Called for a game termination marker following a move.
+   *
+   * @param result {@code "1-0"}, {@code "0-1"}, {@code "1/2-1/2"} or {@code "*"}
+   */
+  default void onResult(String result) {
+
+  }
+
+}
@@ -0,0 +1,477 @@
+package com.github.deianvn.pgnparse;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Writes parsed games as PGN text in export format: the seven tag roster first and the other
+ * tags in name order, movetext lines of at most 79 characters and a move number before every
+ * white move and every black move following a comment or variation. Comments are wrapped
+ * like the moves, so their line breaks and repeated spaces are not kept, and a closing brace,
+ * which cannot occur in a brace comment, is written as a space. The SAN of every move
+ * is generated from the position before it, so it has canonical disambiguation and check
+ * and checkmate marks whatever the text the game was parsed from. Games are formatted into a
+ * reused buffer, which is passed to the target once it grows large, so no strings are created
+ * per move.
+ *
+ * <p>A writer is not safe for concurrent use.
+ */
+public class PGNWriter implements Closeable, Flushable {
+
+  private static final String[] SEVEN_TAG_ROSTER = {"Event", "Site", "Date", "Round", "White",
+      "Black", "Result"};
+
+  private static final String[] SEVEN_TAG_DEFAULTS = {"?", "?", "????.??.??", "?", "?", "?"};
+
+  private static final String PIECE_LETTERS = "PNBRQK";
+
+  private static final int MAX_LINE_LENGTH = 79;
+
+  private static final int FLUSH_SIZE = 8192;
+
+  private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE * 2);
+
+  /**
+   * Buffer for the legal replies to a check, which tell a check from a checkmate.
+   */
+  private final int[] legalMoves = new int[PGNMoveGenerator.MAX_MOVES];
+
+  private final Writer writer;
+
+  private final ByteBuffer byteBuffer;
+
+  private final CharsetEncoder encoder;
+
+  private char[] chars;
+
+  private boolean comments = true;
+
+  private boolean variations = true;
+
+  private int lineStart;
+
+  private int tokenStart;
+
+  /**
+   * Create a writer of games to a {@link Writer}.
+   *
+   * @param writer the writer to write to
+   */
+  public PGNWriter(Writer writer) {
+    this.writer = writer;
+    this.byteBuffer = null;
+    this.encoder = null;
+  }
+
+  /**
+   * Create a writer of games to an {@link OutputStream}, encoded in UTF-8.
+   *
+   * @param outputStream the stream to write to
+   */
+  public PGNWriter(OutputStream outputStream) {
+    this(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Create a writer of games into a {@link ByteBuffer}, encoded in UTF-8. The text is encoded
+   * at the position of the buffer when the internal buffer is flushed, at the latest by
+   * {@link #flush()}.
+   *
+   * @param byteBuffer the buffer to write to
+   */
+  public PGNWriter(ByteBuffer byteBuffer) {
+    this.writer = null;
+    this.byteBuffer = byteBuffer;
+    this.encoder = StandardCharsets.UTF_8.newEncoder();
+  }
+
+  /**
+   * @param comments whether the comments of the moves are written, {@code true} by default
+   */
+  public void setComments(boolean comments) {
+    this.comments = comments;
+  }
+
+  /**
+   * @param variations whether the variations of the moves are written, {@code true} by
+   *     default
+   */
+  public void setVariations(boolean variations) {
+    this.variations = variations;
+  }
+
+  /**
+   * Write a game. The game must have been produced by {@link PGNParser} or
+   * {@link PGNBinaryReader}, as the SAN of its moves is generated by replaying them from its
+   * recorded initial position.
+   *
+   * @param game the game
+   * @throws IOException if the game cannot be written
+   * @throws BufferOverflowException if the target {@link ByteBuffer} is full
+   * @throws IllegalArgumentException if the initial position or the squares of a move are not
+   *     known
+   */
+  public void write(PGNGame game) throws IOException {
+    PositionSnapshot initialPosition = game.getInitialSnapshot();
+
+    if (initialPosition == null) {
+      throw new IllegalArgumentException("The positions of the game are not known");
+    }
+
+    String result = getResult(game);
+    writeTags(game, result);
+    buffer.append('\n');
+    lineStart = buffer.length();
+    writeMoves(game, initialPosition);
+    startToken(true);
+    buffer.append(result);
+    endToken();
+    buffer.append("\n\n");
+
+    if (buffer.length() >= FLUSH_SIZE) {
+      flushBuffer();
+    }
+  }
+
+  private void writeTags(PGNGame game, String result) {
+    for (int i = 0; i < SEVEN_TAG_DEFAULTS.length; i++) {
+      String value = game.getTag(SEVEN_TAG_ROSTER[i]);
+      writeTag(SEVEN_TAG_ROSTER[i], value != null ? value : SEVEN_TAG_DEFAULTS[i]);
+    }
+
+    writeTag("Result", result);
+
+    if (game.getTagsCount() == 0) {
+      return;
+    }
+
+    String[] names = game.getTagKeys().toArray(new String[0]);
+    Arrays.sort(names);
+
+    for (String name : names) {
+      if (!isSevenTagRoster(name)) {
+        writeTag(name, game.getTag(name));
+      }
+    }
+  }
+
+  private void writeTag(String name, String value) {
+    buffer.append('[').append(name).append(" \"");
+
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+
+      if (ch == '"' || ch == '\\') {
+        buffer.append('\\');
+      }
+
+      buffer.append(ch);
+    }
+
+    buffer.append("\"]\n");
+  }
+
+  private static boolean isSevenTagRoster(String name) {
+    for (String tag : SEVEN_TAG_ROSTER) {
+      if (tag.equals(name)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Write the movetext of a game. Open variations are kept on an explicit stack, so games
+   * with deeply nested variations are written without recursion.
+   */
+  private void writeMoves(PGNGame game, PositionSnapshot initialPosition) {
+    Deque<Line> parents = new ArrayDeque<>();
+    Line line = new Line(game.getMoves(), initialPosition);
+    boolean moveNumber = true;
+
+    while (true) {
+      PGNMove lastMove = line.index > 0 ? line.moves.get(line.index - 1) : null;
+
+      if (variations && lastMove != null && lastMove.hasVariations()
+          && line.variation < lastMove.getVariations().size()) {
+        PGNVariation variation = lastMove.getVariations().get(line.variation++);
+        startToken(true);
+        buffer.append('(');
+        endToken();
+        parents.push(line);
+        line = new Line(variation.getMoves(), line.previousPosition);
+        moveNumber = true;
+        continue;
+      }
+
+      if (line.index == line.moves.size()) {
+        if (parents.isEmpty()) {
+          return;
+        }
+
+        startToken(false);
+        buffer.append(')');
+        endToken();
+        line = parents.pop();
+        moveNumber = true;
+        continue;
+      }
+
+      PGNMove move = line.moves.get(line.index);
+      PositionSnapshot position = line.position;
+      boolean white = position.getPlayer() == PGNParser.W;
+
+      if (white || moveNumber) {
+        startToken(true);
+        buffer.append(position.getFullMoves()).append(white ? "." : "...");
+        endToken();
+      }
+
+      startToken(true);
+      PositionSnapshot nextPosition = appendMove(move, position);
+      endToken();
+      moveNumber = false;
+
+      if (!parents.isEmpty() && move.isEndGameMarked()) {
+        startToken(true);
+        buffer.append(move.getEndGameMark());
+        endToken();
+      }
+
+      if (comments && move.getComment() != null && !move.getComment().isEmpty()) {
+        writeComment(move.getComment());
+        moveNumber = true;
+      }
+
+      line.previousPosition = position;
+      line.position = nextPosition;
+      line.index++;
+      line.variation = 0;
+    }
+  }
+
+  /**
+   * Append the SAN of a move and play it.
+   *
+   * @return the position after the move
+   */
+  private PositionSnapshot appendMove(PGNMove move, PositionSnapshot position) {
+    PositionSnapshot nextPosition;
+
+    if (move.isCastle()) {
+      int rank = position.getPlayer() == PGNParser.W ? 0 : 7;
+      buffer.append(move.isKingSideCastle() ? "O-O" : "O-O-O");
+      nextPosition = position.play(BitboardPosition.square(4, rank),
+          BitboardPosition.square(move.isKingSideCastle() ? 6 : 2, rank), 0);
+    } else {
+      if (move.getFromSquare() == null || move.getToSquare() == null) {
+        throw new IllegalArgumentException("The squares of the move are not known");
+      }
+
+      int from = BitboardPosition.square(move.getFromSquare());
+      int to = BitboardPosition.square(move.getToSquare());
+      int promotion = move.isPromoted() ? PIECE_LETTERS.indexOf(move.getPromotion()) + 1 : 0;
+      SANFormatter.appendMove(buffer, position.getBoard(), from, to, promotion);
+      nextPosition = position.play(from, to, promotion);
+    }
+
+    BitboardPosition board = nextPosition.getBoard();
+    int player = nextPosition.getPlayer();
+    int king = board.getKingSquare(player);
+
+    if (king != BitboardPosition.NO_SQUARE && board.isAttacked(king, -player)) {
+      boolean mate = PGNMoveGenerator.generate(board, player, nextPosition.getCastling(),
+          nextPosition.getEnpassantSquare(), legalMoves, 0) == 0;
+      buffer.append(mate ? '#' : '+');
+    }
+
+    return nextPosition;
+  }
+
+  /**
+   * Write a comment word by word, so that long comments are wrapped like the moves. Closing
+   * braces separate words like whitespace, as they would end the comment.
+   */
+  private void writeComment(String comment) {
+    startToken(true);
+    buffer.append('{');
+    int length = comment.length();
+    int start = skipWhitespace(comment, 0);
+
+    for (boolean first = true; start < length; first = false) {
+      int end = start;
+
+      while (end < length && !isCommentSeparator(comment.charAt(end))) {
+        end++;
+      }
+
+      if (!first) {
+        endToken();
+        startToken(true);
+      }
+
+      buffer.append(comment, start, end);
+      start = skipWhitespace(comment, end);
+    }
+
+    buffer.append('}');
+    endToken();
+  }
+
+  private static int skipWhitespace(String text, int from) {
+    while (from < text.length() && isCommentSeparator(text.charAt(from))) {
+      from++;
+    }
+
+    return from;
+  }
+
+  private static boolean isCommentSeparator(char ch) {
+    return ch <= ' ' || ch == '}';
+  }
+
+  private static String getResult(PGNGame game) {
+    String result = game.getTag("Result");
+
+    if (isResult(result)) {
+      return result;
+    }
+
+    PGNMove lastMove = game.getLastMove();
+
+    if (lastMove != null && isResult(lastMove.getEndGameMark())) {
+      return lastMove.getEndGameMark();
+    }
+
+    return "*";
+  }
+
+  private static boolean isResult(String text) {
+    return "1-0".equals(text) || "0-1".equals(text) || "1/2-1/2".equals(text)
+        || "*".equals(text);
+  }
+
+  /**
+   * Start a token. A separated token follows the previous token of its line after a space,
+   * unless the previous token opens a variation.
+   */
+  private void startToken(boolean separated) {
+    int length = buffer.length();
+
+    if (separated && length > lineStart && buffer.charAt(length - 1) != '(') {
+      buffer.append(' ');
+    }
+
+    tokenStart = buffer.length();
+  }
+
+  /**
+   * End a token. If the line has grown too long, it is broken at its last space, so a token
+   * joined to the previous one moves to the next line together with it. A line without
+   * spaces, such as a run of closing parentheses, is broken before the token.
+   */
+  private void endToken() {
+    if (buffer.length() - lineStart <= MAX_LINE_LENGTH) {
+      return;
+    }
+
+    for (int i = buffer.length() - 1; i > lineStart; i--) {
+      if (buffer.charAt(i) == ' ') {
+        buffer.setCharAt(i, '\n');
+        lineStart = i + 1;
+        return;
+      }
+    }
+
+    if (tokenStart > lineStart) {
+      buffer.insert(tokenStart, '\n');
+      lineStart = tokenStart + 1;
+    }
+  }
+
+  private void flushBuffer() throws IOException {
+    int length = buffer.length();
+
+    if (length == 0) {
+      return;
+    }
+
+    if (writer != null) {
+      if (chars == null || chars.length < length) {
+        chars = new char[buffer.capacity()];
+      }
+
+      buffer.getChars(0, length, chars, 0);
+      writer.write(chars, 0, length);
+    } else {
+      encoder.reset();
+      CoderResult result = encoder.encode(CharBuffer.wrap(buffer), byteBuffer, true);
+
+      if (result.isOverflow()) {
+        throw new BufferOverflowException();
+      }
+
+      encoder.flush(byteBuffer);
+    }
+
+    buffer.setLength(0);
+  }
+
+  @Override
+  public void flush() throws IOException {
+    flushBuffer();
+
+    if (writer != null) {
+      writer.flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+
+    if (writer != null) {
+      writer.close();
+    }
+  }
+
+  /**
+   * A line of moves being written, the main line or a variation.
+   */
+  private static final class Line {
+
+    private final List<PGNMove> moves;
+
+    private int index;
+
+    private int variation;
+
+    private PositionSnapshot position;
+
+    private PositionSnapshot previousPosition;
+
+    private Line(List<PGNMove> moves, PositionSnapshot position) {
+      this.moves = moves;
+      this.position = position;
+    }
+
+  }
+
+}
@@ -0,0 +1,155 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Position of a game at a single ply, recorded by the parser for the initial position of every
+ * game and, when enabled by {@link PGNParseOptions#setPositionSnapshots(boolean)}, after
+ * every move. The board is kept as bitboards and the castling rights, en passant square and
+ * side to move are packed in a single int, so a snapshot is a couple of small objects per ply.
+ * The FEN string is built only on request.
+ */
+final class PositionSnapshot {
+
+  private static final String PIECE_LETTERS = " PNBRQK";
+
+  private static final int CASTLING_MASK = 0xF;
+
+  private static final int ENPASSANT_SHIFT = 4;
+
+  private static final int ENPASSANT_MASK = 0x7F;
+
+  private static final int BLACK_TO_MOVE = 1 << 11;
+
+  private final BitboardPosition board;
+
+  private final int flags;
+
+  private final int halfMoves;
+
+  private final int fullMoves;
+
+  PositionSnapshot(PGNParserGameState state) {
+    this.board = state.board.copy();
+    this.flags = state.castling | state.enpassantSquare << ENPASSANT_SHIFT
+        | (state.currentPlayer == PGNParser.B ? BLACK_TO_MOVE : 0);
+    this.halfMoves = state.halfMovesCount;
+    this.fullMoves = state.fullMovesCount;
+  }
+
+  private PositionSnapshot(BitboardPosition board, int flags, int halfMoves, int fullMoves) {
+    this.board = board;
+    this.flags = flags;
+    this.halfMoves = halfMoves;
+    this.fullMoves = fullMoves;
+  }
+
+  /**
+   * Play a legal move from this position. A king move of two files is castling.
+   *
+   * @param promotion the type of the promotion piece, {@code 0} if the move is no promotion
+   * @return the position after the move
+   */
+  PositionSnapshot play(int from, int to, int promotion) {
+    int player = getPlayer();
+    int move = PGNMoveGenerator.move(from, to, promotion);
+    int castling = PGNMoveGenerator.updateCastling(getCastling(), move);
+    int enpassantSquare = PGNMoveGenerator.getEnpassantSquare(board, move);
+    boolean reversible = Math.abs(board.get(from)) != BitboardPosition.PAWN
+        && board.get(to) == 0;
+    BitboardPosition next = board.copy();
+    PGNMoveGenerator.makeMove(next, player, move);
+
+    return new PositionSnapshot(next,
+        castling | enpassantSquare << ENPASSANT_SHIFT
+            | (player == PGNParser.W ? BLACK_TO_MOVE : 0),
+        reversible ? halfMoves + 1 : 0, player == PGNParser.B ? fullMoves + 1 : fullMoves);
+  }
+
+  BitboardPosition getBoard() {
+    return board;
+  }
+
+  /**
+   * @return the side to move
+   */
+  int getPlayer() {
+    return (flags & BLACK_TO_MOVE) != 0 ? PGNParser.B : PGNParser.W;
+  }
+
+  int getCastling() {
+    return flags & CASTLING_MASK;
+  }
+
+  int getEnpassantSquare() {
+    return flags >>> ENPASSANT_SHIFT & ENPASSANT_MASK;
+  }
+
+  int getFullMoves() {
+    return fullMoves;
+  }
+
+  String toFEN() {
+    StringBuilder fen = new StringBuilder(90);
+
+    for (int rank = 7; rank >= 0; rank--) {
+      int empty = 0;
+
+      for (int file = 0; file < 8; file++) {
+        int piece = board.get(BitboardPosition.square(file, rank));
+
+        if (piece == 0) {
+          empty++;
+          continue;
+        }
+
+        if (empty > 0) {
+          fen.append(empty);
+          empty = 0;
+        }
+
+        char letter = PIECE_LETTERS.charAt(Math.abs(piece));
+        fen.append(piece < 0 ? letter : Character.toLowerCase(letter));
+      }
+
+      if (empty > 0) {
+        fen.append(empty);
+      }
+
+      if (rank > 0) {
+        fen.append('/');
+      }
+    }
+
+    fen.append((flags & BLACK_TO_MOVE) != 0 ? " b " : " w ");
+    int castling = flags & CASTLING_MASK;
+
+    if (castling == 0) {
+      fen.append('-');
+    } else {
+      appendIf(fen, castling, PGNParserGameState.WHITE_KING_CASTLE, 'K');
+      appendIf(fen, castling, PGNParserGameState.WHITE_QUEEN_CASTLE, 'Q');
+      appendIf(fen, castling, PGNParserGameState.BLACK_KING_CASTLE, 'k');
+      appendIf(fen, castling, PGNParserGameState.BLACK_QUEEN_CASTLE, 'q');
+    }
+
+    fen.append(' ');
+    int enpassantSquare = flags >>> ENPASSANT_SHIFT & ENPASSANT_MASK;
+
+    if (enpassantSquare == BitboardPosition.NO_SQUARE) {
+      fen.append('-');
+    } else {
+      fen.append((char) ('a' + BitboardPosition.file(enpassantSquare)))
+          .append(BitboardPosition.rank(enpassantSquare) + 1);
+    }
+
+    return fen.append(' ').append(halfMoves).append(' ').append(fullMoves).toString();
+  }
+
+  private static void appendIf(StringBuilder fen, int castling, int castle, char letter) {
+    if ((castling & castle) != 0) {
+      fen.append(letter);
+    }
+  }
+
+}
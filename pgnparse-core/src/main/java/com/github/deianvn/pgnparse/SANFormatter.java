@@ -0,0 +1,232 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Builds moves in standard algebraic notation from their squares. Disambiguation is added
+ * only when another piece of the same type could legally make the move, so the generated SAN
+ * is the canonical form of the move.
+ */
+final class SANFormatter implements PGN {
+
+  private static final String[] PIECES = {null, PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+
+  private SANFormatter() {
+
+  }
+
+  /**
+   * Create a move with the SAN related fields set, as {@link PGNParser#parseMove(String)}
+   * would set them for the generated SAN.
+   *
+   * @param board the position before the move
+   * @param color the side to move
+   * @param from the origin square, the king square for castling
+   * @param to the destination square, the king destination for castling
+   * @param promotion the type of the promotion piece, {@code 0} if the move is no promotion
+   * @param checked whether the move gives check
+   * @param checkMated whether the move gives checkmate
+   * @throws PGNParseException if the move is not legal in the position
+   */
+  static PGNMove createMove(BitboardPosition board, int color, int from, int to,
+      int promotion, boolean checked, boolean checkMated) throws PGNParseException {
+    int piece = board.get(from);
+    int type = Math.abs(piece);
+
+    if (piece == 0 || Integer.signum(piece) != color || Integer.signum(board.get(to)) == color
+        || from == to) {
+      throw new PGNParseException("Invalid move: " + squareName(from) + squareName(to));
+    }
+
+    PGNMove move = new PGNMove();
+    move.setChecked(checked);
+    move.setCheckMated(checkMated);
+    String suffix = checkMated ? "#" : checked ? "+" : "";
+
+    if (type == BitboardPosition.KING
+        && Math.abs(BitboardPosition.file(to) - BitboardPosition.file(from)) == 2) {
+      boolean kingSide = BitboardPosition.file(to) > BitboardPosition.file(from);
+
+      if (!isCastling(board, color, from, to, kingSide)) {
+        throw new PGNParseException("Invalid move: " + squareName(from) + squareName(to));
+      }
+
+      String castle = kingSide ? "O-O" : "O-O-O";
+      move.setKingSideCastle(kingSide);
+      move.setQueenSideCastle(!kingSide);
+      move.setMove(castle);
+      move.setFullMove(castle + suffix);
+      return move;
+    }
+
+    boolean capture = board.get(to) != 0;
+    int captureSquare = to;
+
+    if (type == BitboardPosition.PAWN) {
+      int direction = color == BitboardPosition.WHITE ? 8 : -8;
+      boolean push = BitboardPosition.file(from) == BitboardPosition.file(to) && !capture
+          && (to == from + direction || (to == from + 2 * direction
+          && board.get(from + direction) == 0
+          && BitboardPosition.rank(from) == (color == BitboardPosition.WHITE ? 1 : 6)));
+      boolean diagonal = (BitboardPosition.PAWN_ATTACKS[BitboardPosition.colorIndex(color)][from]
+          & 1L << to) != 0;
+
+      if (diagonal && !capture) {
+        captureSquare = BitboardPosition.square(BitboardPosition.file(to),
+            BitboardPosition.rank(from));
+        capture = board.get(captureSquare) == -BitboardPosition.PAWN * color;
+      }
+
+      boolean lastRank = BitboardPosition.rank(to) == 0 || BitboardPosition.rank(to) == 7;
+
+      if (!(push || diagonal && capture) || lastRank != (promotion != 0)
+          || promotion == BitboardPosition.PAWN || promotion == BitboardPosition.KING) {
+        throw new PGNParseException("Invalid move: " + squareName(from) + squareName(to));
+      }
+    } else if (promotion != 0 || (board.attacksTo(type, color, to, board.occupied())
+        & 1L << from) == 0) {
+      throw new PGNParseException("Invalid move: " + squareName(from) + squareName(to));
+    }
+
+    if (board.isKingInCheckAfterMove(from, to, captureSquare, color)) {
+      throw new PGNParseException("Invalid move: " + squareName(from) + squareName(to));
+    }
+
+    StringBuilder stripped = new StringBuilder(6);
+    StringBuilder san = new StringBuilder(8);
+
+    if (type == BitboardPosition.PAWN) {
+      if (capture) {
+        stripped.append(fileName(from));
+        san.append(fileName(from)).append('x');
+      }
+    } else {
+      stripped.append(PIECES[type]);
+      appendDisambiguation(stripped, board, type, color, from, to);
+      san.append(stripped);
+
+      if (capture) {
+        san.append('x');
+      }
+    }
+
+    stripped.append(squareName(to));
+    san.append(squareName(to));
+
+    if (promotion != 0) {
+      san.append('=').append(PIECES[promotion]);
+      move.setPromoted(true);
+      move.setPromotion(PIECES[promotion]);
+    }
+
+    move.setPiece(PIECES[type]);
+    move.setCaptured(capture);
+    move.setMove(stripped.toString());
+    move.setFullMove(san.append(suffix).toString());
+    return move;
+  }
+
+  /**
+   * Check that a king move of two files is a castling move: the king is on its initial square,
+   * a rook of its color is in the corner it castles to and the squares between them are empty.
+   * Castling rights and attacked squares are not checked, as they are not for castling in SAN.
+   */
+  static boolean isCastling(BitboardPosition board, int color, int from, int to,
+      boolean kingSide) {
+    int rank = color == BitboardPosition.WHITE ? 0 : 7;
+    int rookSquare = BitboardPosition.square(kingSide ? 7 : 0, rank);
+
+    if (from != BitboardPosition.square(4, rank) || BitboardPosition.rank(to) != rank
+        || board.get(rookSquare) != BitboardPosition.ROOK * color) {
+      return false;
+    }
+
+    for (int square = Math.min(from, rookSquare) + 1; square < Math.max(from, rookSquare);
+        square++) {
+      if (board.get(square) != 0) {
+        return false;
+      }
+    }
+
+    return true;
+  }
+
+  /**
+   * Append the SAN of a legal move other than castling, without its check mark. The move is
+   * not validated.
+   *
+   * @param san the buffer to append to
+   * @param board the position before the move
+   * @param from the origin square
+   * @param to the destination square
+   * @param promotion the type of the promotion piece, {@code 0} if the move is no promotion
+   */
+  static void appendMove(StringBuilder san, BitboardPosition board, int from, int to,
+      int promotion) {
+    int piece = board.get(from);
+    int type = Math.abs(piece);
+
+    if (type == BitboardPosition.PAWN) {
+      if (BitboardPosition.file(from) != BitboardPosition.file(to)) {
+        san.append(fileName(from)).append('x');
+      }
+    } else {
+      san.append(PIECES[type]);
+      appendDisambiguation(san, board, type, Integer.signum(piece), from, to);
+
+      if (board.get(to) != 0) {
+        san.append('x');
+      }
+    }
+
+    san.append(squareName(to));
+
+    if (promotion != 0) {
+      san.append('=').append(PIECES[promotion]);
+    }
+  }
+
+  private static void appendDisambiguation(StringBuilder san, BitboardPosition board,
+      int type, int color, int from, int to) {
+    long others = board.pieces(type, color) & board.attacksTo(type, color, to, board.occupied())
+        & ~(1L << from);
+    boolean sameFile = false;
+    boolean sameRank = false;
+    boolean ambiguous = false;
+
+    for (; others != 0; others &= others - 1) {
+      int other = Long.numberOfTrailingZeros(others);
+
+      if (board.isKingInCheckAfterMove(other, to, to, color)) {
+        continue;
+      }
+
+      ambiguous = true;
+      sameFile |= BitboardPosition.file(other) == BitboardPosition.file(from);
+      sameRank |= BitboardPosition.rank(other) == BitboardPosition.rank(from);
+    }
+
+    if (!ambiguous) {
+      return;
+    } else if (!sameFile) {
+      san.append(fileName(from));
+    } else if (!sameRank) {
+      san.append(rankName(from));
+    } else {
+      san.append(squareName(from));
+    }
+  }
+
+  private static char fileName(int square) {
+    return (char) ('a' + BitboardPosition.file(square));
+  }
+
+  private static char rankName(int square) {
+    return (char) ('1' + BitboardPosition.rank(square));
+  }
+
+  static String squareName(int square) {
+    return BitboardPosition.name(square);
+  }
+
+}
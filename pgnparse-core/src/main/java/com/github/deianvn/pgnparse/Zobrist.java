@@ -0,0 +1,109 @@
+package com.github.deianvn.pgnparse;
+
+/**
+ * @author Deyan Rizov
+ *
+ * Zobrist keys of chess positions. The random numbers are generated from a fixed seed, so the
+ * key of a position is the same in every run and can be stored with the position.
+ */
+final class Zobrist {
+
+  private static final long SEED = 0x5047_4e50_6172_7365L;
+
+  private static final long[][] PIECES = new long[12][64];
+
+  private static final long[] CASTLING = new long[16];
+
+  private static final long[] ENPASSANT = new long[8];
+
+  private static final long BLACK_TO_MOVE;
+
+  static {
+    long seed = SEED;
+
+    for (long[] piece : PIECES) {
+      for (int square = 0; square < 64; square++) {
+        seed += 0x9E3779B97F4A7C15L;
+        piece[square] = mix(seed);
+      }
+    }
+
+    long[] castles = new long[4];
+
+    for (int i = 0; i < castles.length; i++) {
+      seed += 0x9E3779B97F4A7C15L;
+      castles[i] = mix(seed);
+    }
+
+    for (int castling = 0; castling < CASTLING.length; castling++) {
+      for (int i = 0; i < castles.length; i++) {
+        if ((castling & 1 << i) != 0) {
+          CASTLING[castling] ^= castles[i];
+        }
+      }
+    }
+
+    for (int file = 0; file < ENPASSANT.length; file++) {
+      seed += 0x9E3779B97F4A7C15L;
+      ENPASSANT[file] = mix(seed);
+    }
+
+    seed += 0x9E3779B97F4A7C15L;
+    BLACK_TO_MOVE = mix(seed);
+  }
+
+  private Zobrist() {
+
+  }
+
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  /**
+   * @param piece the signed piece code
+   * @param square the square of the piece
+   * @return the key of the piece on the square
+   */
+  static long piece(int piece, int square) {
+    return PIECES[piece < 0 ? -piece - 1 : piece + 5][square];
+  }
+
+  /**
+   * Get the key of everything but the pieces: side to move, castling rights and the en passant
+   * file. The en passant file is included only if a pawn of the side to move can capture, so
+   * positions that differ only by an unusable en passant square have the same key.
+   */
+  static long state(BitboardPosition board, int player, int castling, int enpassantSquare) {
+    long key = CASTLING[castling];
+
+    if (player == BitboardPosition.BLACK) {
+      key ^= BLACK_TO_MOVE;
+    }
+
+    if (enpassantSquare != BitboardPosition.NO_SQUARE
+        && (BitboardPosition.PAWN_ATTACKS[BitboardPosition.colorIndex(-player)][enpassantSquare]
+        & board.pieces(BitboardPosition.PAWN, player)) != 0) {
+      key ^= ENPASSANT[BitboardPosition.file(enpassantSquare)];
+    }
+
+    return key;
+  }
+
+  /**
+   * Compute the key of a position from scratch.
+   */
+  static long hash(BitboardPosition board, int player, int castling, int enpassantSquare) {
+    long key = state(board, player, castling, enpassantSquare);
+
+    for (long pieces = board.occupied(); pieces != 0; pieces &= pieces - 1) {
+      int square = Long.numberOfTrailingZeros(pieces);
+      key ^= piece(board.get(square), square);
+    }
+
+    return key;
+  }
+
+}
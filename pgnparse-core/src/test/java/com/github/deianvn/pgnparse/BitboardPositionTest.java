@@ -0,0 +1,140 @@
+package com.github.deianvn.pgnparse;
+
+import static com.github.deianvn.pgnparse.BitboardPosition.BISHOP;
+import static com.github.deianvn.pgnparse.BitboardPosition.BLACK;
+import static com.github.deianvn.pgnparse.BitboardPosition.KING;
+import static com.github.deianvn.pgnparse.BitboardPosition.KNIGHT;
+import static com.github.deianvn.pgnparse.BitboardPosition.NO_SQUARE;
+import static com.github.deianvn.pgnparse.BitboardPosition.PAWN;
+import static com.github.deianvn.pgnparse.BitboardPosition.QUEEN;
+import static com.github.deianvn.pgnparse.BitboardPosition.ROOK;
+import static com.github.deianvn.pgnparse.BitboardPosition.WHITE;
+import static com.github.deianvn.pgnparse.BitboardPosition.square;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BitboardPositionTest {
+
+  @Test
+  public void squaresAreNumberedFromA1ToH8() {
+    assertEquals(0, square("a1"));
+    assertEquals(63, square("h8"));
+    assertEquals(square(4, 3), square("e4"));
+    assertEquals("e4", BitboardPosition.name(28));
+    assertEquals(4, BitboardPosition.file(28));
+    assertEquals(3, BitboardPosition.rank(28));
+  }
+
+  @Test
+  public void piecesAreSetAndReplaced() {
+    BitboardPosition board = new BitboardPosition();
+    board.set(square("e1"), KING * WHITE);
+    board.set(square("d8"), QUEEN * BLACK);
+    board.set(square("d8"), KNIGHT * WHITE);
+
+    assertEquals(-KING, board.get(square("e1")));
+    assertEquals(-KNIGHT, board.get(square("d8")));
+    assertEquals(0, board.get(square("e2")));
+    assertEquals(1L << square("e1") | 1L << square("d8"), board.pieces(WHITE));
+    assertEquals(0, board.pieces(BLACK));
+
+    board.set(square("d8"), 0);
+    assertEquals(0, board.get(square("d8")));
+    assertEquals(1L << square("e1"), board.occupied());
+  }
+
+  @Test
+  public void copyIsIndependent() {
+    BitboardPosition board = new BitboardPosition();
+    board.set(square("a2"), PAWN * WHITE);
+    BitboardPosition copy = board.copy();
+    copy.set(square("a2"), 0);
+    copy.set(square("a3"), PAWN * WHITE);
+
+    assertEquals(-PAWN, board.get(square("a2")));
+    assertEquals(0, board.get(square("a3")));
+    assertEquals(-PAWN, copy.get(square("a3")));
+  }
+
+  @Test
+  public void kingSquareIsFound() {
+    BitboardPosition board = new BitboardPosition();
+    assertEquals(NO_SQUARE, board.getKingSquare(WHITE));
+
+    board.set(square("g8"), KING * BLACK);
+    board.set(square("g1"), KING * WHITE);
+    assertEquals(square("g1"), board.getKingSquare(WHITE));
+    assertEquals(square("g8"), board.getKingSquare(BLACK));
+  }
+
+  @Test
+  public void slidingAttacksStopAtTheFirstBlocker() {
+    long occupied = 1L << square("d6") | 1L << square("f4");
+    long rook = BitboardPosition.rookAttacks(square("d4"), occupied);
+    long bishop = BitboardPosition.bishopAttacks(square("d4"), occupied);
+
+    assertTrue((rook & 1L << square("d6")) != 0);
+    assertFalse((rook & 1L << square("d7")) != 0);
+    assertTrue((rook & 1L << square("f4")) != 0);
+    assertFalse((rook & 1L << square("g4")) != 0);
+    assertTrue((rook & 1L << square("a4")) != 0);
+    assertTrue((rook & 1L << square("d1")) != 0);
+    assertEquals(13, Long.bitCount(BitboardPosition.bishopAttacks(square("d4"), 0)));
+    assertEquals(bishop, BitboardPosition.bishopAttacks(square("d4"), 0));
+  }
+
+  @Test
+  public void attackedSquaresAreFound() {
+    BitboardPosition board = new BitboardPosition();
+    board.set(square("e4"), PAWN * WHITE);
+    board.set(square("b1"), KNIGHT * WHITE);
+    board.set(square("h8"), BISHOP * BLACK);
+    board.set(square("e5"), PAWN * BLACK);
+
+    assertTrue(board.isAttacked(square("d5"), WHITE));
+    assertTrue(board.isAttacked(square("c3"), WHITE));
+    assertFalse(board.isAttacked(square("e5"), WHITE));
+    assertTrue(board.isAttacked(square("f6"), BLACK));
+    assertTrue(board.isAttacked(square("d4"), BLACK));
+    assertFalse(board.isAttacked(square("c3"), BLACK));
+  }
+
+  @Test
+  public void pinnedPiecesCannotExposeTheKing() {
+    BitboardPosition board = new BitboardPosition();
+    board.set(square("e1"), KING * WHITE);
+    board.set(square("e2"), ROOK * WHITE);
+    board.set(square("e8"), QUEEN * BLACK);
+    board.set(square("d4"), PAWN * BLACK);
+    board.set(square("e4"), PAWN * WHITE);
+
+    assertFalse(board.isKingInCheckAfterMove(square("e2"), square("e3"), square("e3"), WHITE));
+    assertFalse(board.isKingInCheckAfterMove(square("e4"), square("d5"), square("d5"), WHITE));
+    board.set(square("e4"), 0);
+    assertTrue(board.isKingInCheckAfterMove(square("e2"), square("d2"), square("d2"), WHITE));
+    assertFalse(board.isKingInCheckAfterMove(square("e1"), square("d1"), square("d1"), WHITE));
+  }
+
+  @Test
+  public void enPassantCaptureCannotExposeTheKing() {
+    BitboardPosition board = new BitboardPosition();
+    board.set(square("a5"), KING * WHITE);
+    board.set(square("b5"), PAWN * WHITE);
+    board.set(square("c5"), PAWN * BLACK);
+    board.set(square("h5"), ROOK * BLACK);
+
+    assertTrue(board.isKingInCheckAfterMove(square("b5"), square("c6"), square("c5"), WHITE));
+    assertFalse(board.isKingInCheckAfterMove(square("b5"), square("b6"), square("b6"), WHITE));
+  }
+
+  @Test
+  public void parserSkipsPinnedPiecesWhenResolvingAMove() throws Exception {
+    PGNGame game = PGNParserTest.parse("4k3/4r3/8/8/8/1N6/4N3/4K3 w - - 0 1", "1. Nd4 *");
+
+    assertEquals("b3", game.getMove(0).getFromSquare());
+  }
+
+}
@@ -0,0 +1,169 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DecompressingInputStreamTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void gzipFileIsReadAsThePlainText() throws Exception {
+    String pgn = games();
+    File file = folder.newFile("games.pgn.gz");
+
+    try (OutputStream out = new GZIPOutputStream(new FileOutputStream(file))) {
+      out.write(pgn.getBytes(StandardCharsets.UTF_8));
+    }
+
+    List<PGNGame> games;
+
+    try (Stream<PGNGame> stream = PGNSource.open(file).stream()) {
+      games = stream.collect(Collectors.toList());
+    }
+
+    assertEquals(PGNSourceTest.events(new PGNSource(pgn).listGames()),
+        PGNSourceTest.events(games));
+  }
+
+  @Test
+  public void otherFormatsArePluggedIn() throws Exception {
+    String pgn = games();
+    File file = folder.newFile("games.pgn.z");
+
+    try (OutputStream out = new DeflaterOutputStream(new FileOutputStream(file))) {
+      out.write(pgn.getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertEquals(PGNSourceTest.events(new PGNSource(pgn).listGames()),
+        PGNSourceTest.events(PGNSource.open(file, InflaterInputStream::new).listGames()));
+  }
+
+  @Test
+  public void batchIngesterReadsGzipFiles() throws Exception {
+    String pgn = games();
+
+    try (OutputStream out = new GZIPOutputStream(
+        new FileOutputStream(folder.newFile("games.pgn.gz")))) {
+      out.write(pgn.getBytes(StandardCharsets.UTF_8));
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+
+    try {
+      Map<File, Integer> counts = new PGNBatchIngester(executor)
+          .listGames(folder.getRoot().toPath(), "*.pgn.gz").entrySet().stream()
+          .collect(Collectors.toMap(entry -> entry.getKey().toFile(),
+              entry -> entry.getValue().size()));
+      assertEquals(Map.of(new File(folder.getRoot(), "games.pgn.gz"),
+          new PGNSource(pgn).listGames().size()), counts);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void bytesAreReadInOrder() throws Exception {
+    byte[] text = games().getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(text);
+    }
+
+    ByteArrayOutputStream read = new ByteArrayOutputStream();
+
+    try (InputStream in = new DecompressingInputStream(
+        new ByteArrayInputStream(compressed.toByteArray()), PGNDecompressor.GZIP)) {
+      read.write(in.read());
+      byte[] buffer = new byte[1000];
+      int length;
+
+      while ((length = in.read(buffer, 0, buffer.length)) != -1) {
+        read.write(buffer, 0, length);
+      }
+
+      assertEquals(-1, in.read());
+    }
+
+    assertArrayEquals(text, read.toByteArray());
+  }
+
+  @Test
+  public void errorsOfTheCompressedDataReachTheReader() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(games().getBytes(StandardCharsets.UTF_8));
+    }
+
+    byte[] truncated = Arrays.copyOf(compressed.toByteArray(), compressed.size() / 2);
+    assertReadFails(new DecompressingInputStream(new ByteArrayInputStream(truncated),
+        PGNDecompressor.GZIP));
+    assertReadFails(new DecompressingInputStream(new ByteArrayInputStream(truncated),
+        in -> {
+          throw new IllegalStateException("Corrupt");
+        }));
+  }
+
+  @Test(expected = IOException.class)
+  public void closedStreamCannotBeRead() throws Exception {
+    ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+    try (OutputStream out = new GZIPOutputStream(compressed)) {
+      out.write(games().getBytes(StandardCharsets.UTF_8));
+    }
+
+    InputStream in = new DecompressingInputStream(
+        new ByteArrayInputStream(compressed.toByteArray()), PGNDecompressor.GZIP);
+    in.read();
+    in.close();
+    in.read();
+  }
+
+  private static void assertReadFails(InputStream in) {
+    try (InputStream stream = in) {
+      byte[] buffer = new byte[1 << 16];
+
+      while (stream.read(buffer, 0, buffer.length) != -1) {
+      }
+
+      fail();
+    } catch (IOException e) {
+    }
+  }
+
+  /**
+   * @return enough games for many more chunks than the decompressing thread reads ahead
+   */
+  private static String games() throws PGNParseException {
+    StringBuilder pgn = new StringBuilder();
+    RandomGames.generate(19, 2000, 80).forEach(pgn::append);
+    return pgn.toString();
+  }
+
+}
@@ -0,0 +1,49 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class FENParserTest {
+
+  @Test
+  public void squaresAndPiecesAreTheSharedValues() throws Exception {
+    FENPosition position = FENParser.parse(
+        "rnbqkbnr/pppp1ppp/8/8/3pP3/8/PPP2PPP/RNBQKBNR b KQkq e3 0 3");
+
+    assertEquals(31, position.getOccupiedSquares().size());
+
+    for (String square : position.getOccupiedSquares()) {
+      assertSame(BitboardPosition.name(BitboardPosition.square(square)), square);
+    }
+
+    assertSame(BitboardPosition.name(BitboardPosition.square("e3")),
+        position.getEnpassantSquare());
+    assertSame(PGN.KING, position.getPiece("e8").getType());
+    assertSame(PGN.BLACK, position.getPiece("e8").getColor());
+    assertSame(PGN.PAWN, position.getPiece("d4").getType());
+    assertSame(PGN.KNIGHT, position.getPiece("g1").getType());
+    assertSame(PGN.WHITE, position.getPiece("g1").getColor());
+  }
+
+  @Test
+  public void movesOfDifferentGamesShareTheirSquares() throws Exception {
+    PGNGame first = PGNParser.parse("1. e4 e5 2. Nf3 *");
+    PGNGame second = PGNParser.parse("1. Nf3 d5 2. e4 *");
+
+    assertSame(first.getMove(0).getToSquare(), second.getMove(2).getToSquare());
+    assertSame(first.getMove(2).getFromSquare(), second.getMove(0).getFromSquare());
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void unknownPieceLettersAreRejected() throws Exception {
+    FENParser.parse("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1");
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void piecesPastTheEndOfARankAreRejected() throws Exception {
+    FENParser.parse("rnbqkbnr/pppppppp/8/8/8/1P6P/PPPPPPPP/RNBQKBNR w KQkq - 0 1");
+  }
+
+}
@@ -0,0 +1,129 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PGNBatchIngesterTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ExecutorService executor;
+
+  private Path directory;
+
+  @Before
+  public void setUp() throws Exception {
+    executor = Executors.newFixedThreadPool(4);
+    directory = folder.getRoot().toPath();
+    write("a.pgn", 0, 100, -1);
+    write("b.pgn", 100, 50, 120);
+    write("2020/c.pgn", 150, 30, -1);
+    write("2020/notes.txt", 180, 1, -1);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void filesAreFoundByNameOrRelativePath() throws Exception {
+    assertEquals(Arrays.asList(directory.resolve("2020/c.pgn"), directory.resolve("a.pgn"),
+        directory.resolve("b.pgn")), PGNBatchIngester.findFiles(directory, "*.pgn"));
+    assertEquals(Arrays.asList(directory.resolve("2020/c.pgn")),
+        PGNBatchIngester.findFiles(directory, "2020/*.pgn"));
+  }
+
+  @Test
+  public void everyGameIsPassedInFileOrder() throws Exception {
+    Map<Path, List<PGNParseResult>> results = new ConcurrentHashMap<>();
+    PGNIngestSummary summary = new PGNBatchIngester(executor).ingest(directory, "*.pgn",
+        (file, result) -> results.computeIfAbsent(file, key -> new ArrayList<>()).add(result));
+
+    assertEquals(3, summary.getFilesCount());
+    assertEquals(179, summary.getGamesCount());
+    assertEquals(1, summary.getErrorsCount());
+    assertTrue(summary.getFailedFiles().isEmpty());
+
+    List<PGNParseResult> b = results.get(directory.resolve("b.pgn"));
+    assertEquals(50, b.size());
+
+    for (int i = 0; i < b.size(); i++) {
+      assertEquals(i, b.get(i).getGameNumber());
+      assertEquals(i != 20, b.get(i).isSuccessful());
+    }
+  }
+
+  @Test
+  public void listGamesCollectsTheGamesOfEveryFile() throws Exception {
+    Map<Path, List<PGNGame>> games = new PGNBatchIngester(executor).listGames(directory,
+        "*.pgn");
+
+    assertEquals(Arrays.asList(directory.resolve("2020/c.pgn"), directory.resolve("a.pgn"),
+        directory.resolve("b.pgn")), new ArrayList<>(games.keySet()));
+    assertEquals(30, games.get(directory.resolve("2020/c.pgn")).size());
+    assertEquals(49, games.get(directory.resolve("b.pgn")).size());
+    assertEquals(PGNSourceTest.events(new PGNSource(directory.resolve("a.pgn").toFile())
+        .listGames()), PGNSourceTest.events(games.get(directory.resolve("a.pgn"))));
+  }
+
+  @Test
+  public void tagFilterOfTheOptionsIsApplied() throws Exception {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setTagFilter(game -> Integer.parseInt(game.getTag("Event")) < 10);
+    Map<Path, List<PGNGame>> games = new PGNBatchIngester(executor, options)
+        .listGames(directory, "*.pgn");
+
+    assertEquals(10, games.get(directory.resolve("a.pgn")).size());
+    assertTrue(games.get(directory.resolve("b.pgn")).isEmpty());
+  }
+
+  @Test
+  public void unreadableFilesAreRecorded() {
+    Path missing = directory.resolve("missing.pgn");
+    PGNIngestSummary summary = new PGNBatchIngester(executor).ingest(
+        Arrays.asList(directory.resolve("a.pgn"), missing), (file, result) -> {
+        });
+
+    assertEquals(2, summary.getFilesCount());
+    assertEquals(100, summary.getGamesCount());
+    assertEquals(1, summary.getFailedFiles().size());
+    assertTrue(summary.getFailedFiles().containsKey(missing));
+  }
+
+  /**
+   * Write games numbered from {@code first}, the game {@code bad} with an illegal move.
+   */
+  private void write(String name, int first, int count, int bad) throws IOException {
+    StringBuilder pgn = new StringBuilder();
+
+    for (int i = first; i < first + count; i++) {
+      String move = i == bad ? "Nd4" : "e4";
+      pgn.append("[Event \"").append(i).append("\"]\n\n1. ").append(move).append(" e5 *\n\n");
+    }
+
+    File file = new File(folder.getRoot(), name);
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), pgn.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+}
@@ -0,0 +1,166 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PGNBinaryWriterTest {
+
+  private static final String GAMES = "[Event \"Variations\"]\n"
+      + "[White \"Doe, John\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1. e4 {King pawn} e5 (1... c5 2. Nf3 (2. c3 d5) 2... d6) 2. Qh5 Nc6 3. Bc4 Nf6\n"
+      + "4. Qxf7# 1-0\n"
+      + "\n"
+      + "[Event \"Position\"]\n"
+      + "[FEN \"r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1\"]\n"
+      + "\n"
+      + "1. exd6 O-O-O 2. b8=N Rxd6 3. O-O Rd1 4. Rfxd1 Kxb8 5. Rd3 Kc7 *\n";
+
+  @Test
+  public void gamesAreReadAsWritten() throws Exception {
+    List<PGNGame> games = new ArrayList<>(new PGNSource(GAMES).listGames());
+
+    for (String pgn : RandomGames.generate(14, 50, 120)) {
+      games.add(PGNParser.parse(pgn));
+    }
+
+    List<PGNGame> read = roundTrip(games, null);
+
+    assertEquals(games.size(), read.size());
+
+    for (int i = 0; i < games.size(); i++) {
+      assertEquals(describe(games.get(i)), describe(read.get(i)));
+    }
+  }
+
+  @Test
+  public void readerAppliesItsOptions() throws Exception {
+    PGNParseOptions options = PGNGameTest.positionSnapshots();
+    options.setZobristHashing(true);
+    PGNGame game = PGNParser.parse(GAMES.substring(GAMES.indexOf("[Event \"Position\"]")),
+        options);
+    PGNGame read = roundTrip(List.of(game), options).get(0);
+
+    assertEquals(game.getInitialZobristKey(), read.getInitialZobristKey());
+
+    for (int i = 0; i < game.getMovesCount(); i++) {
+      assertEquals(game.getMove(i).getZobristKey(), read.getMove(i).getZobristKey());
+      assertEquals(game.getFEN(game.getMove(i)), read.getFEN(read.getMove(i)));
+    }
+  }
+
+  @Test
+  public void deeplyNestedVariationsAreReadAsWritten() throws Exception {
+    StringBuilder pgn = new StringBuilder("1. Nf3 Nf6 2. Ng1 Ng8 ");
+
+    for (int i = 0; i < 5000; i++) {
+      pgn.append("(2... Nc6 3. Nf3 Nb8 4. Ng1 Ng8 ");
+    }
+
+    for (int i = 0; i < 5000; i++) {
+      pgn.append(") ");
+    }
+
+    PGNGame game = PGNParser.parse(pgn.append('*').toString());
+    PGNGame read = roundTrip(List.of(game), null).get(0);
+    PGNMove move = read.getMove(3);
+    int depth = 0;
+
+    while (move.hasVariations()) {
+      PGNVariation variation = move.getVariations().get(0);
+      assertEquals(5, variation.getMovesCount());
+      move = variation.getMove(4);
+      depth++;
+    }
+
+    assertEquals(5000, depth);
+  }
+
+  @Test(expected = IOException.class)
+  public void streamWithoutHeaderIsRejected() throws Exception {
+    new PGNBinaryReader(new ByteArrayInputStream(new byte[] {'P', 'G', 'N', ' ', 1}));
+  }
+
+  @Test
+  public void readReturnsNullAtTheEnd() throws Exception {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    new PGNBinaryWriter(bytes).close();
+
+    try (PGNBinaryReader reader = new PGNBinaryReader(
+        new ByteArrayInputStream(bytes.toByteArray()))) {
+      assertNull(reader.read());
+    }
+  }
+
+  private static List<PGNGame> roundTrip(List<PGNGame> games, PGNParseOptions options)
+      throws IOException, PGNParseException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+    try (PGNBinaryWriter writer = new PGNBinaryWriter(bytes)) {
+      for (PGNGame game : games) {
+        writer.write(game);
+      }
+    }
+
+    List<PGNGame> read = new ArrayList<>();
+
+    try (PGNBinaryReader reader = new PGNBinaryReader(
+        new ByteArrayInputStream(bytes.toByteArray()), options)) {
+      PGNGame game;
+
+      while ((game = reader.read()) != null) {
+        read.add(game);
+      }
+    }
+
+    return read;
+  }
+
+  /**
+   * @return the tags and moves of a game, with its comments and variations
+   */
+  static String describe(PGNGame game) {
+    TreeMap<String, String> tags = new TreeMap<>();
+
+    for (String key : game.getTagKeys()) {
+      tags.put(key, game.getTag(key));
+    }
+
+    StringBuilder description = new StringBuilder(tags.toString());
+    describe(game, description);
+    return description.toString();
+  }
+
+  private static void describe(PGNMoveContainer container, StringBuilder description) {
+    for (PGNMove move : container.getMoves()) {
+      description.append(' ').append(move.getFullMove()).append(':')
+          .append(move.getFromSquare()).append(move.getToSquare());
+
+      if (move.getComment() != null && !move.getComment().trim().isEmpty()) {
+        description.append(" {").append(move.getComment().trim()).append('}');
+      }
+
+      if (move.isEndGameMarked()) {
+        description.append(' ').append(move.getEndGameMark());
+      }
+
+      if (move.hasVariations()) {
+        for (PGNVariation variation : move.getVariations()) {
+          description.append(" (");
+          describe(variation, description);
+          description.append(" )");
+        }
+      }
+    }
+  }
+
+}
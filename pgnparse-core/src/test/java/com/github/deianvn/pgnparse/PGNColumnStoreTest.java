@@ -0,0 +1,112 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.junit.Test;
+
+public class PGNColumnStoreTest {
+
+  private static final String PGN = "[ECO \"C20\"]\n[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 1-0\n\n"
+      + "[ECO \"B20\"]\n[Result \"1/2-1/2\"]\n\n1. e4 c5 1/2-1/2\n\n"
+      + "[ECO \"C20\"]\n[Result \"0-1\"]\n\n1. e4 e5 2. Qh5 0-1\n\n"
+      + "[Result \"1-0\"]\n\n1. d4 d5 1-0\n\n"
+      + "[ECO \"B20\"]\n[Result \"*\"]\n\n1. e4 c5 *\n\n"
+      + "[ECO \"A00\"]\n[Result \"1-0\"]\n\n1. e5 1-0\n\n";
+
+  @Test
+  public void gamesAreStoredByColumn() {
+    PGNColumnStore store = PGNColumnStore.build(new PGNSource(PGN), false);
+
+    assertEquals(5, store.getGamesCount());
+    assertEquals(12, store.getMovesCount());
+    assertEquals(3, store.getMovesCount(2));
+    assertEquals("d1h5", store.getMove(2, 2));
+    assertEquals("[ECO, Result]", store.getTagNames().toString());
+    assertEquals("B20", store.getTag(4, "ECO"));
+    assertNull(store.getTag(3, "ECO"));
+    assertNull(store.getTag(0, "Event"));
+  }
+
+  @Test
+  public void movesAreCountedByResult() {
+    PGNColumnStore store = PGNColumnStore.build(new PGNSource(PGN), true);
+
+    assertEquals("{d2d4=1/0/0, e2e4=1/1/1}", statistics(store.getMoves(0)));
+    assertEquals("{c7c5=0/1/0, d7d5=1/0/0, e7e5=1/0/1}", statistics(store.getMoves(1)));
+    assertEquals("{d1h5=0/0/1, g1f3=1/0/0}", statistics(store.getMoves(2)));
+    assertEquals("{}", statistics(store.getMoves(3)));
+    assertEquals("{e7e5=1/0/1}", statistics(store.getMoves(1, "ECO", "C20")));
+    assertEquals("{}", statistics(store.getMoves(1, "ECO", "E99")));
+    assertEquals("{}", statistics(store.getMoves(1, "Opening", "C20")));
+  }
+
+  @Test
+  public void resultsAreGroupedByTagValue() {
+    PGNColumnStore store = PGNColumnStore.build(new PGNSource(PGN), false);
+    List<String> results = new ArrayList<>();
+
+    for (PGNResultStatistics statistics : store.getResults("ECO")) {
+      results.add(statistics.getValue() + "=" + statistics.getWhiteWins() + "/"
+          + statistics.getDraws() + "/" + statistics.getBlackWins());
+    }
+
+    assertEquals("[C20=1/0/1, B20=0/1/0]", results.toString());
+    assertTrue(store.getResults("Event").isEmpty());
+  }
+
+  @Test
+  public void manyGamesAreStoredAsParsed() throws Exception {
+    StringBuilder text = new StringBuilder();
+    RandomGames.generate(16, 1500, 40).forEach(text::append);
+    List<PGNGame> games = new PGNSource(text.toString()).listGames();
+
+    for (boolean offHeap : new boolean[] {false, true}) {
+      PGNColumnStore store = PGNColumnStore.build(new PGNSource(text.toString()), offHeap);
+      assertEquals(games.size(), store.getGamesCount());
+
+      for (int i = 0; i < games.size(); i++) {
+        PGNGame game = games.get(i);
+        assertEquals(game.getMovesCount(), store.getMovesCount(i));
+        assertEquals(game.getTag("Event"), store.getTag(i, "Event"));
+
+        for (int ply = 0; ply < game.getMovesCount(); ply++) {
+          assertEquals(PGNOpeningTree.toCoordinates(
+              PGNOpeningTree.encodeMove(game.getMove(ply))), store.getMove(i, ply));
+        }
+      }
+    }
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void negativePlyIsRejected() {
+    PGNColumnStore.build(new PGNSource(PGN), false).getMoves(-1);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void plyPastTheEndOfAGameIsRejected() {
+    PGNColumnStore.build(new PGNSource(PGN), false).getMove(3, 2);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void unknownGameIsRejected() {
+    PGNColumnStore.build(new PGNSource(PGN), false).getTag(5, "ECO");
+  }
+
+  private static String statistics(List<PGNMoveStatistics> moves) {
+    Map<String, String> statistics = new TreeMap<>();
+
+    for (PGNMoveStatistics move : moves) {
+      statistics.put(move.getMove(),
+          move.getWhiteWins() + "/" + move.getDraws() + "/" + move.getBlackWins());
+    }
+
+    return statistics.toString();
+  }
+
+}
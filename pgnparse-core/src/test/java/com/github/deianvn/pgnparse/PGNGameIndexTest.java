@@ -0,0 +1,160 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PGNGameIndexTest {
+
+  private static final String PGN = "[Event \"0\"]\n"
+      + "\n"
+      + "1. e4 e5 1-0\n"
+      + "\n"
+      + "\n"
+      + "[Event \"1\"]\r\n"
+      + "[Result \"0-1\"]\r\n"
+      + "\r\n"
+      + "1. d4 d5 2. c4 0-1\r\n"
+      + "   [Event \"2\"]\n"
+      + "1. Nf3 {no result on this line 1-0 is not the end}\n"
+      + "Nf6 1/2-1/2\n"
+      + "[Event \"3\"]\n"
+      + "\n"
+      + "1. c4 *";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private File file;
+
+  @Before
+  public void setUp() throws IOException {
+    file = folder.newFile("games.pgn");
+    Files.write(file.toPath(), PGN.getBytes(StandardCharsets.ISO_8859_1));
+  }
+
+  @Test
+  public void indexFindsTheGamesOfSplit() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(file);
+    PGNGameIndex index = source.getIndex();
+    List<String> pgns = PGNParser.split(PGN);
+
+    assertEquals(pgns.size(), index.getGamesCount());
+    assertEquals(4, source.getGamesCount());
+
+    for (int i = 0; i < pgns.size(); i++) {
+      PGNGame expected = PGNParser.parse(pgns.get(i));
+      PGNGame game = source.getGame(i);
+      assertEquals(String.valueOf(i), game.getTag("Event"));
+      assertEquals(moves(expected), moves(game));
+    }
+
+    assertEquals(0, index.getOffset(0));
+    assertEquals(PGN.indexOf("[Event \"1\"]"), index.getOffset(1));
+    assertEquals(PGN.indexOf("[Event \"2\"]"), index.getOffset(2));
+    assertEquals(PGN.length(), index.getOffset(3) + index.getLength(3));
+  }
+
+  @Test
+  public void listGamesReadsARangeOfGames() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(file);
+
+    assertEquals("[1, 2]", PGNSourceTest.events(source.listGames(1, 3)));
+    assertTrue(source.listGames(4, 4).isEmpty());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void listGamesRejectsARangeOutOfTheFile() throws Exception {
+    new PGNMappedSource(file).listGames(2, 5);
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void getGameRejectsANegativeNumber() throws Exception {
+    new PGNMappedSource(file).getGame(-1);
+  }
+
+  @Test
+  public void sidecarIndexIsSavedAndLoaded() throws Exception {
+    File sidecar = PGNGameIndex.getSidecarFile(file);
+    PGNGameIndex built = new PGNMappedSource(file).loadIndex(sidecar);
+
+    assertEquals(file.getPath() + ".idx", sidecar.getPath());
+    assertTrue(sidecar.exists());
+    assertTrue(built.matches(file));
+
+    PGNGameIndex loaded = PGNGameIndex.load(sidecar);
+    assertEquals(entries(built), entries(loaded));
+    assertEquals(entries(built), entries(new PGNMappedSource(file).loadIndex(sidecar)));
+  }
+
+  @Test
+  public void staleSidecarIndexIsRebuilt() throws Exception {
+    File sidecar = PGNGameIndex.getSidecarFile(file);
+    new PGNGameIndex(PGN.length(), file.lastModified() - 1000, 0).save(sidecar);
+
+    assertFalse(PGNGameIndex.load(sidecar).matches(file));
+    assertEquals(4, new PGNMappedSource(file).loadIndex(sidecar).getGamesCount());
+    assertTrue(PGNGameIndex.load(sidecar).matches(file));
+  }
+
+  @Test
+  public void corruptSidecarIndexIsRebuilt() throws Exception {
+    File sidecar = PGNGameIndex.getSidecarFile(file);
+    Files.write(sidecar.toPath(), "not an index".getBytes(StandardCharsets.US_ASCII));
+
+    assertEquals(4, new PGNMappedSource(file).loadIndex(sidecar).getGamesCount());
+    assertEquals(4, PGNGameIndex.load(sidecar).getGamesCount());
+  }
+
+  @Test
+  public void truncatedSidecarIndexIsRebuilt() throws Exception {
+    File sidecar = PGNGameIndex.getSidecarFile(file);
+    String expected = entries(new PGNMappedSource(file).loadIndex(sidecar));
+    byte[] bytes = Files.readAllBytes(sidecar.toPath());
+    Files.write(sidecar.toPath(), Arrays.copyOf(bytes, bytes.length - 4));
+
+    assertEquals(expected, entries(new PGNMappedSource(file).loadIndex(sidecar)));
+    assertEquals(expected, entries(PGNGameIndex.load(sidecar)));
+  }
+
+  @Test(expected = IOException.class)
+  public void loadRejectsATruncatedIndex() throws Exception {
+    File sidecar = folder.newFile("truncated.idx");
+    new PGNMappedSource(file).getIndex().save(sidecar);
+    byte[] bytes = Files.readAllBytes(sidecar.toPath());
+    Files.write(sidecar.toPath(), Arrays.copyOf(bytes, bytes.length - 1));
+    PGNGameIndex.load(sidecar);
+  }
+
+  private static String moves(PGNGame game) {
+    StringBuilder moves = new StringBuilder();
+
+    for (PGNMove move : game.getMoves()) {
+      moves.append(move.getMove()).append(' ');
+    }
+
+    return moves.toString();
+  }
+
+  private static String entries(PGNGameIndex index) {
+    StringBuilder entries = new StringBuilder();
+
+    for (int i = 0; i < index.getGamesCount(); i++) {
+      entries.append(index.getOffset(i)).append(':').append(index.getLength(i)).append(' ');
+    }
+
+    return entries.toString();
+  }
+
+}
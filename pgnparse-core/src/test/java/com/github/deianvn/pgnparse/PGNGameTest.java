@@ -0,0 +1,139 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.Test;
+
+public class PGNGameTest {
+
+  private static final String START =
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  @Test
+  public void fenIsKnownAtEveryPlyWithPositionSnapshots() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 c5 2. Nf3 d6 3. Bb5+ Nd7 4. O-O *",
+        positionSnapshots());
+
+    assertEquals(START, game.getFEN(null));
+    assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1",
+        game.getFEN(game.getMove(0)));
+    assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2",
+        game.getFEN(game.getMove(2)));
+    assertEquals("r1bqkbnr/pp1npppp/3p4/1Bp5/4P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 2 4",
+        game.getFEN(game.getMove(5)));
+    assertEquals("r1bqkbnr/pp1npppp/3p4/1Bp5/4P3/5N2/PPPP1PPP/RNBQ1RK1 b kq - 3 4",
+        game.getFEN(game.getMove(6)));
+  }
+
+  @Test
+  public void fenIsKnownForVariationsAndCustomPositions() throws Exception {
+    PGNGame game = PGNParser.parse("[FEN \"4k3/8/8/8/8/8/4P3/4K2R w K - 5 40\"]\n\n"
+        + "1. O-O (1. e4 Kf7) 1... Kd7 *", positionSnapshots());
+
+    assertEquals("4k3/8/8/8/8/8/4P3/4K2R w K - 5 40", game.getFEN(null));
+    assertEquals("4k3/8/8/8/8/8/4P3/5RK1 b - - 6 40", game.getFEN(game.getMove(0)));
+    assertEquals("8/3k4/8/8/8/8/4P3/5RK1 w - - 7 41", game.getFEN(game.getMove(1)));
+
+    PGNMoveContainer variation = game.getMove(0).getVariations().get(0);
+    assertEquals("4k3/8/8/8/4P3/8/8/4K2R b K e3 0 40", game.getFEN(variation.getMove(0)));
+    assertEquals("8/5k2/8/8/4P3/8/8/4K2R w K - 1 41", game.getFEN(variation.getMove(1)));
+  }
+
+  @Test
+  public void positionSnapshotsAreOffByDefault() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *");
+
+    assertEquals(START, game.getFEN(null));
+    assertNull(game.getMove(0).getPosition());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fenOfAMoveIsUnknownWithoutPositionSnapshots() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *");
+    game.getFEN(game.getMove(0));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void fenOfAMoveOfAnotherGameIsUnknown() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *", positionSnapshots());
+    game.getFEN(new PGNMove());
+  }
+
+  @Test
+  public void lazyMovetextIsParsedOnFirstUse() throws Exception {
+    String pgn = "[Event \"Lazy\"]\n[FEN \"4k3/8/8/8/8/8/4P3/4K2R w K - 0 1\"]\n\n"
+        + "1. O-O {castles} (1. e4 Kd7) 1... Kd7 2. e4 *";
+    PGNParseOptions options = positionSnapshots();
+    options.setZobristHashing(true);
+    PGNGame eager = PGNParser.parse(pgn, options);
+    options.setLazyMovetext(true);
+    PGNGame lazy = PGNParser.parse(pgn, options);
+
+    assertEquals("Lazy", lazy.getTag("Event"));
+    assertEquals(eager.getMovesCount(), lazy.getMovesCount());
+    assertEquals(eager.getInitialZobristKey(), lazy.getInitialZobristKey());
+
+    for (int i = 0; i < eager.getMovesCount(); i++) {
+      assertEquals(eager.getMove(i).getFullMove(), lazy.getMove(i).getFullMove());
+      assertEquals(eager.getMove(i).getZobristKey(), lazy.getMove(i).getZobristKey());
+      assertEquals(eager.getFEN(eager.getMove(i)), lazy.getFEN(lazy.getMove(i)));
+    }
+
+    assertEquals("castles", lazy.getMove(0).getComment().trim());
+    assertEquals(2, lazy.getMove(0).getVariations().get(0).getMovesCount());
+  }
+
+  @Test
+  public void lazyMovetextErrorsAreReportedOnUse() throws Exception {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setLazyMovetext(true);
+    PGNGame game = PGNParser.parse("[Event \"Lazy\"]\n\n1. e4 e4 *", options);
+
+    assertEquals("Lazy", game.getTag("Event"));
+
+    for (int i = 0; i < 2; i++) {
+      try {
+        game.getMovesCount();
+        fail();
+      } catch (IllegalStateException e) {
+        assertTrue(e.getCause() instanceof PGNParseException);
+      }
+    }
+  }
+
+  @Test
+  public void lazyMovetextIsParsedOnceForConcurrentReaders() throws Exception {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setLazyMovetext(true);
+    PGNGame game = PGNParser.parse("1. e4 e5 2. Nf3 Nc6 3. Bb5 a6 *", options);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> counts = new ArrayList<>();
+
+    try {
+      for (int i = 0; i < 8; i++) {
+        counts.add(executor.submit(game::getMovesCount));
+      }
+
+      for (Future<Integer> count : counts) {
+        assertEquals(6, (int) count.get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  static PGNParseOptions positionSnapshots() {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setPositionSnapshots(true);
+    return options;
+  }
+
+}
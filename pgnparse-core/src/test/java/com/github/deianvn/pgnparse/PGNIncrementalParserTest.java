@@ -0,0 +1,127 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+public class PGNIncrementalParserTest {
+
+  private static final String GAME = "[Event \"Live\"]\r\n"
+      + "[Result \"1-0\"]\r\n"
+      + "\r\n"
+      + "1. e4 {King pawn,\r\nsecond line} e5 (1... c5 2. Nf3 (2. c3 d5) 2... d6) 2. Qh5 $1\r\n"
+      + "Nc6 ; threat\r\n"
+      + "3. Bc4 Nf6?? 4. Qxf7# 1-0\r\n";
+
+  @Test
+  public void gameSplitAnywhereIsParsedAsAWhole() throws Exception {
+    String expected = PGNBinaryWriterTest.describe(PGNParser.parse(GAME));
+
+    for (int split = 0; split <= GAME.length(); split++) {
+      PGNIncrementalParser parser = new PGNIncrementalParser();
+      int movesCount = parser.append(GAME.substring(0, split)).size();
+      movesCount += parser.append(GAME.substring(split)).size();
+      movesCount += parser.finish().size();
+
+      assertEquals(GAME.substring(0, split), expected,
+          PGNBinaryWriterTest.describe(parser.getGame()));
+      assertEquals(7, movesCount);
+      assertTrue(parser.isGameTerminated());
+    }
+  }
+
+  @Test
+  public void gamesReadInRandomPiecesAreParsedAsAWhole() throws Exception {
+    Random random = new Random(20);
+
+    for (String pgn : RandomGames.generate(20, 100, 200)) {
+      PGNIncrementalParser parser = new PGNIncrementalParser();
+      int movesCount = 0;
+
+      for (int start = 0; start < pgn.length(); ) {
+        int end = Math.min(pgn.length(), start + 1 + random.nextInt(12));
+        movesCount += parser.append(pgn.substring(start, end)).size();
+        start = end;
+      }
+
+      movesCount += parser.finish().size();
+      PGNGame game = PGNParser.parse(pgn);
+
+      assertEquals(PGNBinaryWriterTest.describe(game),
+          PGNBinaryWriterTest.describe(parser.getGame()));
+      assertEquals(game.getMovesCount(), movesCount);
+    }
+  }
+
+  @Test
+  public void movesAreReturnedOnceTheyAreComplete() throws Exception {
+    PGNIncrementalParser parser = new PGNIncrementalParser();
+
+    assertEquals(2, parser.append("1. e4 e5 2. N").size());
+
+    List<PGNMove> moves = parser.append("f3");
+    assertTrue(moves.isEmpty());
+
+    moves = parser.append(" Nc6 ");
+    assertEquals(2, moves.size());
+    assertEquals("Nf3", moves.get(0).getMove());
+    assertFalse(parser.isGameTerminated());
+
+    moves = parser.finish();
+    assertTrue(moves.isEmpty());
+    assertEquals(4, parser.getGame().getMovesCount());
+  }
+
+  @Test
+  public void parserCannotContinueAfterAnError() throws Exception {
+    PGNIncrementalParser parser = new PGNIncrementalParser();
+    parser.append("1. e4 e5 ");
+
+    try {
+      parser.append("2. Nd4 ");
+      fail();
+    } catch (PGNParseException e) {
+    }
+
+    try {
+      parser.append("Nc6 ");
+      fail();
+    } catch (IllegalStateException e) {
+    }
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void unclosedVariationIsRejectedAtTheEnd() throws Exception {
+    PGNIncrementalParser parser = new PGNIncrementalParser();
+    parser.append("1. e4 (1. d4 d5 ");
+    parser.finish();
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void unclosedCommentIsRejectedAtTheEnd() throws Exception {
+    PGNIncrementalParser parser = new PGNIncrementalParser();
+    parser.append("1. e4 {no end");
+    parser.finish();
+  }
+
+  @Test
+  public void optionsAreApplied() throws Exception {
+    PGNParseOptions options = PGNGameTest.positionSnapshots();
+    options.setZobristHashing(true);
+    PGNIncrementalParser parser = new PGNIncrementalParser(options);
+    parser.append("1. e4 e");
+    parser.append("5 2. Nf3 *");
+    parser.finish();
+    PGNGame game = PGNParser.parse("1. e4 e5 2. Nf3 *", options);
+
+    assertEquals(game.getMove(2).getZobristKey(), parser.getGame().getMove(2).getZobristKey());
+    assertEquals(game.getFEN(game.getMove(2)),
+        parser.getGame().getFEN(parser.getGame().getMove(2)));
+  }
+
+}
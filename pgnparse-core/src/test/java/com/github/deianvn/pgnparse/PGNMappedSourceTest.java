@@ -0,0 +1,111 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PGNMappedSourceTest {
+
+  private static final String PGN = "[Event \"First\"]\r\n"
+      + "[White \"Café\"]\r\n"
+      + "\r\n"
+      + "1. e4 e5 2. Nf3 {A comment\r\n"
+      + "over two lines} Nc6 1-0\r\n"
+      + "\r\n"
+      + "[Event \"Bad\"]\n"
+      + "\n"
+      + "1. e5 *\n"
+      + "\n"
+      + "  [Event \"Third\"]\n"
+      + "\n"
+      + "  1. d4 d5 1/2-1/2";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void streamFindsTheSameGamesAsPGNSource() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(write(PGN, StandardCharsets.ISO_8859_1));
+    List<PGNGame> expected = new PGNSource(PGN).forceListGames();
+
+    assertEquals(PGN.length(), source.size());
+    assertEquals(PGNSourceTest.events(expected), PGNSourceTest.events(source.forceListGames()));
+
+    try (Stream<PGNGame> games = source.stream()) {
+      List<PGNGame> streamed = games.collect(Collectors.toList());
+      assertEquals("[First, Third]", PGNSourceTest.events(streamed));
+      assertEquals("Café", streamed.get(0).getTag("White"));
+      assertEquals(4, streamed.get(0).getMovesCount());
+      assertEquals("A comment over two lines",
+          streamed.get(0).getMove(2).getComment().trim().replaceAll("\\s+", " "));
+      assertEquals(2, streamed.get(1).getMovesCount());
+    }
+  }
+
+  @Test
+  public void gameTextIsDecodedWithTheGivenCharset() throws Exception {
+    File file = write(PGN, StandardCharsets.UTF_8);
+    PGNMappedSource source = new PGNMappedSource(file, StandardCharsets.UTF_8);
+
+    assertEquals("Café", source.forceListGames().get(0).getTag("White"));
+    assertEquals("CafÃ©", new PGNMappedSource(file).forceListGames().get(0)
+        .getTag("White"));
+  }
+
+  @Test
+  public void streamTagsDecodesOnlyTheTags() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(write(PGN, StandardCharsets.ISO_8859_1));
+
+    try (Stream<PGNGame> games = source.streamTags()) {
+      List<PGNGame> tags = games.collect(Collectors.toList());
+      assertEquals("[First, Bad, Third]", PGNSourceTest.events(tags));
+      assertEquals("Café", tags.get(0).getTag("White"));
+      assertEquals(0, tags.get(0).getMovesCount());
+    }
+  }
+
+  @Test
+  public void streamSkipsGamesRejectedByTheTagFilter() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(write(PGN, StandardCharsets.ISO_8859_1));
+    PGNParseOptions options = new PGNParseOptions();
+    options.setTagFilter(game -> !"First".equals(game.getTag("Event")));
+
+    try (Stream<PGNGame> games = source.stream(options)) {
+      List<PGNGame> filtered = games.collect(Collectors.toList());
+      assertEquals("[Third]", PGNSourceTest.events(filtered));
+      assertEquals(2, filtered.get(0).getMovesCount());
+    }
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void listGamesReportsGamesThatCannotBeParsed() throws Exception {
+    new PGNMappedSource(write(PGN, StandardCharsets.ISO_8859_1)).listGames();
+  }
+
+  @Test
+  public void emptyFileHasNoGames() throws Exception {
+    PGNMappedSource source = new PGNMappedSource(write("", StandardCharsets.ISO_8859_1));
+
+    assertEquals(0, source.size());
+    assertTrue(source.forceListGames().isEmpty());
+    assertEquals(0, source.stream().count());
+  }
+
+  private File write(String pgn, Charset charset) throws IOException {
+    File file = folder.newFile("games.pgn");
+    Files.write(file.toPath(), pgn.getBytes(charset));
+    return file;
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+public class PGNMoveGeneratorTest {
+
+  private static final String START = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  private static final String KIWIPETE =
+      "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+  @Test
+  public void perftOfTheStartPosition() throws Exception {
+    assertPerft(START, 20, 400, 8902, 197281);
+  }
+
+  @Test
+  public void perftOfKiwipete() throws Exception {
+    assertPerft(KIWIPETE, 48, 2039, 97862);
+  }
+
+  @Test
+  public void perftOfEnPassantAndPinsAlongARank() throws Exception {
+    assertPerft("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", 14, 191, 2812, 43238);
+  }
+
+  @Test
+  public void perftOfPromotionsAndCastlingOutOfCheck() throws Exception {
+    assertPerft("r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1", 6, 264,
+        9467);
+    assertPerft("rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8", 44, 1486, 62379);
+  }
+
+  @Test
+  public void legalMovesAreWrittenInSAN() throws Exception {
+    List<String> moves = PGNMoveGenerator.getLegalMoves(START);
+
+    assertEquals(20, moves.size());
+    assertTrue(moves.containsAll(List.of("a3", "e4", "Na3", "Nf3")));
+
+    moves = PGNMoveGenerator.getLegalMoves(KIWIPETE);
+    assertEquals(48, moves.size());
+    assertTrue(moves.containsAll(List.of("O-O", "O-O-O", "Nxf7", "Qxf6", "d6", "Nc6")));
+
+    moves = PGNMoveGenerator.getLegalMoves(
+        "rnbqkbnr/pppp1ppp/8/4p3/6P1/5P2/PPPPP2P/RNBQKBNR b KQkq g3 0 2");
+    assertTrue(moves.contains("Qh4#"));
+
+    moves = PGNMoveGenerator.getLegalMoves("6k1/P7/8/8/8/8/8/K7 w - - 0 1");
+    assertTrue(moves.containsAll(List.of("a8=Q+", "a8=R+", "a8=B", "a8=N")));
+  }
+
+  @Test
+  public void pinnedPiecesAndKingsInCheckHaveOnlyTheirLegalMoves() throws Exception {
+    assertEquals(Set.of("Kd7", "Kf7"), new HashSet<>(
+        PGNMoveGenerator.getLegalMoves("3rkr2/8/8/8/8/8/8/4R1K1 b - - 0 1")));
+    assertEquals(Set.of("Re3", "Re4", "Re5", "Re6", "Rxe7+", "Kd1", "Kf1", "Kd2", "Kf2"),
+        new HashSet<>(PGNMoveGenerator.getLegalMoves("4k3/4r3/8/8/8/8/4R3/4K3 w - - 0 1")));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void perftNeedsOnePly() throws Exception {
+    PGNMoveGenerator.perft(START, 0);
+  }
+
+  private static void assertPerft(String fen, long... nodes) throws PGNParseException {
+    for (int depth = 1; depth <= nodes.length; depth++) {
+      assertEquals(fen + " " + depth, nodes[depth - 1], PGNMoveGenerator.perft(fen, depth));
+    }
+  }
+
+}
@@ -0,0 +1,162 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PGNOpeningTreeTest {
+
+  private static final String PGN = "[Result \"1-0\"]\n\n1. e4 e5 2. Nf3 1-0\n\n"
+      + "[Result \"1/2-1/2\"]\n\n1. e4 c5 1/2-1/2\n\n"
+      + "[Result \"0-1\"]\n\n1. d4 d5 2. Nf3 0-1\n\n"
+      + "[Result \"1-0\"]\n\n1. Nf3 d5 2. d4 Nf6 1-0\n\n"
+      + "[Result \"*\"]\n\n1. e4 e5 *\n\n"
+      + "[Result \"1-0\"]\n\n1. e5 1-0\n\n";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void movesAreCountedByResult() throws Exception {
+    PGNOpeningTree tree = PGNOpeningTree.build(new PGNSource(PGN), 40,
+        folder.newFile("tree.bin"), executor);
+    PGNGame game = parse("1. e4 e5 2. Nf3 d5 3. d4 *");
+
+    assertEquals(2, tree.getSkippedGamesCount());
+    assertEquals("{d2d4=0/0/1, e2e4=1/1/0, g1f3=1/0/0}",
+        statistics(tree.getMoves(game.getInitialZobristKey())));
+    assertEquals("{c7c5=0/1/0, e7e5=1/0/0}", statistics(tree.getMoves(game.getMove(0))));
+    assertEquals("{}", statistics(tree.getMoves(game.getMove(2))));
+  }
+
+  @Test
+  public void transpositionsShareTheirMoves() throws Exception {
+    PGNOpeningTree tree = PGNOpeningTree.build(new PGNSource(PGN), 40,
+        folder.newFile("tree.bin"), executor);
+    PGNGame game = parse("1. d4 d5 2. Nf3 *");
+
+    assertEquals("{g8f6=1/0/0}", statistics(tree.getMoves(game.getMove(2))));
+    assertEquals("{d7d5=1/0/0}", statistics(tree.getMoves(parse("1. Nf3 *").getMove(0))));
+  }
+
+  @Test
+  public void onlyTheFirstPliesAreIncluded() throws Exception {
+    PGNOpeningTree tree = PGNOpeningTree.build(new PGNSource(PGN), 1,
+        folder.newFile("tree.bin"), executor);
+
+    assertEquals(3, tree.size());
+    assertEquals("{}", statistics(tree.getMoves(parse("1. e4 *").getMove(0))));
+  }
+
+  @Test
+  public void treeIsReopenedFromItsFile() throws Exception {
+    File file = folder.newFile("tree.bin");
+    PGNOpeningTree built = PGNOpeningTree.build(new PGNSource(PGN), 40, file, executor);
+    PGNOpeningTree opened = new PGNOpeningTree(file);
+    long key = parse("1. e4 *").getInitialZobristKey();
+
+    assertEquals(built.size(), opened.size());
+    assertEquals(0, opened.getSkippedGamesCount());
+    assertEquals(statistics(built.getMoves(key)), statistics(opened.getMoves(key)));
+  }
+
+  @Test
+  public void treeOfAMappedSourceIsTheSame() throws Exception {
+    File pgnFile = folder.newFile("games.pgn");
+    Files.write(pgnFile.toPath(), PGN.getBytes(StandardCharsets.ISO_8859_1));
+    PGNOpeningTree tree = PGNOpeningTree.build(new PGNMappedSource(pgnFile), 40,
+        folder.newFile("tree.bin"), executor);
+
+    assertEquals(2, tree.getSkippedGamesCount());
+    assertEquals("{d2d4=0/0/1, e2e4=1/1/0, g1f3=1/0/0}",
+        statistics(tree.getMoves(parse("1. e4 *").getInitialZobristKey())));
+  }
+
+  @Test
+  public void everyPositionOfManyGamesIsCounted() throws Exception {
+    List<String> pgns = RandomGames.generate(10, 300, 60);
+    Map<Long, Map<String, String>> expected = new HashMap<>();
+    Map<Long, Map<String, int[]>> counts = new HashMap<>();
+
+    for (String pgn : pgns) {
+      PGNGame game = parse(pgn);
+      int result = PGNOpeningTree.getResult(game);
+      long key = game.getInitialZobristKey();
+
+      for (PGNMove move : game.getMoves()) {
+        String coordinates = PGNOpeningTree.toCoordinates(PGNOpeningTree.encodeMove(move));
+        counts.computeIfAbsent(key, k -> new TreeMap<>())
+            .computeIfAbsent(coordinates, k -> new int[3])[result]++;
+        key = move.getZobristKey();
+      }
+    }
+
+    counts.forEach((key, moves) -> {
+      Map<String, String> statistics = new TreeMap<>();
+      moves.forEach((move, results) -> statistics.put(move,
+          results[0] + "/" + results[1] + "/" + results[2]));
+      expected.put(key, statistics);
+    });
+
+    StringBuilder text = new StringBuilder();
+    pgns.forEach(text::append);
+    PGNOpeningTree tree = PGNOpeningTree.build(new PGNSource(text.toString()), 60,
+        folder.newFile("tree.bin"), executor);
+    long size = 0;
+
+    for (Map.Entry<Long, Map<String, String>> position : expected.entrySet()) {
+      assertEquals(position.getValue().toString(), statistics(tree.getMoves(position.getKey())));
+      size += position.getValue().size();
+    }
+
+    assertTrue(size > 1024);
+    assertEquals(size, tree.size());
+    assertEquals(0, tree.getSkippedGamesCount());
+  }
+
+  private static String statistics(List<PGNMoveStatistics> moves) {
+    Map<String, String> statistics = new TreeMap<>();
+
+    for (PGNMoveStatistics move : moves) {
+      assertEquals(move.getWhiteWins() + move.getDraws() + move.getBlackWins(),
+          move.getGamesCount());
+      statistics.put(move.getMove(),
+          move.getWhiteWins() + "/" + move.getDraws() + "/" + move.getBlackWins());
+    }
+
+    return statistics.toString();
+  }
+
+  private static PGNGame parse(String pgn) throws PGNParseException {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setZobristHashing(true);
+    return PGNParser.parse(pgn, options);
+  }
+
+}
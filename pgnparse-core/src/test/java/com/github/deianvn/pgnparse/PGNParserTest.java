@@ -0,0 +1,263 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+public class PGNParserTest {
+
+  @Test
+  public void pieceMovesAreDisambiguatedByFileRankOrSquare() throws Exception {
+    PGNGame game = PGNParser.parse("1. d4 d5 2. Nf3 Nf6 3. Nbd2 *");
+    assertEquals("b1", game.getMove(4).getFromSquare());
+    assertEquals("Nbd2", game.getMove(4).getMove());
+
+    game = parse("4k3/8/8/R7/8/8/8/R3K3 w - - 0 1", "1. R1a3 Kd7 2. R5a4 *");
+    assertEquals("a1", game.getMove(0).getFromSquare());
+    assertEquals("a3", game.getMove(0).getToSquare());
+    assertEquals("a5", game.getMove(2).getFromSquare());
+
+    game = parse("7k/8/8/8/4Q2Q/8/8/K6Q w - - 0 1", "1. Qh4e1 *");
+    assertEquals("h4", game.getMove(0).getFromSquare());
+    assertEquals("e1", game.getMove(0).getToSquare());
+    assertEquals("Q", game.getMove(0).getPiece());
+  }
+
+  @Test
+  public void capturesChecksAndMatesAreRecorded() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0");
+    PGNMove mate = game.getMove(6);
+
+    assertEquals("Qf7", mate.getMove());
+    assertEquals("Qxf7#", mate.getFullMove());
+    assertTrue(mate.isCaptured());
+    assertEquals("P", mate.getCapturedPiece());
+    assertTrue(mate.isCheckMated());
+    assertEquals("h5", mate.getFromSquare());
+
+    PGNMove check = PGNParser.parse("1. e4 f5 2. Qh5+ *").getMove(2);
+    assertTrue(check.isChecked());
+    assertFalse(check.isCaptured());
+  }
+
+  @Test
+  public void pawnCapturesAndEnPassantAreRecorded() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 d5 2. exd5 c5 3. dxc6 *");
+
+    assertEquals("e4", game.getMove(2).getFromSquare());
+    assertEquals("P", game.getMove(2).getCapturedPiece());
+    assertTrue(game.getMove(4).isEnpassantCapture());
+    assertEquals("c5", game.getMove(4).getEnpassantPieceSquare());
+  }
+
+  @Test
+  public void promotionsAreRecorded() throws Exception {
+    PGNGame game = parse("1n5k/P7/8/8/8/8/8/K7 w - - 0 1", "1. a8=Q Kg7 2. Qxb8 *");
+
+    assertTrue(game.getMove(0).isPromoted());
+    assertEquals("Q", game.getMove(0).getPromotion());
+    assertEquals("a8", game.getMove(0).getToSquare());
+    assertEquals("Q", game.getMove(2).getPiece());
+
+    game = parse("1n5k/P7/8/8/8/8/8/K7 w - - 0 1", "1. axb8=N+ *");
+    assertEquals("N", game.getMove(0).getPromotion());
+    assertEquals("N", game.getMove(0).getCapturedPiece());
+    assertTrue(game.getMove(0).isChecked());
+  }
+
+  @Test
+  public void castlesAreRecordedWithLettersOrDigits() throws Exception {
+    String moves = "1. e4 e5 2. Nf3 Nf6 3. Bc4 Bc5 4. O-O 0-0 *";
+    PGNGame game = PGNParser.parse(moves);
+
+    assertTrue(game.getMove(6).isKingSideCastle());
+    assertTrue(game.getMove(7).isKingSideCastle());
+    assertEquals("O-O", game.getMove(6).getMove());
+
+    game = parse("r3k3/8/8/8/8/8/8/4K3 b q - 0 1", "1... O-O-O 2. Ke2 Rd2+ *");
+    assertTrue(game.getMove(0).isQueenSideCastle());
+    assertEquals("d8", game.getMove(2).getFromSquare());
+  }
+
+  @Test
+  public void invalidMovesAreRejected() {
+    assertInvalid("1. e5 *");
+    assertInvalid("1. e9 *");
+    assertInvalid("1. Zf3 *");
+    assertInvalid("1. exd5 *");
+    assertInvalid("1. Nd3 *");
+  }
+
+  @Test
+  public void castlesWithoutTheKingAndRookInPlaceAreRejected() {
+    assertInvalid("1. O-O *");
+    assertInvalid("1. e4 e5 2. Ke2 Ke7 3. Kf3 Kf6 4. O-O *");
+    assertInvalid("[FEN \"4k3/8/8/8/8/8/8/4K1R1 w K - 0 1\"]\n\n1. O-O *");
+  }
+
+  @Test
+  public void promotionsToPawnsOrKingsAreRejected() {
+    assertInvalid("[FEN \"7k/P7/8/8/8/8/8/K7 w - - 0 1\"]\n\n1. a8=K *");
+    assertInvalid("[FEN \"7k/P7/8/8/8/8/8/K7 w - - 0 1\"]\n\n1. a8=P *");
+    assertInvalid("[FEN \"7k/P7/8/8/8/8/8/K7 w - - 0 1\"]\n\n1. a8=X *");
+
+    try {
+      PGNParser.parseMove("a8=K");
+      fail();
+    } catch (PGNParseException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void everyMoveOfEndgamePositionsIsResolved() throws Exception {
+    String[] fens = {
+        "N6k/8/8/8/8/8/8/N3K2N w - - 0 1",
+        "7k/1R6/8/8/8/8/6r1/K7 b - - 0 1",
+        "R6R/8/8/3k4/8/8/8/R3K2R w - - 0 1",
+        "8/8/8/8/8/2k5/n7/K1N5 w - - 0 1",
+        "n1n4k/8/2K5/8/8/8/8/n1n5 b - - 0 1"
+    };
+    int[] moves = new int[PGNMoveGenerator.MAX_MOVES];
+
+    for (String fen : fens) {
+      PositionSnapshot position = new PositionSnapshot(PGNParser.createGameState(
+          FENParser.parse(fen)));
+      int count = PGNMoveGenerator.generate(position.getBoard(), position.getPlayer(),
+          position.getCastling(), position.getEnpassantSquare(), moves, 0);
+
+      for (int i = 0; i < count; i++) {
+        int from = PGNMoveGenerator.from(moves[i]);
+        int to = PGNMoveGenerator.to(moves[i]);
+        StringBuilder san = new StringBuilder(
+            position.getPlayer() == PGNParser.W ? "1. " : "1... ");
+        SANFormatter.appendMove(san, position.getBoard(), from, to, 0);
+        PGNMove move = parse(fen, san.append(" *").toString()).getMove(0);
+
+        assertEquals(san.toString(), BitboardPosition.name(from), move.getFromSquare());
+        assertEquals(san.toString(), BitboardPosition.name(to), move.getToSquare());
+      }
+    }
+  }
+
+  @Test
+  public void variationsArePlayedFromThePositionBeforeTheirMove() throws Exception {
+    PGNParseOptions options = PGNGameTest.positionSnapshots();
+    options.setZobristHashing(true);
+    PGNGame game = PGNParser.parse("1. e4 Nf6 2. e5 d5 (2... Nd5 3. c4 Nb6 (3... Nf4 4. g3)"
+        + " 4. Nf3) (2... Ng8 3. Bc4) 3. exd6 e6 4. Nf3 Bd6 5. Bc4 (5. Ke2 O-O) 5... O-O"
+        + " 6. O-O *", options);
+    PGNGame mainLine = PGNParser.parse("1. e4 Nf6 2. e5 d5 3. exd6 e6 4. Nf3 Bd6 5. Bc4 O-O"
+        + " 6. O-O *", options);
+
+    assertEquals(mainLine.getMovesCount(), game.getMovesCount());
+
+    for (int i = 0; i < game.getMovesCount(); i++) {
+      assertEquals(mainLine.getFEN(mainLine.getMove(i)), game.getFEN(game.getMove(i)));
+      assertEquals(mainLine.getMove(i).getZobristKey(), game.getMove(i).getZobristKey());
+    }
+
+    PGNVariation nested = game.getMove(3).getVariations().get(0).getMove(2).getVariations()
+        .get(0);
+    PGNGame nestedLine = PGNParser.parse("1. e4 Nf6 2. e5 Nd5 3. c4 Nf4 4. g3 *", options);
+    assertEquals(nestedLine.getFEN(nestedLine.getMove(6)), game.getFEN(nested.getMove(1)));
+    assertEquals(2, game.getMove(3).getVariations().size());
+    assertEquals("Bc4", game.getMove(3).getVariations().get(1).getMove(1).getMove());
+  }
+
+  @Test
+  public void deeplyNestedVariationsNeedNoDeepStack() throws Exception {
+    StringBuilder pgn = new StringBuilder("1. e4 e5 ");
+
+    for (int i = 0; i < 80000; i++) {
+      pgn.append("(1... c5 ");
+    }
+
+    for (int i = 0; i < 80000; i++) {
+      pgn.append(") ");
+    }
+
+    PGNGame[] game = new PGNGame[1];
+    Throwable[] error = new Throwable[1];
+    Thread thread = new Thread(null, () -> {
+      try {
+        game[0] = PGNParser.parse(pgn.append("2. Nf3 *").toString());
+      } catch (Throwable e) {
+        error[0] = e;
+      }
+    }, "parse", 256 * 1024);
+    thread.start();
+    thread.join();
+
+    assertNull(error[0]);
+    assertEquals(3, game[0].getMovesCount());
+    assertEquals("c5", game[0].getMove(1).getVariations().get(0).getMove(0).getMove());
+  }
+
+  @Test
+  public void unbalancedVariationsAreRejected() {
+    assertInvalid("1. e4 e5) 2. Nf3 *");
+    assertInvalid("1. e4 (1. d4 d5 *");
+    assertInvalid("(1. e4) *");
+  }
+
+  @Test
+  public void parseMoveSplitsTheMarksOfASAN() throws Exception {
+    PGNMove move = PGNParser.parse("1. e4 d5 2. exd5 *").getMove(2);
+    assertEquals("ed5", move.getMove());
+    assertEquals("exd5", move.getFullMove());
+
+    move = PGNParser.parseMove("exd8=Q+");
+    assertEquals("ed8", move.getMove());
+    assertEquals("P", move.getPiece());
+    assertEquals("Q", move.getPromotion());
+    assertTrue(move.isCaptured());
+    assertTrue(move.isChecked());
+
+    move = PGNParser.parseMove("O-O-O#");
+    assertTrue(move.isQueenSideCastle());
+    assertTrue(move.isCheckMated());
+  }
+
+  @Test
+  public void parseTagsSkipsTheMovetext() throws Exception {
+    PGNGame game = PGNParser.parseTags("[Event \"Tags\"]\n[White \"A\"]\n\n1. e5 *");
+
+    assertEquals("Tags", game.getTag("Event"));
+    assertEquals("A", game.getTag("White"));
+    assertEquals(0, game.getMovesCount());
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void parseTagsRejectsMalformedTags() throws Exception {
+    PGNParser.parseTags("[Event]\n\n1. e4 *");
+  }
+
+  @Test
+  public void tagFilterSkipsTheMovetextOfRejectedGames() throws Exception {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setTagFilter(game -> "Keep".equals(game.getTag("Event")));
+
+    assertNull(PGNParser.parse("[Event \"Skip\"]\n\n1. e5 *", options));
+    PGNGame game = PGNParser.parse("[Event \"Keep\"]\n\n1. e4 e5 *", options);
+    assertEquals(2, game.getMovesCount());
+  }
+
+  static PGNGame parse(String fen, String moves) throws PGNParseException {
+    return PGNParser.parse("[FEN \"" + fen + "\"]\n\n" + moves);
+  }
+
+  private static void assertInvalid(String pgn) {
+    try {
+      PGNParser.parse(pgn);
+      fail(pgn);
+    } catch (PGNParseException e) {
+      // expected
+    }
+  }
+
+}
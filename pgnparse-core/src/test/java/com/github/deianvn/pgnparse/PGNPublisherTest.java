@@ -0,0 +1,190 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PGNPublisherTest {
+
+  private static final int GAMES = 300;
+
+  private ExecutorService executor;
+
+  private String pgn;
+
+  @Before
+  public void setUp() {
+    executor = Executors.newFixedThreadPool(4);
+    StringBuilder text = new StringBuilder();
+
+    for (int i = 0; i < GAMES; i++) {
+      String move = i % 100 == 50 ? "Nd4" : "e4";
+      text.append("[Event \"").append(i).append("\"]\n\n1. ").append(move).append(" e5 *\n\n");
+    }
+
+    pgn = text.toString();
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+  }
+
+  @Test
+  public void resultsAreDeliveredInSourceOrder() throws Exception {
+    Recorder recorder = new Recorder(Long.MAX_VALUE);
+    new PGNSource(pgn).publisher(executor).subscribe(recorder);
+    recorder.awaitTermination();
+
+    assertTrue(recorder.completed);
+    assertNull(recorder.error);
+    assertEquals(GAMES, recorder.results.size());
+
+    for (int i = 0; i < GAMES; i++) {
+      PGNParseResult result = recorder.results.get(i);
+      assertEquals(i, result.getGameNumber());
+      assertEquals(i % 100 != 50, result.isSuccessful());
+
+      if (result.isSuccessful()) {
+        assertEquals(String.valueOf(i), result.getGame().getTag("Event"));
+      } else {
+        assertTrue(result.getError().getMessage().contains("Nd4"));
+        assertTrue(result.getPGN().contains("[Event \"" + i + "\"]"));
+      }
+    }
+  }
+
+  @Test
+  public void onlyTheRequestedResultsAreDelivered() throws Exception {
+    Recorder recorder = new Recorder(3);
+    new PGNSource(pgn).publisher(executor).subscribe(recorder);
+
+    assertTrue(recorder.received.await(10, TimeUnit.SECONDS));
+    Thread.sleep(100);
+    assertEquals(3, recorder.results.size());
+    assertFalse(recorder.completed);
+
+    recorder.subscription.request(Long.MAX_VALUE);
+    recorder.awaitTermination();
+
+    assertTrue(recorder.completed);
+    assertEquals(GAMES, recorder.results.size());
+  }
+
+  @Test
+  public void gamesRejectedByTheTagFilterAreSkipped() throws Exception {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setTagFilter(game -> Integer.parseInt(game.getTag("Event")) % 10 == 0);
+    Recorder recorder = new Recorder(Long.MAX_VALUE);
+    new PGNSource(pgn).publisher(options, executor).subscribe(recorder);
+    recorder.awaitTermination();
+
+    assertEquals(GAMES / 10, recorder.results.size());
+    assertEquals(290, recorder.results.get(29).getGameNumber());
+  }
+
+  @Test
+  public void cancelledSubscriptionStopsDelivering() throws Exception {
+    Recorder recorder = new Recorder(1);
+    new PGNSource(pgn).publisher(executor).subscribe(recorder);
+
+    assertTrue(recorder.received.await(10, TimeUnit.SECONDS));
+    recorder.subscription.cancel();
+    recorder.subscription.request(Long.MAX_VALUE);
+    Thread.sleep(100);
+
+    assertEquals(1, recorder.results.size());
+    assertFalse(recorder.completed);
+    assertNull(recorder.error);
+  }
+
+  @Test
+  public void nonPositiveRequestIsAnError() throws Exception {
+    Recorder recorder = new Recorder(0);
+    new PGNSource(pgn).publisher(executor).subscribe(recorder);
+    recorder.awaitTermination();
+
+    assertTrue(recorder.error instanceof IllegalArgumentException);
+  }
+
+  @Test
+  public void openedSourceSupportsASingleSubscriber() throws Exception {
+    PGNSource source = PGNSource.open(
+        new ByteArrayInputStream(pgn.getBytes(StandardCharsets.UTF_8)));
+    Recorder first = new Recorder(Long.MAX_VALUE);
+    source.publisher(executor).subscribe(first);
+    first.awaitTermination();
+    Recorder second = new Recorder(Long.MAX_VALUE);
+    source.publisher(executor).subscribe(second);
+    second.awaitTermination();
+
+    assertEquals(GAMES, first.results.size());
+    assertTrue(second.error instanceof IllegalStateException);
+  }
+
+  private static final class Recorder implements Flow.Subscriber<PGNParseResult> {
+
+    private final long initialRequest;
+
+    private final List<PGNParseResult> results = new ArrayList<>();
+
+    private final CountDownLatch received;
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile boolean completed;
+
+    private volatile Throwable error;
+
+    Recorder(long initialRequest) {
+      this.initialRequest = initialRequest;
+      this.received = new CountDownLatch((int) Math.min(initialRequest, 1 << 20));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      subscription.request(initialRequest);
+    }
+
+    @Override
+    public synchronized void onNext(PGNParseResult result) {
+      results.add(result);
+      received.countDown();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+      terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+      terminated.countDown();
+    }
+
+    void awaitTermination() throws InterruptedException {
+      assertTrue(terminated.await(10, TimeUnit.SECONDS));
+    }
+
+  }
+
+}
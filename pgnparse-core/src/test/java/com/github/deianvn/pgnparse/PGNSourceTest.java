@@ -0,0 +1,151 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.junit.Test;
+
+public class PGNSourceTest {
+
+  private static final String PGN = "[Event \"First\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0\n"
+      + "\n"
+      + "[Event \"Second\"]\n"
+      + "[Result \"*\"]\n"
+      + "\n"
+      + "1. d4 d5 2. c4\n"
+      + "e6 *\n"
+      + "[Event \"Third\"]\n"
+      + "[Result \"1/2-1/2\"]\n"
+      + "\n"
+      + "1. Nf3 1/2-1/2\n";
+
+  @Test
+  public void streamReadsTheSameGamesAsListGames() throws Exception {
+    List<PGNGame> listed = new PGNSource(PGN).listGames();
+    List<PGNGame> streamed;
+
+    try (Stream<PGNGame> games = new PGNSource(PGN).stream()) {
+      streamed = games.collect(Collectors.toList());
+    }
+
+    assertEquals(3, listed.size());
+    assertEquals(events(listed), events(streamed));
+    assertEquals(7, streamed.get(0).getMovesCount());
+    assertEquals(4, streamed.get(1).getMovesCount());
+    assertEquals("e6", streamed.get(1).getMove(3).getMove());
+  }
+
+  @Test
+  public void streamSkipsGamesThatCannotBeParsed() {
+    String pgn = "[Event \"Bad\"]\n\n1. e5 *\n\n" + PGN;
+
+    try (Stream<PGNGame> games = new PGNSource(pgn).stream()) {
+      assertEquals("[First, Second, Third]", events(games.collect(Collectors.toList())));
+    }
+  }
+
+  @Test
+  public void openedSourceIsReadLazily() {
+    PGNSource source = PGNSource.open(
+        new ByteArrayInputStream(PGN.getBytes(StandardCharsets.UTF_8)));
+
+    try (Stream<PGNGame> games = source.stream()) {
+      assertEquals("First", games.findFirst().get().getTag("Event"));
+    }
+
+    assertTrue(source.toString().startsWith("PGNSource["));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void openedSourceCanBeStreamedOnce() {
+    PGNSource source = PGNSource.open(
+        new ByteArrayInputStream(PGN.getBytes(StandardCharsets.UTF_8)));
+
+    try (Stream<PGNGame> games = source.stream()) {
+      assertEquals(3, games.count());
+    }
+
+    source.stream();
+  }
+
+  @Test
+  public void streamTagsReadsOnlyTheTags() {
+    String pgn = "[Event \"Bad movetext\"]\n\n1. e5 *\n\n[Event]\n\n1. e4 *\n\n" + PGN;
+
+    try (Stream<PGNGame> games = new PGNSource(pgn).streamTags()) {
+      List<PGNGame> tags = games.collect(Collectors.toList());
+      assertEquals("[Bad movetext, First, Second, Third]", events(tags));
+      assertEquals(0, tags.get(1).getMovesCount());
+    }
+  }
+
+  @Test
+  public void streamSkipsGamesRejectedByTheTagFilter() {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setTagFilter(game -> !"Second".equals(game.getTag("Event")));
+
+    try (Stream<PGNGame> games = new PGNSource(PGN).stream(options)) {
+      assertEquals("[First, Third]", events(games.collect(Collectors.toList())));
+    }
+  }
+
+  @Test
+  public void parallelListGamesKeepsTheSourceOrder() throws Exception {
+    StringBuilder pgn = new StringBuilder();
+
+    for (int i = 0; i < 500; i++) {
+      pgn.append("[Event \"").append(i).append("\"]\n\n1. e4 e5 2. Nf3 Nc6 *\n\n");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      PGNSource source = new PGNSource(pgn.toString());
+      String expected = events(source.listGames());
+      assertEquals(expected, events(source.listGames(executor)));
+      assertEquals(expected, events(source.forceListGames(executor)));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  public void parallelListGamesReportsTheFirstErrorInSourceOrder() {
+    StringBuilder pgn = new StringBuilder();
+
+    for (int i = 0; i < 200; i++) {
+      String move = i == 50 ? "Nd4" : i == 150 ? "Qd3" : "e4";
+      pgn.append("[Event \"").append(i).append("\"]\n\n1. ").append(move).append(" *\n\n");
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      PGNSource source = new PGNSource(pgn.toString());
+      assertEquals(198, source.forceListGames(executor).size());
+      source.listGames(executor);
+      fail();
+    } catch (PGNParseException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("Nd4"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  static String events(List<PGNGame> games) {
+    return games.stream().map(game -> game.getTag("Event")).collect(Collectors.toList())
+        .toString();
+  }
+
+}
@@ -0,0 +1,130 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class PGNTokenizerTest {
+
+  private static final String[] KINDS = {
+      "END", "TAG", "MOVE_NUMBER", "SAN", "COMMENT", "NAG", "VARIATION_START", "VARIATION_END",
+      "RESULT", "INCOMPLETE"
+  };
+
+  @Test
+  public void tokensAreReadInOrder() throws Exception {
+    String pgn = "[Event \"Test\"]\n"
+        + "\n"
+        + "1. e4!? $1 {A comment} (1. d4 d5) 1... e5\n"
+        + "2.Nf3 ; rest of line\n"
+        + "!! 1-0";
+
+    assertEquals("[TAG [Event \"Test\"], MOVE_NUMBER 1., SAN e4, NAG $1, COMMENT A comment, "
+        + "VARIATION_START, MOVE_NUMBER 1., SAN d4, SAN d5, VARIATION_END, "
+        + "MOVE_NUMBER 1..., SAN e5, MOVE_NUMBER 2., SAN Nf3, COMMENT rest of line, NAG !!, "
+        + "RESULT 1-0]", tokens(pgn));
+  }
+
+  @Test
+  public void tagNameAndValueAreRead() throws Exception {
+    PGNTokenizer tokenizer = new PGNTokenizer("[ White   \"Doe, John\" ]\n1. e4 *");
+
+    assertEquals(PGNTokenizer.TAG, tokenizer.next());
+    assertEquals("White", tokenizer.getTagName());
+    assertEquals("Doe, John", tokenizer.getTagValue());
+    assertEquals(PGNTokenizer.MOVE_NUMBER, tokenizer.next());
+  }
+
+  @Test
+  public void tagsAreOnlyReadAtTheStartOfALine() throws Exception {
+    assertEquals("[SAN e4, SAN [x]]", tokens("e4 [x]"));
+  }
+
+  @Test
+  public void escapedLinesAreSkipped() throws Exception {
+    assertEquals("[SAN e4, RESULT *]", tokens("@ escaped line\ne4 *"));
+  }
+
+  @Test
+  public void linesAreCountedForEveryLineEnding() throws Exception {
+    PGNTokenizer tokenizer = new PGNTokenizer("e4\r\ne5\rNf3\n{two\r\nlines}\nNc6");
+    int[] lines = new int[5];
+
+    for (int i = 0; i < lines.length; i++) {
+      tokenizer.next();
+      lines[i] = tokenizer.getLine();
+    }
+
+    assertEquals("[1, 2, 3, 4, 6]", Arrays.toString(lines));
+    assertEquals(6, tokenizer.getCurrentLine());
+  }
+
+  @Test
+  public void tokensOfARangeAreRead() throws Exception {
+    String text = "ignored 1. e4 e5 ignored";
+    PGNTokenizer tokenizer = new PGNTokenizer(text, 8, 16);
+
+    assertEquals(PGNTokenizer.MOVE_NUMBER, tokenizer.next());
+    assertEquals(PGNTokenizer.SAN, tokenizer.next());
+    assertEquals(PGNTokenizer.SAN, tokenizer.next());
+    assertEquals("e5", tokenizer.getText());
+    assertEquals(16, tokenizer.getPosition());
+    assertEquals(PGNTokenizer.END, tokenizer.next());
+  }
+
+  @Test
+  public void tokensCutByTheEndOfAPartialTextAreIncomplete() throws Exception {
+    StringBuilder text = new StringBuilder("1. Nf");
+    PGNTokenizer tokenizer = new PGNTokenizer(text, 0, text.length());
+    tokenizer.setPartial(true);
+
+    assertEquals(PGNTokenizer.MOVE_NUMBER, tokenizer.next());
+    assertEquals(PGNTokenizer.INCOMPLETE, tokenizer.next());
+
+    tokenizer.setEnd(text.append("3 {a\r").length());
+    assertEquals(PGNTokenizer.SAN, tokenizer.next());
+    assertEquals("Nf3", tokenizer.getText());
+    assertEquals(PGNTokenizer.INCOMPLETE, tokenizer.next());
+
+    tokenizer.setEnd(text.append("\nb} e5").length());
+    assertEquals(PGNTokenizer.COMMENT, tokenizer.next());
+    assertEquals("a\r\nb", tokenizer.getText());
+    assertEquals(PGNTokenizer.INCOMPLETE, tokenizer.next());
+    assertEquals(2, tokenizer.getCurrentLine());
+
+    tokenizer.setPartial(false);
+    assertEquals(PGNTokenizer.SAN, tokenizer.next());
+    assertEquals("e5", tokenizer.getText());
+    assertEquals(PGNTokenizer.END, tokenizer.next());
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void unterminatedCommentIsRejected() throws Exception {
+    tokens("1. e4 {no end");
+  }
+
+  @Test(expected = PGNParseException.class)
+  public void closingBraceWithoutCommentIsRejected() throws Exception {
+    tokens("1. e4 } e5");
+  }
+
+  static String tokens(CharSequence text) throws PGNParseException {
+    PGNTokenizer tokenizer = new PGNTokenizer(text);
+    List<String> tokens = new ArrayList<>();
+    int token;
+
+    while ((token = tokenizer.next()) != PGNTokenizer.END) {
+      if (token == PGNTokenizer.VARIATION_START || token == PGNTokenizer.VARIATION_END) {
+        tokens.add(KINDS[token]);
+      } else {
+        tokens.add(KINDS[token] + " " + tokenizer.getText());
+      }
+    }
+
+    return tokens.toString();
+  }
+
+}
@@ -0,0 +1,147 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class PGNVisitorTest {
+
+  @Test
+  public void eventsAreReportedInTextOrder() throws Exception {
+    Recorder recorder = new Recorder();
+    PGNParser.visit("[Event \"Visit\"]\n\n1. e4 {Open} e5 (1... c5) 2. Nf3 1-0", recorder);
+
+    assertEquals("[tag Event=Visit, start, move 12-28 -1 0, comment Open, move 52-36 1 0, "
+        + "variation, move 50-34 1 0, end, move 6-21 -2 0, result 1-0]",
+        recorder.events.toString());
+  }
+
+  @Test
+  public void flagsDescribeTheMove() throws Exception {
+    Recorder recorder = new Recorder();
+    PGNParser.visit("[FEN \"n3k2r/1P6/8/3pP3/8/8/8/4K2R w Kk d6 0 1\"]\n\n"
+        + "1. exd6 O-O 2. bxa8=Q Rxa8 3. O-O *", recorder);
+    List<Integer> flags = recorder.flags;
+
+    assertEquals(PGNVisitor.EN_PASSANT | PGNVisitor.CAPTURE | BitboardPosition.PAWN << 3,
+        (int) flags.get(0));
+    assertEquals("move 60-62 6 " + PGNVisitor.KING_SIDE_CASTLE, recorder.events.get(3));
+    assertEquals(BitboardPosition.QUEEN, PGNVisitor.getPromotion(flags.get(2)));
+    assertEquals(BitboardPosition.KNIGHT, PGNVisitor.getCapturedPiece(flags.get(2)));
+    assertEquals(PGNVisitor.CAPTURE, flags.get(2) & PGNVisitor.CAPTURE);
+    assertEquals(PGNVisitor.CAPTURE | BitboardPosition.QUEEN << 3, (int) flags.get(3));
+    assertEquals("move 4-6 -6 " + PGNVisitor.KING_SIDE_CASTLE, recorder.events.get(6));
+  }
+
+  @Test
+  public void checksAndCheckmatesAreFlagged() throws Exception {
+    Recorder check = new Recorder();
+    PGNParser.visit("1. e4 f5 2. Qh5+ *", check);
+    Recorder checkmate = new Recorder();
+    PGNParser.visit("1. f3 e5 2. g4 Qh4# 0-1", checkmate);
+
+    assertEquals(PGNVisitor.CHECK, (int) check.flags.get(2));
+    assertEquals(PGNVisitor.CHECKMATE, (int) checkmate.flags.get(3));
+  }
+
+  @Test
+  public void movetextCanBeSkipped() throws Exception {
+    Recorder recorder = new Recorder();
+    recorder.movetext = false;
+    PGNParser.visit("[Event \"Tags\"]\n\n1. e5 *", recorder);
+
+    assertEquals("[tag Event=Tags, start]", recorder.events.toString());
+  }
+
+  @Test
+  public void movesAreValidatedAsByParse() {
+    String pgn = "1. e4 e5 2. Nd4 *";
+
+    try {
+      PGNParser.parse(pgn);
+      fail();
+    } catch (PGNParseException expected) {
+      try {
+        PGNParser.visit(pgn, new PGNVisitor() {
+        });
+        fail();
+      } catch (PGNParseException e) {
+        assertEquals(expected.getMessage(), e.getMessage());
+      }
+    }
+  }
+
+  @Test
+  public void visitedMovesAreTheParsedMoves() throws Exception {
+    for (String pgn : RandomGames.generate(25, 50, 200)) {
+      Recorder recorder = new Recorder();
+      PGNParser.visit(pgn, recorder);
+      List<String> moves = new ArrayList<>();
+
+      for (PGNMove move : PGNParser.parse(pgn).getMoves()) {
+        if (!move.isCastle()) {
+          moves.add(move.getFromSquare() + move.getToSquare());
+        }
+      }
+
+      assertEquals(moves, recorder.squares);
+    }
+  }
+
+  private static final class Recorder implements PGNVisitor {
+
+    private final List<String> events = new ArrayList<>();
+
+    private final List<Integer> flags = new ArrayList<>();
+
+    private final List<String> squares = new ArrayList<>();
+
+    private boolean movetext = true;
+
+    @Override
+    public void onTag(String name, String value) {
+      events.add("tag " + name + "=" + value);
+    }
+
+    @Override
+    public boolean onMovetextStart() {
+      events.add("start");
+      return movetext;
+    }
+
+    @Override
+    public void onMove(int from, int to, int piece, int flags) {
+      events.add("move " + from + "-" + to + " " + piece + " " + flags);
+      this.flags.add(flags);
+
+      if ((flags & (KING_SIDE_CASTLE | QUEEN_SIDE_CASTLE)) == 0) {
+        squares.add(BitboardPosition.name(from) + BitboardPosition.name(to));
+      }
+    }
+
+    @Override
+    public void onComment(String comment) {
+      events.add("comment " + comment);
+    }
+
+    @Override
+    public void onVariationStart() {
+      events.add("variation");
+    }
+
+    @Override
+    public void onVariationEnd() {
+      events.add("end");
+    }
+
+    @Override
+    public void onResult(String result) {
+      events.add("result " + result);
+    }
+
+  }
+
+}
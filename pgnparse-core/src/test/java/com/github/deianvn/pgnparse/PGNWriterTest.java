@@ -0,0 +1,199 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class PGNWriterTest {
+
+  private static final String GAMES = "[Event \"Variations\"]\n"
+      + "[White \"Doe, John\"]\n"
+      + "[ECO \"C23\"]\n"
+      + "[Result \"1-0\"]\n"
+      + "\n"
+      + "1. e4 {King pawn} e5 (1... c5 2. Nf3 (2. c3 d5) 2... d6) 2. Qh5 Nc6 3. Bc4 Nf6\n"
+      + "4. Qxf7# 1-0\n"
+      + "\n"
+      + "[Event \"Position\"]\n"
+      + "[FEN \"r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1\"]\n"
+      + "\n"
+      + "1. exd6 O-O-O 2. b8=N Rxd6 3. O-O Rd1 4. Rfxd1 Kxb8 5. Rd3 Kc7 *\n";
+
+  @Test
+  public void writtenGamesAreParsedAsTheyWere() throws Exception {
+    List<PGNGame> games = games();
+    List<PGNGame> written = new PGNSource(write(games)).listGames();
+
+    assertEquals(games.size(), written.size());
+
+    for (int i = 0; i < games.size(); i++) {
+      PGNGame game = games.get(i);
+
+      for (String key : game.getTagKeys()) {
+        assertEquals(game.getTag(key), written.get(i).getTag(key));
+      }
+
+      assertEquals(moves(game), moves(written.get(i)));
+    }
+  }
+
+  @Test
+  public void writtenTextIsWrittenAgainUnchanged() throws Exception {
+    String text = write(games());
+
+    assertEquals(text, write(new PGNSource(text).listGames()));
+  }
+
+  @Test
+  public void exportFormatIsWritten() throws Exception {
+    String text = write(new PGNSource(GAMES).listGames());
+
+    assertTrue(text.startsWith("[Event \"Variations\"]\n[Site \"?\"]\n[Date \"????.??.??\"]\n"
+        + "[Round \"?\"]\n[White \"Doe, John\"]\n[Black \"?\"]\n[Result \"1-0\"]\n"
+        + "[ECO \"C23\"]\n\n1. e4 {King pawn} 1... e5 (1... c5 2. Nf3 (2. c3 d5) 2... d6)"
+        + " 2. Qh5 Nc6 3. Bc4\nNf6 4. Qxf7# 1-0\n\n"));
+    assertTrue(text.contains("\n1. exd6 O-O-O 2. b8=N Rxd6 3. O-O Rd1 4. Rfxd1 Kxb8"
+        + " 5. Rd3 Kc7 *\n\n"));
+  }
+
+  @Test
+  public void linesAreWrappedAt79Characters() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 {" + "A long comment with many words ".repeat(20)
+        + "} e5 *");
+    List<PGNGame> games = games();
+    games.add(game);
+
+    for (String line : write(games).split("\n")) {
+      assertTrue(line, line.length() <= 79);
+    }
+  }
+
+  @Test
+  public void checkAndMateMarksComeFromThePosition() throws Exception {
+    String text = write(List.of(PGNParser.parse("1. f3 e5 2. g4 Qh4 *"),
+        PGNParser.parse("1. e4 f5 2. Qh5# *")));
+
+    assertTrue(text, text.contains("2. g4 Qh4# *"));
+    assertTrue(text, text.contains("2. Qh5+ *"));
+  }
+
+  @Test
+  public void commentsCannotCloseEarly() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *");
+    game.getMove(0).setComment("a }b} c");
+    String text = write(List.of(game));
+
+    assertTrue(text, text.contains("1. e4 {a b c} 1... e5 *"));
+    assertEquals("a b c", PGNParser.parse(text).getMove(0).getComment().trim());
+  }
+
+  @Test
+  public void quotesAndBackslashesOfTagValuesAreEscaped() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *");
+    game.addTag("Annotator", "\"Doe\" \\ Co");
+    String text = write(List.of(game));
+
+    assertTrue(text, text.contains("[Annotator \"\\\"Doe\\\" \\\\ Co\"]\n"));
+    assertEquals("\"Doe\" \\ Co", PGNParser.parse(text).getTag("Annotator"));
+  }
+
+  @Test
+  public void commentsAndVariationsCanBeLeftOut() throws Exception {
+    StringWriter text = new StringWriter();
+
+    try (PGNWriter writer = new PGNWriter(text)) {
+      writer.setComments(false);
+      writer.setVariations(false);
+      writer.write(new PGNSource(GAMES).listGames().get(0));
+    }
+
+    assertTrue(text.toString(),
+        text.toString().endsWith("\n\n1. e4 e5 2. Qh5 Nc6 3. Bc4 Nf6 4. Qxf7# 1-0\n\n"));
+  }
+
+  @Test
+  public void byteBufferReceivesTheSameText() throws Exception {
+    List<PGNGame> games = games();
+    ByteBuffer buffer = ByteBuffer.allocate(1 << 20);
+
+    try (PGNWriter writer = new PGNWriter(buffer)) {
+      for (PGNGame game : games) {
+        writer.write(game);
+      }
+    }
+
+    buffer.flip();
+    assertEquals(write(games), StandardCharsets.UTF_8.decode(buffer).toString());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void gameWithoutAnInitialPositionIsRejected() throws Exception {
+    write(List.of(new PGNGame()));
+  }
+
+  @Test
+  public void gamesAreWrittenWithOrWithoutPositionSnapshots() throws Exception {
+    PGNGame game = PGNParser.parse(GAMES.substring(GAMES.indexOf("[Event \"Position\"]")),
+        PGNGameTest.positionSnapshots());
+
+    assertNotNull(game.getInitialSnapshot().getBoard());
+    assertEquals(write(new PGNSource(GAMES).listGames().subList(1, 2)),
+        write(List.of(game)));
+  }
+
+  private static List<PGNGame> games() throws PGNParseException {
+    List<PGNGame> games = new ArrayList<>(new PGNSource(GAMES).listGames());
+
+    for (String pgn : RandomGames.generate(23, 100, 150)) {
+      games.add(PGNParser.parse(pgn));
+    }
+
+    return games;
+  }
+
+  /**
+   * @return the moves of a game with their comments and variations, without the check marks
+   *     which the writer adds
+   */
+  private static String moves(PGNMoveContainer container) {
+    StringBuilder moves = new StringBuilder();
+
+    for (PGNMove move : container.getMoves()) {
+      moves.append(' ').append(move.getMove()).append(':').append(move.getFromSquare())
+          .append(move.getToSquare());
+
+      if (move.getComment() != null) {
+        moves.append(" {").append(move.getComment().trim()).append('}');
+      }
+
+      if (move.hasVariations()) {
+        for (PGNVariation variation : move.getVariations()) {
+          moves.append(" (").append(moves(variation)).append(" )");
+        }
+      }
+    }
+
+    return moves.toString();
+  }
+
+  private static String write(List<PGNGame> games) throws IOException {
+    StringWriter text = new StringWriter();
+
+    try (PGNWriter writer = new PGNWriter(text)) {
+      for (PGNGame game : games) {
+        writer.write(game);
+      }
+    }
+
+    return text.toString();
+  }
+
+}
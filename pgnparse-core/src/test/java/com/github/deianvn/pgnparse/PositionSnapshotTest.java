@@ -0,0 +1,35 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class PositionSnapshotTest {
+
+  @Test
+  public void playedMovesGiveTheParsedPositions() throws Exception {
+    PGNGame game = PGNParser.parse("[FEN \"r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1\"]\n\n"
+        + "1. exd6 O-O-O 2. b8=N Rxd6 3. O-O Rd1 4. Rfxd1 Kxb8 5. Rd3 Kc7 *",
+        PGNGameTest.positionSnapshots());
+    PositionSnapshot position = game.getInitialSnapshot();
+
+    for (PGNMove move : game.getMoves()) {
+      int from;
+      int to;
+
+      if (move.isCastle()) {
+        int rank = position.getPlayer() == PGNParser.W ? 0 : 7;
+        from = BitboardPosition.square(4, rank);
+        to = BitboardPosition.square(move.isKingSideCastle() ? 6 : 2, rank);
+      } else {
+        from = BitboardPosition.square(move.getFromSquare());
+        to = BitboardPosition.square(move.getToSquare());
+      }
+
+      int promotion = move.isPromoted() ? BitboardPosition.KNIGHT : 0;
+      position = position.play(from, to, promotion);
+      assertEquals(move.getFullMove(), game.getFEN(move), position.toFEN());
+    }
+  }
+
+}
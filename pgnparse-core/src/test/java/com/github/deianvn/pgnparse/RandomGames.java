@@ -0,0 +1,78 @@
+package com.github.deianvn.pgnparse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Random legal games for the tests, played with {@link PGNMoveGenerator} so that they cover
+ * captures, castling, en passant and promotions without a corpus file.
+ */
+final class RandomGames {
+
+  private static final String START =
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  private static final String[] RESULTS = {"1-0", "0-1", "1/2-1/2"};
+
+  private RandomGames() {
+
+  }
+
+  /**
+   * @return the PGN texts of random games with a result, seeded for reproducible tests
+   */
+  static List<String> generate(long seed, int count, int maxPlies) throws PGNParseException {
+    Random random = new Random(seed);
+    List<String> games = new ArrayList<>(count);
+
+    for (int i = 0; i < count; i++) {
+      games.add(generate(random, i, 1 + random.nextInt(maxPlies)));
+    }
+
+    return games;
+  }
+
+  private static String generate(Random random, int number, int plies)
+      throws PGNParseException {
+    String result = RESULTS[random.nextInt(RESULTS.length)];
+    StringBuilder pgn = new StringBuilder();
+    pgn.append("[Event \"").append(number).append("\"]\n")
+        .append("[Result \"").append(result).append("\"]\n\n");
+    StringBuilder movetext = new StringBuilder();
+    PositionSnapshot position = new PositionSnapshot(PGNParser.createGameState(
+        FENParser.parse(START)));
+    int[] moves = new int[PGNMoveGenerator.MAX_MOVES * 2];
+
+    for (int ply = 0; ply < plies; ply++) {
+      int count = PGNMoveGenerator.generate(position.getBoard(), position.getPlayer(),
+          position.getCastling(), position.getEnpassantSquare(), moves, 0);
+
+      if (count == 0) {
+        break;
+      }
+
+      int move = moves[random.nextInt(count)];
+      int from = PGNMoveGenerator.from(move);
+      int to = PGNMoveGenerator.to(move);
+
+      if (ply % 2 == 0) {
+        movetext.append(ply / 2 + 1).append(". ");
+      }
+
+      if (Math.abs(position.getBoard().get(from)) == BitboardPosition.KING
+          && Math.abs(from - to) == 2) {
+        movetext.append(to > from ? "O-O" : "O-O-O");
+      } else {
+        SANFormatter.appendMove(movetext, position.getBoard(), from, to,
+            PGNMoveGenerator.promotion(move));
+      }
+
+      movetext.append(' ');
+      position = position.play(from, to, PGNMoveGenerator.promotion(move));
+    }
+
+    return pgn.append(movetext).append(result).append("\n\n").toString();
+  }
+
+}
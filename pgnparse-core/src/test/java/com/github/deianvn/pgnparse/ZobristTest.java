@@ -0,0 +1,83 @@
+package com.github.deianvn.pgnparse;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.List;
+import org.junit.Test;
+
+public class ZobristTest {
+
+  @Test
+  public void transpositionsHaveTheSameKey() throws Exception {
+    assertEquals(lastKey("1. Nf3 Nf6 2. d4 e6 3. c4 *"),
+        lastKey("1. d4 e6 2. c4 Nf6 3. Nf3 *"));
+    assertNotEquals(lastKey("1. Nf3 Nf6 2. d4 e6 3. c4 *"),
+        lastKey("1. d4 e6 2. c4 Nf6 *"));
+  }
+
+  @Test
+  public void keyDependsOnTheSideToMoveAndCastlingRights() throws Exception {
+    PGNGame game = parse("1. Nf3 Nf6 2. Ng1 Ng8 3. Nf3 Nf6 4. Rg1 Rg8 5. Rh1 Rh8 *");
+    List<PGNMove> moves = game.getMoves();
+
+    assertEquals(game.getInitialZobristKey(), moves.get(3).getZobristKey());
+    assertNotEquals(moves.get(0).getZobristKey(), moves.get(1).getZobristKey());
+    assertEquals(moves.get(1).getZobristKey(), moves.get(5).getZobristKey());
+    assertNotEquals(moves.get(5).getZobristKey(), moves.get(9).getZobristKey());
+  }
+
+  @Test
+  public void enPassantSquareCountsOnlyWhenItCanBeCaptured() throws Exception {
+    long afterPush = parse("1. e4 *").getMove(0).getZobristKey();
+
+    assertEquals(afterPush, parse("[FEN \"rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq"
+        + " - 0 1\"]\n\n1... e5 *").getInitialZobristKey());
+
+    long afterCapturablePush = parse("1. e4 Nf6 2. e5 d5 *").getMove(3).getZobristKey();
+    String position = "rnbqkb1r/ppp1pppp/5n2/3pP3/8/8/PPPP1PPP/RNBQKBNR w KQkq ";
+    assertEquals(afterCapturablePush,
+        parse("[FEN \"" + position + "d6 0 3\"]\n\n3. Nf3 *").getInitialZobristKey());
+    assertNotEquals(afterCapturablePush,
+        parse("[FEN \"" + position + "- 0 3\"]\n\n3. Nf3 *").getInitialZobristKey());
+  }
+
+  @Test
+  public void incrementalKeysMatchKeysComputedFromScratch() throws Exception {
+    PGNParseOptions options = PGNGameTest.positionSnapshots();
+    options.setZobristHashing(true);
+    PGNGame game = PGNParser.parse("[FEN \"r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1\"]\n\n"
+        + "1. exd6 O-O-O 2. b8=N Rxd6 3. O-O Rd1 4. Rfxd1 Kxb8 5. Rd3 Kc7 *", options);
+
+    assertEquals(hash(game.getInitialSnapshot()), game.getInitialZobristKey());
+
+    for (PGNMove move : game.getMoves()) {
+      assertEquals(move.getFullMove(), hash(move.getPosition()), move.getZobristKey());
+    }
+  }
+
+  @Test
+  public void keysAreNotComputedByDefault() throws Exception {
+    PGNGame game = PGNParser.parse("1. e4 e5 *");
+
+    assertEquals(0, game.getInitialZobristKey());
+    assertEquals(0, game.getMove(1).getZobristKey());
+  }
+
+  private static long hash(PositionSnapshot position) {
+    return Zobrist.hash(position.getBoard(), position.getPlayer(), position.getCastling(),
+        position.getEnpassantSquare());
+  }
+
+  private static long lastKey(String pgn) throws PGNParseException {
+    PGNGame game = parse(pgn);
+    return game.getMove(game.getMovesCount() - 1).getZobristKey();
+  }
+
+  private static PGNGame parse(String pgn) throws PGNParseException {
+    PGNParseOptions options = new PGNParseOptions();
+    options.setZobristHashing(true);
+    return PGNParser.parse(pgn, options);
+  }
+
+}